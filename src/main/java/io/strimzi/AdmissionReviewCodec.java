@@ -0,0 +1,424 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming codec for the AdmissionReview requests and responses of the /drainer endpoint. Instead of binding the whole
+ * AdmissionReview (including the user info, the old object, and the options) to the Fabric8 model classes, it reads
+ * only the few fields needed to decide about the eviction and skips everything else. The responses are written from
+ * pre-encoded allow and deny templates with the request UID spliced in.
+ *
+ * Apart from the parser itself, only the strings of the extracted fields and the response byte array are allocated.
+ */
+public class AdmissionReviewCodec {
+    private static final Logger LOG = LoggerFactory.getLogger(AdmissionReviewCodec.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final String EVICTION_KIND = "Eviction";
+    private static final String EVICTION_V1 = "policy/v1";
+    private static final String EVICTION_V1BETA1 = "policy/v1beta1";
+
+    private static final byte[] ALLOW_PREFIX = ("{\"apiVersion\":\"admission.k8s.io/v1\",\"kind\":\"AdmissionReview\","
+            + "\"response\":{\"allowed\":true,\"uid\":\"").getBytes(StandardCharsets.UTF_8);
+    static final String DENY_MESSAGE = "The pod will be rolled by the Strimzi Cluster Operator";
+    private static final byte[] DENY_PREFIX = denyPrefix(DENY_MESSAGE, null);
+    private static final byte[] SUFFIX = "\"}}".getBytes(StandardCharsets.UTF_8);
+
+    private AdmissionReviewCodec() {
+        // Static utility class
+    }
+
+    /**
+     * Decodes the AdmissionReview request
+     *
+     * @param body  JSON with the AdmissionReview
+     *
+     * @return  Decoded admission request
+     *
+     * @throws IOException  When the body is not a valid JSON or does not contain the admission request
+     */
+    static DecodedRequest decode(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            DecodedRequest request = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                if ("request".equals(field) && value == JsonToken.START_OBJECT) {
+                    request = decodeRequest(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (request == null) {
+                throw new IOException("AdmissionReview does not contain any request");
+            }
+
+            return request;
+        }
+    }
+
+    /**
+     * Decodes the request field of the AdmissionReview. The parser is expected to be at the start of the request object.
+     *
+     * @param parser    JSON parser
+     *
+     * @return  Decoded admission request
+     *
+     * @throws IOException  When the request is not a valid JSON
+     */
+    private static DecodedRequest decodeRequest(JsonParser parser) throws IOException {
+        String uid = null;
+        String namespace = null;
+        boolean dryRun = false;
+        ValidatingWebhook.EvictionRequest eviction = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "uid" -> uid = text(parser, value);
+                case "namespace" -> namespace = text(parser, value);
+                case "dryRun" -> {
+                    dryRun = value == JsonToken.VALUE_TRUE;
+                    parser.skipChildren();
+                }
+                case "object" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        eviction = decodeEviction(parser);
+                    } else {
+                        parser.skipChildren();
+                        eviction = null;
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new DecodedRequest(uid, namespace, dryRun, eviction);
+    }
+
+    /**
+     * Decodes the object of the admission request. The parser is expected to be at the start of the object.
+     *
+     * @param parser    JSON parser
+     *
+     * @return  Eviction request or null if the object is not an Eviction
+     *
+     * @throws IOException  When the object is not a valid JSON
+     */
+    private static ValidatingWebhook.EvictionRequest decodeEviction(JsonParser parser) throws IOException {
+        boolean evictionKind = false;
+        String version = null;
+        String[] metadata = new String[2];
+        String uid = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "apiVersion" -> version = evictionVersion(parser, value);
+                case "kind" -> evictionKind = isEvictionKind(parser, value);
+                case "metadata" -> decodeMetadata(parser, value, metadata);
+                case "deleteOptions" -> uid = decodePreconditionsUid(parser, value);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (evictionKind && version != null) {
+            LOG.debug("Received Eviction request of version {}", version);
+            return new ValidatingWebhook.EvictionRequest(metadata[0], metadata[1], uid, version);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the kind of the object is Eviction
+     *
+     * @param parser    JSON parser
+     * @param value     Token with the kind of the object
+     *
+     * @return  True if the object is an Eviction. False otherwise.
+     *
+     * @throws IOException  When the kind cannot be read
+     */
+    private static boolean isEvictionKind(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return false;
+        } else {
+            return textEquals(parser, EVICTION_KIND);
+        }
+    }
+
+    /**
+     * Finds the version of the Eviction API used by the object
+     *
+     * @param parser    JSON parser
+     * @param value     Token with the API version of the object
+     *
+     * @return  v1 or v1beta1 for the Eviction APIs or null for any other API
+     *
+     * @throws IOException  When the API version cannot be read
+     */
+    private static String evictionVersion(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            parser.skipChildren();
+            return null;
+        } else if (textEquals(parser, EVICTION_V1)) {
+            return "v1";
+        } else if (textEquals(parser, EVICTION_V1BETA1)) {
+            return "v1beta1";
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the name and namespace from the object metadata
+     *
+     * @param parser    JSON parser
+     * @param value     Token with the start of the metadata
+     * @param metadata  Array where the name and namespace of the object are stored
+     *
+     * @throws IOException  When the metadata are not a valid JSON
+     */
+    private static void decodeMetadata(JsonParser parser, JsonToken value, String[] metadata) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken fieldValue = parser.nextToken();
+
+            switch (field) {
+                case "name" -> metadata[0] = text(parser, fieldValue);
+                case "namespace" -> metadata[1] = text(parser, fieldValue);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    /**
+     * Decodes the UID from the preconditions in the delete options
+     *
+     * @param parser    JSON parser
+     * @param value     Token with the start of the delete options
+     *
+     * @return  UID from the preconditions or null if not set
+     *
+     * @throws IOException  When the delete options are not a valid JSON
+     */
+    private static String decodePreconditionsUid(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        String uid = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken fieldValue = parser.nextToken();
+
+            if ("preconditions".equals(field) && fieldValue == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String preconditionsField = parser.currentName();
+                    JsonToken preconditionsValue = parser.nextToken();
+
+                    if ("uid".equals(preconditionsField)) {
+                        uid = text(parser, preconditionsValue);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        return uid;
+    }
+
+    /**
+     * Encodes the AdmissionReview response allowing the request
+     *
+     * @param uid   UID of the admission request
+     *
+     * @return  JSON with the AdmissionReview
+     */
+    public static byte[] allow(String uid) {
+        return encode(ALLOW_PREFIX, uid);
+    }
+
+    /**
+     * Encodes the AdmissionReview response denying the request because the pod will be rolled by the Strimzi Cluster
+     * Operator
+     *
+     * @param uid   UID of the admission request
+     *
+     * @return  JSON with the AdmissionReview
+     */
+    public static byte[] deny(String uid) {
+        return encode(DENY_PREFIX, uid);
+    }
+
+    /**
+     * Encodes the AdmissionReview response denying the request with a custom message
+     *
+     * @param uid       UID of the admission request
+     * @param message   Message explaining why the request was denied or null to use the default message
+     *
+     * @return  JSON with the AdmissionReview
+     */
+    public static byte[] deny(String uid, String message) {
+        return deny(uid, message, null);
+    }
+
+    /**
+     * Encodes the AdmissionReview response denying the request with a custom message and a retry-after hint
+     *
+     * @param uid                   UID of the admission request
+     * @param message               Message explaining why the request was denied or null to use the default message
+     * @param retryAfterSeconds     Hint how long the client should wait before retrying the request or null for no hint
+     *
+     * @return  JSON with the AdmissionReview
+     */
+    public static byte[] deny(String uid, String message, Integer retryAfterSeconds) {
+        boolean defaultMessage = message == null || DENY_MESSAGE.equals(message);
+        return encode(defaultMessage && retryAfterSeconds == null ? DENY_PREFIX : denyPrefix(defaultMessage ? DENY_MESSAGE : message, retryAfterSeconds), uid);
+    }
+
+    /**
+     * Encodes the part of the deny response before the UID
+     *
+     * @param message               Message explaining why the request was denied
+     * @param retryAfterSeconds     Hint how long the client should wait before retrying the request or null for no hint
+     *
+     * @return  Pre-encoded part of the response before the UID
+     */
+    private static byte[] denyPrefix(String message, Integer retryAfterSeconds) {
+        return ("{\"apiVersion\":\"admission.k8s.io/v1\",\"kind\":\"AdmissionReview\","
+                + "\"response\":{\"allowed\":false,\"status\":{\"apiVersion\":\"v1\",\"kind\":\"Status\",\"code\":500,"
+                + (retryAfterSeconds != null ? "\"details\":{\"retryAfterSeconds\":" + retryAfterSeconds + "}," : "")
+                + "\"message\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(message)) + "\"},\"uid\":\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Splices the UID into the response template. UIDs are normally plain ASCII strings which are copied directly. Any
+     * other UIDs are escaped.
+     *
+     * @param prefix    Pre-encoded part of the response before the UID
+     * @param uid       UID of the admission request
+     *
+     * @return  JSON with the AdmissionReview
+     */
+    private static byte[] encode(byte[] prefix, String uid) {
+        String value = uid != null ? uid : "";
+        byte[] escaped = isPlainAscii(value) ? null : JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        int uidLength = escaped != null ? escaped.length : value.length();
+
+        byte[] response = new byte[prefix.length + uidLength + SUFFIX.length];
+        System.arraycopy(prefix, 0, response, 0, prefix.length);
+
+        if (escaped != null) {
+            System.arraycopy(escaped, 0, response, prefix.length, uidLength);
+        } else {
+            for (int i = 0; i < uidLength; i++) {
+                response[prefix.length + i] = (byte) value.charAt(i);
+            }
+        }
+
+        System.arraycopy(SUFFIX, 0, response, prefix.length + uidLength, SUFFIX.length);
+
+        return response;
+    }
+
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            if (c < 0x20 || c > 0x7E || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        } else {
+            parser.skipChildren();
+            return null;
+        }
+    }
+
+    /**
+     * Compares the current string value of the parser with the expected value without creating a new string
+     *
+     * @param parser    JSON parser
+     * @param expected  Expected value
+     *
+     * @return  True if the current value equals the expected value. False otherwise.
+     *
+     * @throws IOException  When the value cannot be read
+     */
+    private static boolean textEquals(JsonParser parser, String expected) throws IOException {
+        int length = parser.getTextLength();
+
+        if (length != expected.length()) {
+            return false;
+        }
+
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected token " + actual + " at " + parser.currentLocation());
+        }
+    }
+
+    /**
+     * Admission request decoded from the AdmissionReview
+     *
+     * @param uid           UID of the admission request
+     * @param namespace     Namespace of the admission request
+     * @param dryRun        Indicates whether this is a dry-run request
+     * @param eviction      Eviction from the admission request or null if the request is not for an Eviction
+     */
+    record DecodedRequest(String uid, String namespace, boolean dryRun, ValidatingWebhook.EvictionRequest eviction) {
+    }
+}
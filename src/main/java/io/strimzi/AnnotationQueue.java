@@ -0,0 +1,297 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional asynchronous queue for annotating the pods for restart. When enabled, the webhook denying the eviction does
+ * not need to wait for the pod to be patched and hands it over to this queue instead. The queue is bounded and
+ * deduplicated: a pod which is already waiting in the queue is not added again. The pods are patched by a configurable
+ * number of worker threads and patches which failed with a transient error are retried with exponential backoff and
+ * jitter. Throttled patches (429) are already retried by the pod annotator, so they are not retried here again. Other
+ * errors such as 403 or 422 would fail again and are not retried either. When a pod could not be annotated, the failure
+ * handler passed with the pod is called.
+ *
+ * When the application is stopping, the queue stops accepting new pods and waits for the queued pods to be patched.
+ */
+@ApplicationScoped
+public class AnnotationQueue {
+    private static final Logger LOG = LoggerFactory.getLogger(AnnotationQueue.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000L;
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.annotation.queue";
+
+    @Inject
+    PodAnnotator annotator;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final int parallelism;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    // Pods which are queued or being patched mapped to the time when they were queued
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+    private Timer waitTimer;
+    private Counter failures;
+    private Counter retries;
+
+    /**
+     * Constructs the annotation queue. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public AnnotationQueue() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.annotation.queue.enabled", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.annotation.queue.capacity", Integer.class).orElse(1000),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.annotation.queue.parallelism", Integer.class).orElse(2),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.annotation.queue.max.retries", Integer.class).orElse(3),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.annotation.queue.retry.backoff.ms", Long.class).orElse(1000L));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param annotator         Pod annotator used to patch the pods
+     * @param registry          Meter registry
+     * @param enabled           Enables / disables the annotation queue
+     * @param capacity          Maximal number of pods waiting in the queue
+     * @param parallelism       Number of pods patched in parallel
+     * @param maxRetries        Maximal number of retries for pods which failed to be patched
+     * @param retryBackoffMs    Initial backoff between the retries in milliseconds
+     */
+    /* test */ AnnotationQueue(PodAnnotator annotator, MeterRegistry registry, boolean enabled, int capacity, int parallelism, int maxRetries, long retryBackoffMs) {
+        this(enabled, capacity, parallelism, maxRetries, retryBackoffMs);
+        this.annotator = annotator;
+        this.registry = registry;
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled           Enables / disables the annotation queue
+     * @param capacity          Maximal number of pods waiting in the queue
+     * @param parallelism       Number of pods patched in parallel
+     * @param maxRetries        Maximal number of retries for pods which failed to be patched
+     * @param retryBackoffMs    Initial backoff between the retries in milliseconds
+     */
+    private AnnotationQueue(boolean enabled, int capacity, int parallelism, int maxRetries, long retryBackoffMs) {
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.parallelism = parallelism;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+
+        if (!this.enabled) {
+            LOG.info("Annotation queue is disabled");
+        }
+    }
+
+    /**
+     * Starts the queue when Quarkus is starting
+     *
+     * @param ev    Startup event
+     */
+    void onStart(@Observes StartupEvent ev) {
+        start();
+    }
+
+    /**
+     * Stops the queue when Quarkus is stopping
+     *
+     * @param ev    Shutdown event
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        stop();
+    }
+
+    /**
+     * @return  True if the annotation queue is enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the worker threads (if enabled) and registers the queue metrics
+     */
+    /* test */ void start() {
+        if (enabled) {
+            LOG.info("Starting the annotation queue with capacity {} and parallelism {}", capacity, parallelism);
+
+            AtomicInteger threadCounter = new AtomicInteger(0);
+            executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(capacity), runnable -> {
+                Thread thread = new Thread(runnable, "annotation-queue-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            Gauge.builder(METRIC_PREFIX + ".depth", executor, e -> e.getQueue().size())
+                    .description("Number of pods waiting in the annotation queue")
+                    .register(registry);
+            Gauge.builder(METRIC_PREFIX + ".oldest.age", this, AnnotationQueue::oldestAgeSeconds)
+                    .description("Age of the oldest pod which is waiting in the annotation queue or being patched")
+                    .baseUnit("seconds")
+                    .register(registry);
+            waitTimer = Timer.builder(METRIC_PREFIX + ".wait")
+                    .description("Time the pods spent in the annotation queue before being patched")
+                    .register(registry);
+            failures = Counter.builder(METRIC_PREFIX + ".failures")
+                    .description("Number of pods which failed to be annotated after all retries")
+                    .register(registry);
+            retries = Counter.builder(METRIC_PREFIX + ".retries")
+                    .description("Number of retried pod annotations")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Stops accepting new pods and waits for the queued pods to be annotated
+     */
+    /* test */ void stop() {
+        if (enabled && executor != null) {
+            LOG.info("Stopping the annotation queue with {} pending pods", pending.size());
+            executor.shutdown();
+
+            try {
+                if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    LOG.warn("Annotation queue did not finish within {} ms. {} pods were not annotated: {}", SHUTDOWN_TIMEOUT_MS, pending.size(), pending.keySet());
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Adds the pod to the queue to be annotated.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param onFailure     Called when the pod could not be annotated
+     *
+     * @return  True if the pod was queued or is already in the queue. False if the queue is full or not running and the
+     *          pod has to be annotated by the caller.
+     */
+    public boolean submit(String namespace, String name, Runnable onFailure) {
+        if (executor == null) {
+            return false;
+        }
+
+        String key = namespace + "/" + name;
+
+        if (pending.putIfAbsent(key, System.nanoTime()) != null) {
+            LOG.debug("Pod {} in namespace {} is already queued for annotation", name, namespace);
+            return true;
+        }
+
+        try {
+            executor.execute(() -> annotate(key, namespace, name, onFailure));
+            return true;
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Annotation queue is full or stopped. Pod {} in namespace {} could not be queued", name, namespace);
+            pending.remove(key);
+            return false;
+        }
+    }
+
+    /**
+     * Annotates the pod and retries it if it fails
+     *
+     * @param key           Key of the pod in the pending map
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param onFailure     Called when the pod could not be annotated
+     */
+    private void annotate(String key, String namespace, String name, Runnable onFailure) {
+        try {
+            waitTimer.record(System.nanoTime() - pending.get(key), TimeUnit.NANOSECONDS);
+
+            RuntimeException failure = null;
+
+            for (int attempt = 0; attempt <= maxRetries; attempt++) {
+                if (attempt > 0) {
+                    retries.increment();
+                    Thread.sleep(RetryBackoff.delayMs(retryBackoffMs, attempt - 1, failure));
+                }
+
+                try {
+                    if (annotator.annotate(namespace, name)) {
+                        LOG.info("Pod {} in namespace {} was patched", name, namespace);
+                    }
+
+                    return;
+                } catch (RuntimeException e) {
+                    LOG.warn("Failed to annotate Pod {} in namespace {} ({}/{})", name, namespace, attempt + 1, maxRetries + 1, e);
+                    failure = e;
+
+                    if (!isRetriable(e)) {
+                        break;
+                    }
+                }
+            }
+
+            LOG.error("Pod {} in namespace {} could not be annotated for restart", name, namespace);
+            failures.increment();
+            onFailure.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Annotation of Pod {} in namespace {} was interrupted", name, namespace);
+            onFailure.run();
+        } finally {
+            pending.remove(key);
+        }
+    }
+
+    /**
+     * Checks whether the failed patch should be retried. Only the I/O errors and server errors are retried. The
+     * throttled patches were already retried by the pod annotator.
+     *
+     * @param failure   Failure of the patch
+     *
+     * @return  True if the patch should be retried. False otherwise.
+     */
+    private static boolean isRetriable(RuntimeException failure) {
+        return failure instanceof KubernetesClientException e
+                && e.getCode() != 429
+                && RetryBackoff.isTransient(e);
+    }
+
+    /**
+     * @return  Age of the oldest pending pod in seconds
+     */
+    private double oldestAgeSeconds() {
+        long now = System.nanoTime();
+        return pending.values().stream().mapToLong(queued -> now - queued).max().orElse(0L) / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Optional circuit breaker for the calls to the Kubernetes API done by the webhook. When the configured number of
+ * calls in a row fails because the Kubernetes API server is unavailable, overloaded, or too slow, the circuit opens and
+ * the webhook skips the Kubernetes API calls and uses the fallback decision instead. After the configured time, a
+ * single trial call is let through. When it succeeds, the circuit closes again. When it fails, the circuit stays open.
+ */
+@ApplicationScoped
+public class ApiCircuitBreaker {
+    private static final Logger LOG = LoggerFactory.getLogger(ApiCircuitBreaker.class);
+
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.api.circuit.breaker";
+
+    @Inject
+    MeterRegistry registry;
+
+    private final boolean enabled;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int failures = 0;
+    private long changed = 0;
+
+    private Counter shortCircuited;
+
+    /**
+     * Constructs the circuit breaker. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public ApiCircuitBreaker() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.circuit.breaker.enabled", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.circuit.breaker.failure.threshold", Integer.class).orElse(5),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.circuit.breaker.open.ms", Long.class).orElse(30_000L),
+                System::nanoTime);
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param registry          Meter registry
+     * @param enabled           Enables / disables the circuit breaker
+     * @param failureThreshold  Number of failed calls in a row which opens the circuit
+     * @param openMs            How long the circuit stays open before a trial call is let through in milliseconds
+     * @param clock             Clock returning the current time in nanoseconds
+     */
+    /* test */ ApiCircuitBreaker(MeterRegistry registry, boolean enabled, int failureThreshold, long openMs, LongSupplier clock) {
+        this(enabled, failureThreshold, openMs, clock);
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled           Enables / disables the circuit breaker
+     * @param failureThreshold  Number of failed calls in a row which opens the circuit
+     * @param openMs            How long the circuit stays open before a trial call is let through in milliseconds
+     * @param clock             Clock returning the current time in nanoseconds
+     */
+    private ApiCircuitBreaker(boolean enabled, int failureThreshold, long openMs, LongSupplier clock) {
+        this.enabled = enabled;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+        this.clock = clock;
+
+        if (!this.enabled) {
+            LOG.info("Kubernetes API circuit breaker is disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        shortCircuited = Counter.builder(METRIC_PREFIX + ".short.circuited")
+                .description("Number of requests which skipped the Kubernetes API calls because the circuit was open")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".state", this, breaker -> breaker.state().ordinal())
+                .description("State of the circuit breaker (0 = closed, 1 = open, 2 = half-open)")
+                .register(registry);
+    }
+
+    /**
+     * @return  True if the circuit breaker is enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return  Current state of the circuit breaker
+     */
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Checks whether the Kubernetes API can be called. Every call which is allowed has to be followed by recording its
+     * result using {@link #recordSuccess()} or {@link #recordFailure(Throwable)}.
+     *
+     * @return  True if the Kubernetes API can be called. False if the circuit is open.
+     */
+    public synchronized boolean allowRequest() {
+        if (!enabled || state == State.CLOSED) {
+            return true;
+        } else if (clock.getAsLong() - changed >= openNanos) {
+            // The open period is over or the previous trial call did not finish in time => let a trial call through
+            transition(State.HALF_OPEN);
+            return true;
+        } else {
+            shortCircuited.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Records a successful call to the Kubernetes API
+     */
+    public synchronized void recordSuccess() {
+        failures = 0;
+
+        if (state != State.CLOSED) {
+            LOG.info("Kubernetes API calls succeed again. Closing the circuit.");
+            transition(State.CLOSED);
+        }
+    }
+
+    /**
+     * Records a failed call to the Kubernetes API. Only failures indicating that the Kubernetes API server is not
+     * healthy count towards opening the circuit. Other failures (such as missing permissions) are recorded as a
+     * successful call because the Kubernetes API server responded.
+     *
+     * @param failure   Exception thrown by the call
+     */
+    public synchronized void recordFailure(Throwable failure) {
+        if (!isUnhealthy(failure)) {
+            recordSuccess();
+        } else if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                LOG.warn("Kubernetes API calls are failing ({}). Opening the circuit.", failure.getMessage());
+            }
+
+            transition(State.OPEN);
+        }
+    }
+
+    private void transition(State newState) {
+        state = newState;
+        changed = clock.getAsLong();
+    }
+
+    private static boolean isUnhealthy(Throwable failure) {
+        if (failure instanceof KubernetesClientException e) {
+            // Code 0 is used for failures without any HTTP response (e.g. connection failures or timeouts)
+            return e.getCode() == 0 || e.getCode() == 429 || e.getCode() >= 500;
+        } else {
+            return true;
+        }
+    }
+
+    /**
+     * States of the circuit breaker
+     */
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.BasicBuilder;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Optional client-side rate limiter for the Kubernetes API calls. Each Kubernetes client has its own rate limiter. It
+ * limits the requests using a token bucket with the configured rate (QPS) and burst. The callers acquire the permit on
+ * their own thread before sending the request, so the HTTP client and its event loop are never blocked. Requests over
+ * the limit wait for their turn, so Drain Cleaner does not pile more load onto the Kubernetes API server which is
+ * already busy with the drain itself. A request which would have to wait longer than its own timeout fails right away
+ * with a 429 error instead of waiting.
+ *
+ * The limiter is also installed as an interceptor into its Kubernetes client. It counts the requests throttled by the
+ * Kubernetes API server (429 responses). When the rate limiting is enabled, it also makes the next requests wait for
+ * the time from their Retry-After header. When it is disabled, only the retries of the throttled request itself wait
+ * for the Retry-After time. The interceptor never delays the throttled response itself.
+ */
+public class ApiRateLimiter implements Interceptor {
+    private static final Logger LOG = LoggerFactory.getLogger(ApiRateLimiter.class);
+
+    /* test */ static final String NAME = "STRIMZI_RATE_LIMITER";
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.kubernetes.client";
+
+    private final double qps;
+    private final int burst;
+    private final LongSupplier clock;
+
+    private double tokens;
+    private long refilled;
+    private long pausedUntil;
+
+    private final Counter clientThrottled;
+    private final Counter serverThrottled;
+    private final Counter rejected;
+    private final Timer waitTimer;
+
+    /**
+     * Constructs the rate limiter
+     *
+     * @param registry  Meter registry
+     * @param client    Name of the Kubernetes client used in the metrics
+     * @param qps       Number of requests per second. 0 disables the rate limiting.
+     * @param burst     Number of requests which can be sent at once above the rate
+     * @param clock     Clock returning the current time in nanoseconds
+     */
+    /* test */ ApiRateLimiter(MeterRegistry registry, String client, double qps, int burst, LongSupplier clock) {
+        this.qps = qps;
+        this.burst = Math.max(1, burst);
+        this.clock = clock;
+        this.tokens = this.burst;
+        this.refilled = clock.getAsLong();
+        this.pausedUntil = refilled;
+
+        if (isEnabled()) {
+            LOG.info("Kubernetes API requests of the {} client are limited to {} requests per second with burst of {}", client, qps, this.burst);
+        } else {
+            LOG.info("Kubernetes API rate limiter of the {} client is disabled", client);
+        }
+
+        clientThrottled = Counter.builder(METRIC_PREFIX + ".throttled")
+                .description("Number of Kubernetes API requests throttled by the client-side rate limiter or by the Kubernetes API server")
+                .tags("client", client, "source", "client")
+                .register(registry);
+        serverThrottled = Counter.builder(METRIC_PREFIX + ".throttled")
+                .description("Number of Kubernetes API requests throttled by the client-side rate limiter or by the Kubernetes API server")
+                .tags("client", client, "source", "server")
+                .register(registry);
+        rejected = Counter.builder(METRIC_PREFIX + ".rate.limit.rejected")
+                .description("Number of Kubernetes API requests which failed because they would wait for the rate limiter longer than their timeout")
+                .tag("client", client)
+                .register(registry);
+        waitTimer = Timer.builder(METRIC_PREFIX + ".rate.limit.wait")
+                .description("Time the throttled Kubernetes API requests waited for the client-side rate limiter")
+                .tag("client", client)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * @return  True if the rate limiting is enabled. False otherwise.
+     */
+    boolean isEnabled() {
+        return qps > 0;
+    }
+
+    /**
+     * Waits on the calling thread until the request can be sent. It has to be called before each request sent through
+     * the Kubernetes client of this rate limiter.
+     *
+     * @param operation     Description of the request used in the logs and in the error
+     * @param timeoutMs     Timeout of the request in milliseconds. 0 or less means no timeout.
+     *
+     * @throws KubernetesClientException    With code 429 when the request would have to wait longer than its timeout
+     */
+    public void acquire(String operation, long timeoutMs) {
+        long waitNanos = reserve(timeoutMs > 0 ? TimeUnit.MILLISECONDS.toNanos(timeoutMs) : Long.MAX_VALUE);
+
+        if (waitNanos < 0) {
+            rejected.increment();
+            throw new KubernetesClientException("Client-side rate limit of the Kubernetes API requests would delay the " + operation + " longer than its timeout", 429, null);
+        } else if (waitNanos > 0) {
+            clientThrottled.increment();
+            waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+            LOG.debug("Delaying the {} by {} ms because of the client-side rate limit", operation, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    /**
+     * Takes the permit only when it is available right away. It is used for the optional requests, such as the hedged
+     * requests, which should rather not be sent at all than be delayed.
+     *
+     * @return  True if the request can be sent. False otherwise.
+     */
+    public boolean tryAcquire() {
+        if (reserve(0) < 0) {
+            clientThrottled.increment();
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> afterFailure(BasicBuilder builder, HttpResponse<?> response, RequestTags tags) {
+        if (response.code() == 429) {
+            serverThrottled.increment();
+            long retryAfterMs = retryAfterMs(response);
+
+            if (isEnabled() && retryAfterMs > 0) {
+                LOG.debug("Request was throttled by the Kubernetes API server and the next requests will wait for {} ms", retryAfterMs);
+                pause(retryAfterMs);
+            }
+        }
+
+        return CompletableFuture.completedFuture(false);
+    }
+
+    /**
+     * Makes the next reservations wait at least for the given time
+     *
+     * @param pauseMs   Time in milliseconds for which no request should be sent
+     */
+    /* test */ synchronized void pause(long pauseMs) {
+        pausedUntil = Math.max(pausedUntil, clock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(pauseMs));
+    }
+
+    /**
+     * Takes a token from the bucket. When the bucket is empty, the token is reserved in advance and the caller has to
+     * wait until the reserved token is refilled. The caller also waits while the requests are paused after the Kubernetes
+     * API server throttled them. When the rate limiting is disabled, the caller never waits.
+     *
+     * @param maxWaitNanos  Maximal time the caller can wait for the token
+     *
+     * @return  Time in nanoseconds the caller has to wait before sending the request or -1 if the caller would have to
+     *          wait longer than the maximal time. In such case, no token is taken.
+     */
+    /* test */ synchronized long reserve(long maxWaitNanos) {
+        if (!isEnabled()) {
+            return 0;
+        }
+
+        long now = clock.getAsLong();
+        long pauseNanos = Math.max(0, pausedUntil - now);
+
+        tokens = Math.min(burst, tokens + (now - refilled) * qps / TimeUnit.SECONDS.toNanos(1));
+        refilled = now;
+
+        // When the bucket is empty, the missing part of the token is refilled after this time. The tokens go negative
+        // with every reservation, so the waiting requests are sent in the order in which they reserved their tokens.
+        long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * TimeUnit.SECONDS.toNanos(1) / qps);
+        waitNanos = Math.max(waitNanos, pauseNanos);
+
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+
+        tokens--;
+        return waitNanos;
+    }
+
+    /**
+     * Gets the time after which the throttled request can be retried from its Retry-After header. The Kubernetes API
+     * server sends it in seconds.
+     *
+     * @param response  Response of the throttled request
+     *
+     * @return  Retry-After time in milliseconds or 0 if the response does not have a valid Retry-After header
+     */
+    static long retryAfterMs(HttpResponse<?> response) {
+        for (Map.Entry<String, List<String>> header : response.headers().entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(header.getValue().get(0).trim())));
+                } catch (NumberFormatException e) {
+                    LOG.debug("Ignoring invalid Retry-After header {}", header.getValue().get(0));
+                }
+            }
+        }
+
+        return 0;
+    }
+}
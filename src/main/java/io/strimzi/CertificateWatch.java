@@ -8,6 +8,8 @@ import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 import org.eclipse.microprofile.config.ConfigProvider;
@@ -33,9 +35,15 @@ import java.util.concurrent.CompletableFuture;
 public class CertificateWatch {
     private static final Logger LOG = LoggerFactory.getLogger(CertificateWatch.class);
 
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.certificate.watch";
+
     @Inject
+    @InformerClient
     KubernetesClient client;
 
+    @Inject
+    MeterRegistry registry;
+
     private final boolean enabled;
     private final String namespace;
     private final String podName;
@@ -62,15 +70,17 @@ public class CertificateWatch {
      * Constructor used by tests to pass mocked values
      *
      * @param client        Kubernetes client
+     * @param registry      Meter registry
      * @param enabled       Enables / disables the certificate watch
      * @param namespace     Drain Cleaner namespace
      * @param podName       Drain Cleaner podName
      * @param secretName    Name of the certificate Secret
      * @param secretKeys    Keys under which the certificates are stored in the secret
      */
-    /* test */ CertificateWatch(KubernetesClient client, boolean enabled, String namespace, String podName, String secretName, List<String> secretKeys)  {
+    /* test */ CertificateWatch(KubernetesClient client, MeterRegistry registry, boolean enabled, String namespace, String podName, String secretName, List<String> secretKeys)  {
         this(enabled, namespace, podName, secretName, secretKeys);
         this.client = client;
+        this.registry = registry;
     }
 
     /**
@@ -218,6 +228,10 @@ public class CertificateWatch {
         if (secret == null
                 || !previousValues.equals(getSecretData(secret))) {
             LOG.info("The watched fields {} changed and Drain Cleaner restart will be triggered", secretKeys);
+            Counter.builder(METRIC_PREFIX + ".changes")
+                    .description("Number of detected changes to the watched certificates")
+                    .register(registry)
+                    .increment();
 
             // The pod is deleted asynchronously to not block the event handler from the secretInformer
             // Doing it synchronously was causing Fabric8 exceptions since it was blocking the thread while the informer was
@@ -236,7 +250,28 @@ public class CertificateWatch {
      */
     /* test */ void restartDrainCleaner()  {
         LOG.info("Deleting pod {} to restart Drain Cleaner and reload certificates", podName);
-        client.pods().inNamespace(namespace).withName(podName).delete();
+
+        try {
+            client.pods().inNamespace(namespace).withName(podName).delete();
+            recordRestart("success");
+        } catch (RuntimeException e) {
+            LOG.error("Failed to delete pod {} to restart Drain Cleaner", podName, e);
+            recordRestart("error");
+            throw e;
+        }
+    }
+
+    /**
+     * Records the attempt to restart the Drain Cleaner
+     *
+     * @param result    Result of the restart (success or error)
+     */
+    private void recordRestart(String result) {
+        Counter.builder(METRIC_PREFIX + ".restarts")
+                .description("Number of Drain Cleaner restarts triggered by the certificate watch")
+                .tag("result", result)
+                .register(registry)
+                .increment();
     }
 
     /**
@@ -0,0 +1,307 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Optional gate limiting the number of pending rolling updates per Kafka cluster. When several nodes are drained in
+ * parallel, many brokers of the same Kafka cluster might be annotated for restart at once. The Strimzi Cluster Operator
+ * then rolls them one by one anyway while the under-replicated partitions of the cluster go up. With the gate enabled,
+ * only a limited number of pods of each Kafka cluster (identified by the {@code strimzi.io/cluster} label) can be
+ * annotated for restart and not yet rolled at the same time. Evictions of other pods of the same cluster are denied
+ * without annotating the pods. They are annotated later when the eviction is retried and the gate allows it.
+ *
+ * The gate keeps the pending pods in memory together with their UIDs. A pod stops being pending when it is deleted or
+ * replaced by a pod with a different UID. The pod cache informers report this and the pods annotated for restart by
+ * others, so the gate requires the pod cache to be enabled. Without it, the pending pods would be released only after
+ * the timeout and the gate would block the drains for most of it. Pods which could not be annotated are released by the
+ * webhook right away. Pods which are not reported as rolled are released after the timeout as well.
+ */
+@ApplicationScoped
+public class ClusterRollGate implements ResourceEventHandler<Pod> {
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterRollGate.class);
+
+    /* test */ static final String CLUSTER_LABEL_KEY = "strimzi.io/cluster";
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.cluster.roll.gate";
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    PodCache podCache;
+
+    private final boolean enabled;
+    private final int maxPending;
+    private final long timeoutNanos;
+    private final LongSupplier clock;
+
+    // Pending pods by the namespace and name of their Kafka cluster and by their name
+    private final Map<String, Map<String, PendingPod>> pending = new HashMap<>();
+
+    private Counter deferred;
+
+    /**
+     * Constructs the gate. This is the default constructor used in production which gets the values from quarkus
+     * configuration.
+     */
+    @SuppressWarnings("unused")
+    public ClusterRollGate() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.cluster.roll.gate.enabled", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.cluster.roll.gate.max.pending", Integer.class).orElse(1),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.cluster.roll.gate.timeout.ms", Long.class).orElse(600_000L),
+                System::nanoTime);
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param registry      Meter registry
+     * @param podCache      Pod cache reporting the rolled pods
+     * @param enabled       Enables / disables the gate
+     * @param maxPending    Maximal number of pods per Kafka cluster annotated for restart and not rolled yet
+     * @param timeoutMs     Time after which the pending pods are released when they are not reported as rolled
+     * @param clock         Clock returning the current time in nanoseconds
+     */
+    /* test */ ClusterRollGate(MeterRegistry registry, PodCache podCache, boolean enabled, int maxPending, long timeoutMs, LongSupplier clock) {
+        this(enabled, maxPending, timeoutMs, clock);
+        this.registry = registry;
+        this.podCache = podCache;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled       Enables / disables the gate
+     * @param maxPending    Maximal number of pods per Kafka cluster annotated for restart and not rolled yet
+     * @param timeoutMs     Time after which the pending pods are released when they are not reported as rolled
+     * @param clock         Clock returning the current time in nanoseconds
+     */
+    private ClusterRollGate(boolean enabled, int maxPending, long timeoutMs, LongSupplier clock) {
+        this.enabled = enabled;
+        this.maxPending = maxPending;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        this.clock = clock;
+
+        if (!this.enabled) {
+            LOG.info("Cluster roll gate is disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        deferred = Counter.builder(METRIC_PREFIX + ".deferred")
+                .description("Number of pods which were not annotated for restart because their Kafka cluster had too many pending rolling updates")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".pending", this, ClusterRollGate::pendingPods)
+                .description("Number of pods annotated for restart which were not rolled yet")
+                .register(registry);
+    }
+
+    /**
+     * Warns when the gate is enabled without the pod cache
+     *
+     * @param ev    Startup event
+     */
+    void onStart(@Observes StartupEvent ev) {
+        if (enabled && !isPodCacheEnabled()) {
+            LOG.warn("Cluster roll gate requires the pod cache to be enabled and will not be used");
+        }
+    }
+
+    /**
+     * @return  True if the gate and the pod cache are enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled && isPodCacheEnabled();
+    }
+
+    private boolean isPodCacheEnabled() {
+        return podCache != null && podCache.isEnabled();
+    }
+
+    /**
+     * Checks whether the pod can be annotated for restart. If so, the pod is recorded as pending.
+     *
+     * @param metadata  Metadata of the pod
+     *
+     * @return  True if the pod does not belong to any Kafka cluster, if it is already pending, or if its Kafka cluster
+     *          has less pending pods than allowed. False otherwise.
+     */
+    public synchronized boolean tryAcquire(ObjectMeta metadata) {
+        String cluster = clusterKey(metadata);
+
+        if (cluster == null) {
+            return true;
+        }
+
+        Map<String, PendingPod> clusterPods = pending.computeIfAbsent(cluster, c -> new HashMap<>());
+        releaseExpired(clusterPods);
+
+        // A pending pod with a different UID was already rolled and replaced by a new pod
+        PendingPod pod = clusterPods.get(metadata.getName());
+        if (pod != null && !Objects.equals(pod.uid(), metadata.getUid())) {
+            clusterPods.remove(metadata.getName());
+            pod = null;
+        }
+
+        if (pod != null || clusterPods.size() < maxPending) {
+            clusterPods.put(metadata.getName(), new PendingPod(metadata.getUid(), clock.getAsLong()));
+            return true;
+        } else {
+            LOG.info("Pod {} in namespace {} will not be annotated for restart yet because its cluster has {} pending rolling updates", metadata.getName(), metadata.getNamespace(), clusterPods.size());
+            deferred.increment();
+            return false;
+        }
+    }
+
+    /**
+     * Records the pod which is already annotated for restart as pending regardless of the limit
+     *
+     * @param metadata  Metadata of the pod
+     */
+    public synchronized void record(ObjectMeta metadata) {
+        String cluster = clusterKey(metadata);
+
+        if (cluster != null) {
+            pending.computeIfAbsent(cluster, c -> new HashMap<>())
+                    .compute(metadata.getName(), (name, pod) -> pod != null && Objects.equals(pod.uid(), metadata.getUid()) ? pod : new PendingPod(metadata.getUid(), clock.getAsLong()));
+        }
+    }
+
+    /**
+     * Releases the pending pod which could not be annotated for restart, so that it does not block the other pods of
+     * its Kafka cluster until the timeout
+     *
+     * @param metadata  Metadata of the pod
+     */
+    public synchronized void release(ObjectMeta metadata) {
+        release(metadata, true);
+    }
+
+    @Override
+    public void onAdd(Pod pod) {
+        update(pod);
+    }
+
+    @Override
+    public void onUpdate(Pod oldPod, Pod newPod) {
+        update(newPod);
+    }
+
+    @Override
+    public synchronized void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+        release(pod.getMetadata(), true);
+    }
+
+    /**
+     * Records the pods annotated for restart as pending and releases the pending pods which were replaced by a new pod
+     *
+     * @param pod   Pod from the pod informer
+     */
+    private synchronized void update(Pod pod) {
+        ObjectMeta metadata = pod.getMetadata();
+
+        if (metadata.getAnnotations() != null && "true".equals(metadata.getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION))) {
+            record(metadata);
+        } else {
+            release(metadata, false);
+        }
+    }
+
+    /**
+     * Releases the pending pod
+     *
+     * @param metadata      Metadata of the pod
+     * @param sameUid       Release the pending pod only if it has the same UID. Otherwise, release it only if it has a
+     *                      different UID.
+     */
+    private void release(ObjectMeta metadata, boolean sameUid) {
+        String cluster = clusterKey(metadata);
+        Map<String, PendingPod> clusterPods = cluster != null ? pending.get(cluster) : null;
+
+        if (clusterPods != null) {
+            PendingPod pod = clusterPods.get(metadata.getName());
+
+            if (pod != null && Objects.equals(pod.uid(), metadata.getUid()) == sameUid) {
+                LOG.debug("Pod {} in namespace {} is not pending anymore", metadata.getName(), metadata.getNamespace());
+                clusterPods.remove(metadata.getName());
+            }
+
+            if (clusterPods.isEmpty()) {
+                pending.remove(cluster);
+            }
+        }
+    }
+
+    /**
+     * Releases the pods which are pending for longer than the timeout
+     *
+     * @param clusterPods   Pending pods of a Kafka cluster
+     */
+    private void releaseExpired(Map<String, PendingPod> clusterPods) {
+        long now = clock.getAsLong();
+        clusterPods.values().removeIf(pod -> now - pod.since() >= timeoutNanos);
+    }
+
+    /**
+     * @param metadata  Metadata of the pod
+     *
+     * @return  Number of pending pods in the Kafka cluster of the pod
+     */
+    public synchronized int pendingPods(ObjectMeta metadata) {
+        String cluster = clusterKey(metadata);
+        Map<String, PendingPod> clusterPods = cluster != null ? pending.get(cluster) : null;
+        return clusterPods != null ? clusterPods.size() : 0;
+    }
+
+    /**
+     * @return  Number of pending pods in all Kafka clusters
+     */
+    /* test */ synchronized int pendingPods() {
+        return pending.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Gets the key of the Kafka cluster of the pod
+     *
+     * @param metadata  Metadata of the pod
+     *
+     * @return  Namespace and name of the Kafka cluster or null if the pod does not have the cluster label
+     */
+    private static String clusterKey(ObjectMeta metadata) {
+        String cluster = metadata.getLabels() != null ? metadata.getLabels().get(CLUSTER_LABEL_KEY) : null;
+        return cluster != null ? metadata.getNamespace() + "/" + cluster : null;
+    }
+
+    /**
+     * Pod annotated for restart which was not rolled yet
+     *
+     * @param uid       UID of the pod
+     * @param since     Time when the pod was recorded as pending in nanoseconds
+     */
+    private record PendingPod(String uid, long since) {
+    }
+}
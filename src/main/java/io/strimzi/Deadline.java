@@ -0,0 +1,84 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which the webhook request has to be answered. The Kubernetes API server gives up on the webhook
+ * after its timeout. So all calls to the Kubernetes API done while handling the request should finish before this
+ * deadline.
+ */
+public class Deadline {
+    private static final Deadline NONE = new Deadline(Long.MAX_VALUE, false);
+
+    private final long deadlineNanos;
+    private final boolean bounded;
+
+    private Deadline(long deadlineNanos, boolean bounded) {
+        this.deadlineNanos = deadlineNanos;
+        this.bounded = bounded;
+    }
+
+    /**
+     * @return  Deadline which never expires
+     */
+    public static Deadline none() {
+        return NONE;
+    }
+
+    /**
+     * Creates a deadline which expires after the given time
+     *
+     * @param budgetMs  Time budget in milliseconds
+     *
+     * @return  New deadline
+     */
+    public static Deadline after(long budgetMs) {
+        return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs), true);
+    }
+
+    /**
+     * @return  True if this deadline expires. False if it never expires.
+     */
+    public boolean isBounded() {
+        return bounded;
+    }
+
+    /**
+     * @return  True if the deadline expired. False otherwise.
+     */
+    public boolean isExpired() {
+        return bounded && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return  Remaining time in milliseconds or Long.MAX_VALUE if the deadline never expires
+     */
+    public long remainingMs() {
+        if (!bounded) {
+            return Long.MAX_VALUE;
+        } else {
+            return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+        }
+    }
+
+    /**
+     * Calculates the timeout for a call to the Kubernetes API
+     *
+     * @param defaultTimeoutMs  Default timeout of the call in milliseconds. 0 or less means no default timeout.
+     *
+     * @return  Default timeout or the remaining time if it is shorter. Without a default timeout, the remaining time
+     *          or Long.MAX_VALUE if the deadline never expires.
+     */
+    public long timeoutMs(long defaultTimeoutMs) {
+        return defaultTimeoutMs > 0 ? Math.min(defaultTimeoutMs, remainingMs()) : remainingMs();
+    }
+
+    @Override
+    public String toString() {
+        return bounded ? "Deadline(remaining=" + remainingMs() + "ms)" : "Deadline(none)";
+    }
+}
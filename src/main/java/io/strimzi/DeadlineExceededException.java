@@ -0,0 +1,19 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+/**
+ * Thrown when a call to the Kubernetes API did not finish before the deadline of the webhook request
+ */
+public class DeadlineExceededException extends RuntimeException {
+    /**
+     * Constructs the exception
+     *
+     * @param message   Exception message
+     */
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the webhook within the timeout of the Kubernetes API server. Each webhook request gets a deadline shortly
+ * before the webhook timeout. When the calls to the Kubernetes API do not finish before the deadline, the webhook
+ * responds with the configured fallback decision and the pod is checked and annotated in the background. The number of
+ * the concurrent background operations is limited.
+ */
+@ApplicationScoped
+public class DeadlinePolicy {
+    private static final Logger LOG = LoggerFactory.getLogger(DeadlinePolicy.class);
+
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.webhook";
+
+    @Inject
+    MeterRegistry registry;
+
+    private final boolean enabled;
+    private final long budgetMs;
+    private final Fallback fallback;
+    private final Semaphore backgroundPermits;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs the deadline policy. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public DeadlinePolicy() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.webhook.deadline.enabled", Boolean.class).orElse(true),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.webhook.timeout.seconds", Integer.class).orElse(5),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.webhook.deadline.margin.ms", Long.class).orElse(1_000L),
+                Fallback.fromValue(ConfigProvider.getConfig().getOptionalValue("strimzi.webhook.deadline.fallback", String.class).orElse("allow")),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.webhook.deadline.max.background.operations", Integer.class).orElse(10));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param registry          Meter registry
+     * @param enabled           Enables / disables the deadline
+     * @param timeoutSeconds    Timeout of the webhook configured in the Kubernetes API server in seconds
+     * @param marginMs          Time reserved for sending the response in milliseconds
+     * @param fallback          Decision used when the deadline expires
+     * @param maxBackground     Maximal number of concurrent background operations
+     */
+    /* test */ DeadlinePolicy(MeterRegistry registry, boolean enabled, int timeoutSeconds, long marginMs, Fallback fallback, int maxBackground) {
+        this(enabled, timeoutSeconds, marginMs, fallback, maxBackground);
+        this.registry = registry;
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled           Enables / disables the deadline
+     * @param timeoutSeconds    Timeout of the webhook configured in the Kubernetes API server in seconds
+     * @param marginMs          Time reserved for sending the response in milliseconds
+     * @param fallback          Decision used when the deadline expires
+     * @param maxBackground     Maximal number of concurrent background operations
+     */
+    private DeadlinePolicy(boolean enabled, int timeoutSeconds, long marginMs, Fallback fallback, int maxBackground) {
+        this.enabled = enabled;
+        this.budgetMs = Math.max(0, TimeUnit.SECONDS.toMillis(timeoutSeconds) - marginMs);
+        this.fallback = fallback;
+        this.backgroundPermits = new Semaphore(Math.max(0, maxBackground));
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("drain-cleaner-deadline-", 0).factory());
+
+        if (enabled) {
+            LOG.info("Webhook requests will be answered within {} ms with the {} fallback decision", budgetMs, fallback.value);
+        } else {
+            LOG.info("Webhook deadline is disabled");
+        }
+    }
+
+    /**
+     * Stops the executor when Quarkus is stopping
+     *
+     * @param ev    Shutdown event
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        stop();
+    }
+
+    /**
+     * Stops the executor used for the calls bounded by the deadline and for the background operations
+     */
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return  Fallback decision used when the deadline expires or when the Kubernetes API is not available
+     */
+    public Fallback fallback() {
+        return fallback;
+    }
+
+    /**
+     * Starts the deadline for a new webhook request
+     *
+     * @return  Deadline of the request
+     */
+    public Deadline start() {
+        return enabled ? Deadline.after(budgetMs) : Deadline.none();
+    }
+
+    /**
+     * Waits for the operation only until the deadline. When the deadline expires, the operation continues in the
+     * background and DeadlineExceededException is thrown. This is used for the calls to the Kubernetes API which do not
+     * support their own timeout.
+     *
+     * @param deadline      Deadline of the request
+     * @param operation     Blocking operation
+     *
+     * @param <T>   Type of the result
+     *
+     * @return  Result of the operation
+     */
+    public <T> T awaitWithin(Deadline deadline, Supplier<T> operation) {
+        if (!deadline.isBounded()) {
+            return operation.get();
+        } else if (deadline.isExpired()) {
+            throw new DeadlineExceededException("Deadline expired before the operation started");
+        }
+
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(operation, executor);
+
+        try {
+            return future.get(deadline.remainingMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Operation did not finish before the deadline");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeadlineExceededException("Interrupted while waiting for the operation");
+        }
+    }
+
+    /**
+     * Runs the operation in the background after the webhook responded with the fallback decision. When the maximal
+     * number of background operations is already running, the operation is skipped.
+     *
+     * @param operation     Operation which should be run
+     *
+     * @return  True if the operation was started. False if it was skipped.
+     */
+    public boolean runInBackground(Runnable operation) {
+        if (!backgroundPermits.tryAcquire()) {
+            Counter.builder(METRIC_PREFIX + ".background.operations.rejected")
+                    .description("Number of background operations skipped because too many background operations were running")
+                    .register(registry)
+                    .increment();
+
+            return false;
+        }
+
+        Counter.builder(METRIC_PREFIX + ".background.operations")
+                .description("Number of operations finished in the background after the webhook responded")
+                .register(registry)
+                .increment();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    operation.run();
+                } catch (RuntimeException e) {
+                    LOG.warn("Background operation failed", e);
+                } finally {
+                    backgroundPermits.release();
+                }
+            });
+
+            return true;
+        } catch (RejectedExecutionException e) {
+            backgroundPermits.release();
+            LOG.warn("Background operation could not be started", e);
+            return false;
+        }
+    }
+
+    /**
+     * Records the use of the fallback decision
+     *
+     * @param reason    Reason why the fallback decision was used
+     */
+    public void recordFallback(String reason) {
+        Counter.builder(METRIC_PREFIX + ".fallbacks")
+                .description("Number of webhook requests answered with the fallback decision")
+                .tag("reason", reason)
+                .tag("fallback", fallback.value)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Fallback decisions used when the deadline expires or when the Kubernetes API is not available
+     */
+    public enum Fallback {
+        /**
+         * Use the decision based on the pod cache. Pods known to be Strimzi pods are handled as usual. Other pods are
+         * allowed. When the pod cache is disabled, all evictions are allowed.
+         */
+        CACHED("cached"),
+
+        /**
+         * Allow the eviction
+         */
+        ALLOW("allow");
+
+        private final String value;
+
+        Fallback(String value) {
+            this.value = value;
+        }
+
+        /**
+         * Parses the fallback decision from the configuration value
+         *
+         * @param value     Configuration value
+         *
+         * @return  Fallback decision
+         */
+        public static Fallback fromValue(String value) {
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+
+            for (Fallback fallback : values()) {
+                if (fallback.value.equals(normalized)) {
+                    return fallback;
+                }
+            }
+
+            throw new IllegalArgumentException("Unsupported webhook deadline fallback " + value + ". Supported values are cached and allow.");
+        }
+    }
+}
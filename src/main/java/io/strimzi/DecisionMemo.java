@@ -0,0 +1,200 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Optional short-lived memo of the recent eviction decisions. Tools such as {@code kubectl drain} retry the denied
+ * evictions every few seconds until the pod is gone. With the memo enabled, these retries are answered from memory
+ * instead of getting the pod metadata again. The memo keeps the decisions for Strimzi pods which were annotated for
+ * restart as well as negative decisions for pods which are not Strimzi pods. Pods which do not exist are not
+ * remembered, because a Strimzi pod recreated under the same name would be evicted without being annotated when the
+ * eviction does not have the pod UID in its preconditions.
+ *
+ * The decisions are stored per pod together with the pod UID. When an eviction request for the same pod comes with a
+ * different UID in its preconditions, the pod was recreated and its decision is invalidated.
+ */
+@ApplicationScoped
+public class DecisionMemo {
+    private static final Logger LOG = LoggerFactory.getLogger(DecisionMemo.class);
+
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.decision.memo";
+
+    @Inject
+    MeterRegistry registry;
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier clock;
+
+    private final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter invalidations;
+
+    /**
+     * Constructs the decision memo. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public DecisionMemo() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.decision.memo.enabled", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.decision.memo.ttl.ms", Long.class).orElse(5_000L),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.decision.memo.max.size", Integer.class).orElse(10_000),
+                System::nanoTime);
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param registry  Meter registry
+     * @param enabled   Enables / disables the decision memo
+     * @param ttlMs     How long are the decisions kept in milliseconds
+     * @param maxSize   Maximal number of decisions kept in the memo
+     * @param clock     Clock returning the current time in nanoseconds
+     */
+    /* test */ DecisionMemo(MeterRegistry registry, boolean enabled, long ttlMs, int maxSize, LongSupplier clock) {
+        this(enabled, ttlMs, maxSize, clock);
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled   Enables / disables the decision memo
+     * @param ttlMs     How long are the decisions kept in milliseconds
+     * @param maxSize   Maximal number of decisions kept in the memo
+     * @param clock     Clock returning the current time in nanoseconds
+     */
+    private DecisionMemo(boolean enabled, long ttlMs, int maxSize, LongSupplier clock) {
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxSize = maxSize;
+        this.clock = clock;
+
+        if (!this.enabled) {
+            LOG.info("Decision memo is disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        hits = Counter.builder(METRIC_PREFIX + ".requests")
+                .description("Number of lookups in the decision memo")
+                .tag("result", "hit")
+                .register(registry);
+        misses = Counter.builder(METRIC_PREFIX + ".requests")
+                .description("Number of lookups in the decision memo")
+                .tag("result", "miss")
+                .register(registry);
+        invalidations = Counter.builder(METRIC_PREFIX + ".invalidations")
+                .description("Number of decisions invalidated because the pod UID changed")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".size", decisions, Map::size)
+                .description("Number of decisions in the decision memo")
+                .register(registry);
+    }
+
+    /**
+     * @return  True if the decision memo is enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the recent decision for the pod.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param evictionUid   UID from the eviction request preconditions or null if not set
+     *
+     * @return  True if the pod is a Strimzi pod which was annotated for restart, false if the pod is not a Strimzi pod
+     *          which should be drained, or null if there is no valid decision for this pod
+     */
+    public Boolean get(String namespace, String name, String evictionUid) {
+        String key = namespace + "/" + name;
+        Decision decision = decisions.get(key);
+
+        if (decision == null) {
+            misses.increment();
+            return null;
+        } else if (clock.getAsLong() - decision.created() > ttlNanos) {
+            decisions.remove(key, decision);
+            misses.increment();
+            return null;
+        } else if (evictionUid != null && !evictionUid.equals(decision.uid())) {
+            LOG.debug("Pod {} in namespace {} has a different UID {} than the recent decision {}", name, namespace, evictionUid, decision);
+            decisions.remove(key, decision);
+            invalidations.increment();
+            misses.increment();
+            return null;
+        } else {
+            hits.increment();
+            return decision.strimziPod();
+        }
+    }
+
+    /**
+     * Stores the decision for the pod. When the memo is full, the expired decisions are removed first. If it is still
+     * full afterwards, the decision is not stored.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param uid           UID of the pod
+     * @param strimziPod    True if the pod is a Strimzi pod which was annotated for restart. False otherwise.
+     */
+    public void put(String namespace, String name, String uid, boolean strimziPod) {
+        long now = clock.getAsLong();
+
+        if (decisions.size() >= maxSize) {
+            decisions.values().removeIf(decision -> now - decision.created() > ttlNanos);
+        }
+
+        if (decisions.size() < maxSize) {
+            decisions.put(namespace + "/" + name, new Decision(uid, strimziPod, now));
+        } else {
+            LOG.debug("Decision memo is full. Decision for Pod {} in namespace {} is not stored", name, namespace);
+        }
+    }
+
+    /**
+     * Removes the decision for the pod. This is used when the decision turned out to be wrong, for example when the pod
+     * which was remembered as annotated for restart could not be annotated.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     */
+    public void remove(String namespace, String name) {
+        decisions.remove(namespace + "/" + name);
+    }
+
+    /**
+     * Recent eviction decision for a pod
+     *
+     * @param uid           UID of the pod
+     * @param strimziPod    Indicates whether the pod is a Strimzi pod which was annotated for restart
+     * @param created       Time when the decision was created in nanoseconds
+     */
+    record Decision(String uid, boolean strimziPod, long created) {
+    }
+}
@@ -0,0 +1,559 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.utils.URLUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Optional drain sessions. When a node is drained, the Drain Cleaner receives a burst of eviction requests for all
+ * pods on this node. Without the drain sessions, each of them is checked with its own request to the Kubernetes API.
+ * With the drain sessions enabled, the first eviction of a Strimzi Kafka or ZooKeeper pod opens a session for the node
+ * of this pod. The session lists the Strimzi pods on the node with a single request using the {@code spec.nodeName}
+ * field selector and the evictions of the other Strimzi pods on the node are then checked using this snapshot.
+ *
+ * The eviction request does not say from which node the pod is evicted. The session is therefore opened in the
+ * background after the first eviction was decided: the node of the evicted pod is taken from the pod cache when it
+ * knows the pod or read from the Kubernetes API otherwise, and the pods on it are listed. Both requests return only the
+ * data needed for the session: the node is read from the server-side table of the pod and the pods are listed as
+ * {@code PartialObjectMetadata}. Sessions are opened one after another, so a burst of evictions from the same node opens
+ * only one session.
+ *
+ * The snapshot is not updated from the Kubernetes API. Pods which were annotated through the session are marked as
+ * annotated in the snapshot and removed from it again when their annotation fails. Only the evictions with the pod UID
+ * in their preconditions are checked using the snapshot, because without the UID the pod might have been replaced by a
+ * new pod with the same name. Evictions without the UID or with a different pod UID than in the snapshot are checked
+ * using the Kubernetes API. Each session is closed after its time-to-live by a timer and the next Strimzi eviction from
+ * the node opens a new session with a fresh snapshot. When the session is closed, its statistics are recorded in the
+ * metrics.
+ */
+@ApplicationScoped
+@SuppressWarnings("checkstyle:ClassFanOutComplexity")
+public class DrainSessions {
+    private static final Logger LOG = LoggerFactory.getLogger(DrainSessions.class);
+
+    private static final String STRIMZI_KIND_LABEL_KEY = "strimzi.io/kind";
+    private static final String STRIMZI_KIND_LABEL_VALUE = "Kafka";
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.drain.session";
+
+    /* test */ static final String PARTIAL_OBJECT_METADATA_LIST = "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1";
+    /* test */ static final String TABLE = "application/json;as=Table;g=meta.k8s.io;v=v1";
+    private static final String NODE_COLUMN = "Node";
+    private static final String NO_NODE = "<none>";
+    // How often are the expired sessions closed at most
+    private static final long MAX_CLOSE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Inject
+    @InformerClient
+    KubernetesClient client;
+
+    @Inject
+    @InformerClient
+    ApiRateLimiter rateLimiter;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final boolean enabled;
+    private final List<String> namespaces;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Open sessions by the node name
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+    private Counter opened;
+    private Counter hits;
+    private DistributionSummary sessionEvictions;
+    private DistributionSummary sessionAnnotations;
+    private Timer sessionDuration;
+
+    /**
+     * Constructs the drain sessions. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public DrainSessions() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.drain.session.enabled", Boolean.class).orElse(false),
+                ValidatingWebhook.parseNamespaces(ConfigProvider.getConfig().getOptionalValue("strimzi.drain.namespaces", String.class)),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.drain.session.ttl.ms", Long.class).orElse(30_000L),
+                System::nanoTime);
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client        Kubernetes client
+     * @param registry      Meter registry
+     * @param enabled       Enables / disables the drain sessions
+     * @param namespaces    Namespaces with the pods which should be listed. Empty list means all namespaces.
+     * @param ttlMs         How long is the session kept open in milliseconds
+     * @param clock         Clock returning the current time in nanoseconds
+     */
+    /* test */ DrainSessions(KubernetesClient client, MeterRegistry registry, boolean enabled, List<String> namespaces, long ttlMs, LongSupplier clock) {
+        this(enabled, namespaces, ttlMs, clock);
+        this.client = client;
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled       Enables / disables the drain sessions
+     * @param namespaces    Namespaces with the pods which should be listed. Empty list means all namespaces.
+     * @param ttlMs         How long is the session kept open in milliseconds
+     * @param clock         Clock returning the current time in nanoseconds
+     */
+    private DrainSessions(boolean enabled, List<String> namespaces, long ttlMs, LongSupplier clock) {
+        this.enabled = enabled;
+        this.namespaces = namespaces;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.clock = clock;
+
+        if (!this.enabled) {
+            LOG.info("Drain sessions are disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        opened = Counter.builder(METRIC_PREFIX + ".opened")
+                .description("Number of opened drain sessions")
+                .register(registry);
+        hits = Counter.builder(METRIC_PREFIX + ".hits")
+                .description("Number of evictions checked using the pods listed by a drain session")
+                .register(registry);
+        sessionEvictions = DistributionSummary.builder(METRIC_PREFIX + ".evictions")
+                .description("Number of evictions of Strimzi pods handled within a drain session")
+                .register(registry);
+        sessionAnnotations = DistributionSummary.builder(METRIC_PREFIX + ".annotated.pods")
+                .description("Number of Strimzi pods annotated for restart within a drain session")
+                .register(registry);
+        sessionDuration = Timer.builder(METRIC_PREFIX + ".duration")
+                .description("Time from opening to closing of a drain session")
+                .register(registry);
+    }
+
+    /**
+     * Starts the drain sessions when Quarkus is starting
+     *
+     * @param ev    Startup event
+     */
+    void onStart(@Observes StartupEvent ev) {
+        start();
+    }
+
+    /**
+     * Stops the drain sessions when Quarkus is stopping
+     *
+     * @param ev    Shutdown event
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        stop();
+    }
+
+    /**
+     * @return  True if the drain sessions are enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the thread opening the sessions and closing the expired sessions (if enabled)
+     */
+    /* test */ void start() {
+        if (enabled) {
+            LOG.info("Starting the drain sessions with time-to-live of {} ms", TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "drain-sessions");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            // Sessions are closed even when no other eviction arrives, so that their snapshots are not kept in memory
+            // and their statistics are recorded in time
+            long closeIntervalNanos = Math.max(1, Math.min(ttlNanos, MAX_CLOSE_INTERVAL_NANOS));
+            executor.scheduleWithFixedDelay(this::closeExpiredSessions, closeIntervalNanos, closeIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stops the thread opening the sessions and closes all sessions
+     */
+    /* test */ void stop() {
+        if (enabled && executor != null) {
+            LOG.info("Stopping the drain sessions");
+            executor.shutdownNow();
+            sessions.keySet().forEach(node -> close(node, clock.getAsLong()));
+        }
+    }
+
+    /**
+     * Gets the metadata of the pod from the open drain sessions.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param evictionUid   UID from the eviction request preconditions or null if not set
+     *
+     * @return  Metadata of the pod or null if the pod is not known to any open session, if it has a different UID or if
+     *          the eviction request has no UID
+     */
+    public ObjectMeta get(String namespace, String name, String evictionUid) {
+        if (evictionUid == null) {
+            return null;
+        }
+
+        closeExpiredSessions();
+
+        for (Session session : sessions.values()) {
+            ObjectMeta metadata = session.pods.get(key(namespace, name));
+
+            if (metadata != null && evictionUid.equals(metadata.getUid())) {
+                LOG.debug("Using drain session of node {} for Pod {} in namespace {}", session.node, name, namespace);
+                session.evictions.incrementAndGet();
+                hits.increment();
+                return metadata;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Marks the pod as annotated for restart in the open drain session which knows it
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     */
+    public void annotated(String namespace, String name) {
+        String key = key(namespace, name);
+
+        for (Session session : sessions.values()) {
+            ObjectMeta metadata = session.pods.get(key);
+
+            if (metadata != null
+                    && (metadata.getAnnotations() == null || !"true".equals(metadata.getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION)))) {
+                session.pods.put(key, new ObjectMetaBuilder(metadata).addToAnnotations(ValidatingWebhook.MANUAL_RU_ANNOTATION, "true").build());
+                session.annotations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes the pod from the open drain sessions. This is used when the pod could not be annotated for restart after
+     * it was marked as annotated in the session. The next eviction of the pod is then checked using the Kubernetes API.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     */
+    public void forget(String namespace, String name) {
+        String key = key(namespace, name);
+
+        for (Session session : sessions.values()) {
+            if (session.pods.remove(key) != null) {
+                LOG.debug("Removed Pod {} in namespace {} from the drain session of node {}", name, namespace, session.node);
+            }
+        }
+    }
+
+    /**
+     * Opens a drain session for the node of the evicted pod in the background. Nothing is done when the pod is already
+     * known to an open session.
+     *
+     * @param namespace     Namespace of the evicted pod
+     * @param name          Name of the evicted pod
+     * @param nodeName      Name of the node of the evicted pod if it is already known or null otherwise
+     * @param annotated     Indicates whether the evicted pod was annotated for restart
+     */
+    public void open(String namespace, String name, String nodeName, boolean annotated) {
+        if (enabled && executor != null && !isKnown(namespace, name)) {
+            executor.execute(() -> {
+                // Another session might have been opened for the pod while this task was waiting
+                if (!isKnown(namespace, name)) {
+                    openSession(namespace, name, nodeName, annotated);
+                }
+            });
+        }
+    }
+
+    /**
+     * Finds the node of the evicted pod (unless it is already known) and lists the Strimzi pods on this node
+     *
+     * @param namespace     Namespace of the evicted pod
+     * @param name          Name of the evicted pod
+     * @param nodeName      Name of the node of the evicted pod if it is already known or null otherwise
+     * @param annotated     Indicates whether the evicted pod was annotated for restart
+     */
+    private void openSession(String namespace, String name, String nodeName, boolean annotated) {
+        try {
+            String node = nodeName != null ? nodeName : findNode(namespace, name);
+
+            if (node == null) {
+                LOG.debug("Pod {} in namespace {} is not running on any node and no drain session will be opened", name, namespace);
+                return;
+            }
+
+            List<ObjectMeta> pods = listPods(node);
+            Session session = new Session(node, clock.getAsLong(), new ConcurrentHashMap<>(pods.size()));
+            pods.forEach(metadata -> session.pods.put(key(metadata.getNamespace(), metadata.getName()), metadata));
+
+            // The eviction which opened the session is counted in it as well
+            session.evictions.incrementAndGet();
+            if (annotated) {
+                session.annotations.incrementAndGet();
+            }
+
+            sessions.put(node, session);
+            opened.increment();
+            LOG.info("Opened drain session for node {} with {} Strimzi pods", node, pods.size());
+        } catch (KubernetesClientException e) {
+            LOG.warn("Failed to open drain session for Pod {} in namespace {}", name, namespace, e);
+        }
+    }
+
+    /**
+     * Finds the node of the pod using the Kubernetes API. Instead of the whole pod, only its server-side table without
+     * the pod object is read. The node of the pod is in the Node column of the table.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  Name of the node or null if the pod does not exist or is not running on any node
+     */
+    private String findNode(String namespace, String name) {
+        Config config = client.getConfiguration();
+        GenericKubernetesResource table = send("GET request for Pod " + name + " in namespace " + namespace,
+                URLUtils.join(config.getMasterUrl(), "api", "v1", "namespaces", namespace, "pods", name) + "?includeObject=None",
+                TABLE, GenericKubernetesResource.class);
+
+        if (table == null) {
+            return null;
+        }
+
+        List<?> columns = asList(table.getAdditionalProperties().get("columnDefinitions"));
+        List<?> rows = asList(table.getAdditionalProperties().get("rows"));
+
+        if (rows.isEmpty() || !(rows.get(0) instanceof Map<?, ?> row)) {
+            return null;
+        }
+
+        List<?> cells = asList(row.get("cells"));
+
+        for (int i = 0; i < columns.size() && i < cells.size(); i++) {
+            if (columns.get(i) instanceof Map<?, ?> column && NODE_COLUMN.equals(column.get("name"))) {
+                return cells.get(i) instanceof String node && !node.isEmpty() && !NO_NODE.equals(node) ? node : null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param value     Value from the server-side table
+     *
+     * @return  The value if it is a list or an empty list otherwise
+     */
+    private static List<?> asList(Object value) {
+        return value instanceof List<?> list ? list : List.of();
+    }
+
+    /**
+     * Lists the metadata of the Strimzi pods on the node from the watched namespaces
+     *
+     * @param node  Name of the node
+     *
+     * @return  List with the metadata of the Strimzi pods on the node
+     */
+    private List<ObjectMeta> listPods(String node) {
+        Config config = client.getConfiguration();
+        String query = "?fieldSelector=" + URLEncoder.encode("spec.nodeName=" + node, StandardCharsets.UTF_8)
+                + "&labelSelector=" + URLEncoder.encode(STRIMZI_KIND_LABEL_KEY + "=" + STRIMZI_KIND_LABEL_VALUE, StandardCharsets.UTF_8);
+        List<ObjectMeta> pods = new ArrayList<>();
+
+        if (namespaces.isEmpty()) {
+            addPods(pods, send("list of Strimzi pods on node " + node,
+                    URLUtils.join(config.getMasterUrl(), "api", "v1", "pods") + query,
+                    PARTIAL_OBJECT_METADATA_LIST, GenericKubernetesResourceList.class));
+        } else {
+            for (String namespace : namespaces) {
+                addPods(pods, send("list of Strimzi pods on node " + node + " in namespace " + namespace,
+                        URLUtils.join(config.getMasterUrl(), "api", "v1", "namespaces", namespace, "pods") + query,
+                        PARTIAL_OBJECT_METADATA_LIST, GenericKubernetesResourceList.class));
+            }
+        }
+
+        return pods;
+    }
+
+    /**
+     * Adds the metadata of the listed pods to the list
+     *
+     * @param pods  List with the metadata of the pods
+     * @param list  Listed pods or null if the namespace does not exist
+     */
+    private static void addPods(List<ObjectMeta> pods, GenericKubernetesResourceList list) {
+        if (list != null && list.getItems() != null) {
+            list.getItems().forEach(item -> pods.add(item.getMetadata()));
+        }
+    }
+
+    /**
+     * Sends the GET request to the Kubernetes API and decodes the response
+     *
+     * @param operation     Description of the request
+     * @param uri           URI of the request
+     * @param accept        Accept header of the request selecting the format of the response
+     * @param type          Class of the decoded response
+     *
+     * @return  The decoded response or null if the resource was not found
+     *
+     * @param <T>   Type of the decoded response
+     */
+    private <T> T send(String operation, String uri, String accept, Class<T> type) {
+        acquire(operation);
+
+        HttpClient httpClient = client.getHttpClient();
+        HttpRequest.Builder requestBuilder = httpClient.newHttpRequestBuilder()
+                .uri(uri)
+                .header("Accept", accept);
+
+        int timeoutMs = client.getConfiguration().getRequestTimeout();
+        if (timeoutMs > 0) {
+            requestBuilder.timeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        try {
+            HttpResponse<byte[]> response = httpClient.sendAsync(requestBuilder.build(), byte[].class).get();
+
+            if (response.code() == 404) {
+                return null;
+            } else if (!response.isSuccessful()) {
+                throw new KubernetesClientException(new StatusBuilder()
+                        .withCode(response.code())
+                        .withMessage("Failed " + operation + ": HTTP " + response.code())
+                        .build());
+            }
+
+            return client.getKubernetesSerialization().unmarshal(new ByteArrayInputStream(response.body()), type);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KubernetesClientException.launderThrowable(e);
+        } catch (ExecutionException e) {
+            throw KubernetesClientException.launderThrowable(e.getCause());
+        }
+    }
+
+    /**
+     * Waits until the sessions requested so far are opened
+     */
+    /* test */ void awaitOpened() throws InterruptedException, ExecutionException, TimeoutException {
+        executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Checks whether the pod is known to an open session
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  True if the pod is known to an open session. False otherwise.
+     */
+    private boolean isKnown(String namespace, String name) {
+        closeExpiredSessions();
+
+        String key = key(namespace, name);
+        return sessions.values().stream().anyMatch(session -> session.pods.containsKey(key));
+    }
+
+    /**
+     * Closes the sessions which are open for longer than their time-to-live
+     */
+    private void closeExpiredSessions() {
+        long now = clock.getAsLong();
+
+        for (Session session : sessions.values()) {
+            if (now - session.openedAt >= ttlNanos) {
+                close(session.node, now);
+            }
+        }
+    }
+
+    /**
+     * Closes the session and records its statistics
+     *
+     * @param node  Name of the node
+     * @param now   Current time in nanoseconds
+     */
+    private void close(String node, long now) {
+        Session session = sessions.remove(node);
+
+        if (session != null) {
+            LOG.info("Closed drain session for node {}: {} evictions, {} annotated pods", node, session.evictions.get(), session.annotations.get());
+            sessionEvictions.record(session.evictions.get());
+            sessionAnnotations.record(session.annotations.get());
+            sessionDuration.record(now - session.openedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String key(String namespace, String name) {
+        return namespace + "/" + name;
+    }
+
+    /**
+     * Open drain session
+     *
+     * @param node          Name of the drained node
+     * @param openedAt      Time when the session was opened in nanoseconds
+     * @param pods          Metadata of the Strimzi pods on the node by their namespace and name
+     * @param evictions     Number of evictions handled within the session
+     * @param annotations   Number of pods annotated within the session
+     */
+    private record Session(String node, long openedAt, Map<String, ObjectMeta> pods, AtomicInteger evictions, AtomicInteger annotations) {
+        Session(String node, long openedAt, Map<String, ObjectMeta> pods) {
+            this(node, openedAt, pods, new AtomicInteger(0), new AtomicInteger(0));
+        }
+    }
+}
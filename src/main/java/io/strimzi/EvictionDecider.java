@@ -0,0 +1,281 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Decides about the eviction requests received by the webhook. The decision is first looked up in memory (see
+ * {@link InMemoryDecisions}). Only when it is not available there, the pod is checked using the Kubernetes API and
+ * possibly annotated for restart (see {@link PodChecker}). Concurrent evictions of the same pod share the same check.
+ * When the circuit breaker is open or when the pod cannot be checked before the deadline, the fallback decision is used
+ * instead.
+ */
+@ApplicationScoped
+public class EvictionDecider {
+    private static final Logger LOG = LoggerFactory.getLogger(EvictionDecider.class);
+
+    @Inject
+    InMemoryDecisions inMemoryDecisions;
+
+    @Inject
+    PodChecker podChecker;
+
+    @Inject
+    WebhookExecutor webhookExecutor;
+
+    @Inject
+    DeadlinePolicy deadlinePolicy;
+
+    @Inject
+    ApiCircuitBreaker circuitBreaker;
+
+    @Inject
+    WebhookTracing tracing;
+
+    private final boolean denyEviction;
+    private final List<String> drainNamespaces;
+
+    // Concurrent evictions of the same pod share a single lookup and patch
+    /* test */ final SingleFlight<ValidatingWebhook.InFlightEviction, ValidatingWebhook.PodCheck> inFlightEvictions = new SingleFlight<>();
+
+    /**
+     * Constructs the eviction decider. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public EvictionDecider() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.deny.eviction", Boolean.class).orElse(true),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.drain.namespaces", String.class));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client            Kubernetes client
+     * @param webhookExecutor   Executor offloading the Kubernetes API calls
+     * @param drainKafka        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper    Indicates whether ZooKeeper pods should be drained
+     * @param denyEviction      Indicates whether the evictions of the Strimzi pods are denied
+     * @param drainNamespaces   Comma-separated list of the watched namespaces
+     */
+    /* test */ EvictionDecider(KubernetesClient client, WebhookExecutor webhookExecutor, boolean drainKafka, boolean drainZooKeeper, boolean denyEviction, Optional<String> drainNamespaces) {
+        this(denyEviction, drainNamespaces);
+        this.inMemoryDecisions = new InMemoryDecisions();
+        this.podChecker = new PodChecker(client, inMemoryDecisions, drainKafka, drainZooKeeper, denyEviction);
+        this.webhookExecutor = webhookExecutor;
+        this.tracing = WebhookTracing.noop();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param denyEviction      Indicates whether the evictions of the Strimzi pods are denied
+     * @param drainNamespaces   Comma-separated list of the watched namespaces
+     */
+    private EvictionDecider(boolean denyEviction, Optional<String> drainNamespaces) {
+        this.denyEviction = denyEviction;
+        this.drainNamespaces = ValidatingWebhook.parseNamespaces(drainNamespaces);
+
+        if (this.drainNamespaces.isEmpty()) {
+            LOG.info("Drain Cleaner will watch all namespaces");
+        } else {
+            LOG.info("Drain Cleaner will watch namespaces: {}", this.drainNamespaces);
+        }
+    }
+
+    /* test */ boolean isNamespaceWatched(String namespace) {
+        return drainNamespaces.isEmpty() || drainNamespaces.contains(namespace);
+    }
+
+    /**
+     * Decides about the admission request
+     *
+     * @param requestNamespace  Namespace of the admission request
+     * @param dryRun            Flag indicating whether this is a dry-run request
+     * @param eviction          Eviction from the admission request or null if the request is not for an Eviction
+     *
+     * @return  Uni with the decision about the request
+     */
+    public Uni<ValidatingWebhook.Decision> review(String requestNamespace, boolean dryRun, ValidatingWebhook.EvictionRequest eviction) {
+        if (eviction != null) {
+            String name = eviction.name();
+            String namespace = eviction.namespace();
+
+            if (namespace == null) {
+                // Some applications (see https://github.com/strimzi/drain-cleaner/issues/34) might send the eviction
+                // request without the namespace. In such case, we use the namespace form the AdmissionRequest.
+                LOG.warn("There is no namespace in the Eviction request - trying to use namespace of the Admission request");
+                namespace = requestNamespace;
+            }
+
+            if (name == null || namespace == null) {
+                LOG.warn("Failed to decode pod name or namespace from the eviction webhook (pod: {}, namespace: {})", name, namespace);
+            } else if (!isNamespaceWatched(namespace)) {
+                LOG.debug("Ignoring eviction request for Pod {} in namespace {} - namespace not in watch list", name, namespace);
+                return Uni.createFrom().item(ValidatingWebhook.Decision.IGNORED_NAMESPACE);
+            } else {
+                Deadline deadline = deadlinePolicy != null ? deadlinePolicy.start() : Deadline.none();
+                Span span = tracing.start("review-eviction", namespace, name);
+
+                try (Scope ignored = span.makeCurrent()) {
+                    return handleEviction(new ValidatingWebhook.InFlightEviction(namespace, name, eviction.uid(), dryRun), deadline)
+                            .onItemOrFailure().invoke((decision, failure) -> tracing.endReview(span, decision != null ? decision.outcome : null, failure));
+                }
+            }
+        } else {
+            LOG.warn("Weird, this does not seem to be an Eviction webhook");
+        }
+
+        // Does not seem like a request for us, but we will allow it if some other tool makes some sense of it
+        return Uni.createFrom().item(ValidatingWebhook.Decision.INVALID);
+    }
+
+    /**
+     * Handles the eviction request for a pod from one of the watched namespaces. The decision is first looked up in
+     * memory. Only when it is not available there, the pod is checked using the Kubernetes API. The Kubernetes API calls
+     * are blocking and are offloaded from the event loop when the webhook uses the event-loop execution model. The
+     * current tracing context is passed to the offloaded calls.
+     *
+     * @param eviction  Eviction of the pod
+     * @param deadline  Deadline by which the request has to be answered
+     *
+     * @return  Uni with the decision about the eviction
+     */
+    private Uni<ValidatingWebhook.Decision> handleEviction(ValidatingWebhook.InFlightEviction eviction, Deadline deadline) {
+        ValidatingWebhook.PodCheck check = inMemoryDecisions.get(eviction);
+
+        if (check != null) {
+            return Uni.createFrom().item(decisionFromCheck(eviction, check));
+        } else {
+            return webhookExecutor.offload(Context.current().wrapSupplier(() -> decisionFromApi(eviction, deadline)));
+        }
+    }
+
+    /**
+     * Decides about the eviction by getting the pod metadata and checking them. Concurrent requests for the same pod
+     * share the same lookup and patch and get the same decision. When the circuit breaker is open or when the pod
+     * metadata are not received before the deadline, the fallback decision is used instead.
+     *
+     * @param eviction  Eviction of the pod
+     * @param deadline  Deadline by which the request has to be answered
+     *
+     * @return  Decision about the eviction
+     */
+    private ValidatingWebhook.Decision decisionFromApi(ValidatingWebhook.InFlightEviction eviction, Deadline deadline) {
+        if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+            LOG.warn("Kubernetes API circuit breaker is open - using fallback decision for Pod {} in namespace {}", eviction.name(), eviction.namespace());
+            return fallbackDecision(eviction, "circuit-open");
+        }
+
+        try {
+            ValidatingWebhook.PodCheck check = inFlightEvictions.execute(eviction,
+                    () -> podChecker.checkAndAnnotatePod(eviction.name(), eviction.namespace(), eviction.uid(), eviction.dryRun(), deadline));
+
+            return decisionFromCheck(eviction, check);
+        } catch (DeadlineExceededException e) {
+            LOG.warn("Pod {} in namespace {} could not be checked before the deadline - using fallback decision", eviction.name(), eviction.namespace());
+            return fallbackDecision(eviction, "deadline");
+        }
+    }
+
+    /**
+     * Maps the result of the pod check to the decision about the eviction
+     *
+     * @param eviction  Eviction of the pod
+     * @param check     Result of the pod check
+     *
+     * @return  Decision about the eviction
+     */
+    private ValidatingWebhook.Decision decisionFromCheck(ValidatingWebhook.InFlightEviction eviction, ValidatingWebhook.PodCheck check) {
+        return switch (check) {
+            case DRAINABLE -> strimziPodResponse(eviction.name(), eviction.namespace());
+            case DEFERRED -> ValidatingWebhook.Decision.DEFERRED;
+            case RECONCILIATION_PAUSED -> denyEviction ? ValidatingWebhook.Decision.RECONCILIATION_PAUSED : strimziPodResponse(eviction.name(), eviction.namespace());
+            case RECONCILIATION_PENDING -> denyEviction ? ValidatingWebhook.Decision.RECONCILIATION_PENDING : strimziPodResponse(eviction.name(), eviction.namespace());
+            case NOT_DRAINABLE -> ValidatingWebhook.Decision.ALLOWED;
+            case NOT_FOUND -> ValidatingWebhook.Decision.NOT_FOUND;
+            case UID_MISMATCH -> ValidatingWebhook.Decision.UID_MISMATCH;
+        };
+    }
+
+    /**
+     * Decides about the eviction without the Kubernetes API according to the configured fallback. Only the pods which
+     * the pod cache knows as Strimzi pods are handled as Strimzi pods. All other evictions are allowed. When the
+     * deadline expired, the pod is checked and annotated in the background once the webhook responds. This is not done
+     * when the circuit breaker is open because the Kubernetes API is not available.
+     *
+     * @param eviction  Eviction of the pod
+     * @param reason    Reason why the fallback decision is used
+     *
+     * @return  Decision about the eviction
+     */
+    private ValidatingWebhook.Decision fallbackDecision(ValidatingWebhook.InFlightEviction eviction, String reason) {
+        boolean cached = deadlinePolicy != null && deadlinePolicy.fallback() == DeadlinePolicy.Fallback.CACHED;
+
+        if (deadlinePolicy != null) {
+            deadlinePolicy.recordFallback(reason);
+
+            if (!"circuit-open".equals(reason)) {
+                checkInBackground(eviction);
+            }
+        }
+
+        if (cached && inMemoryDecisions.isDrainable(eviction)) {
+            return strimziPodResponse(eviction.name(), eviction.namespace());
+        } else {
+            LOG.info("Allowing request for eviction of Pod {} in namespace {} based on the fallback decision", eviction.name(), eviction.namespace());
+            return ValidatingWebhook.Decision.ALLOWED;
+        }
+    }
+
+    /**
+     * Checks and annotates the pod in the background after the webhook responded with the fallback decision. The
+     * background check shares the in-flight map with the webhook requests, so it is skipped when the same pod is
+     * already being checked. It gets its own deadline so that it cannot hang on a stalled Kubernetes API.
+     *
+     * @param eviction  Eviction of the pod
+     */
+    private void checkInBackground(ValidatingWebhook.InFlightEviction eviction) {
+        if (inFlightEvictions.isInFlight(eviction)) {
+            LOG.debug("Pod {} in namespace {} is already being checked - skipping the background check", eviction.name(), eviction.namespace());
+            return;
+        }
+
+        deadlinePolicy.runInBackground(() -> inFlightEvictions.execute(eviction,
+                () -> podChecker.checkAndAnnotatePod(eviction.name(), eviction.namespace(), eviction.uid(), eviction.dryRun(), deadlinePolicy.start())));
+    }
+
+    /**
+     * The Pod should be rolled by the Strimzi Cluster Operator => depending on the configuration, we deny or allow the
+     * eviction.
+     *
+     * @param name          Name of the evicted pod
+     * @param namespace     Namespace of the evicted pod
+     *
+     * @return  Decision about the eviction
+     */
+    private ValidatingWebhook.Decision strimziPodResponse(String name, String namespace) {
+        if (denyEviction) {
+            LOG.info("Denying request for eviction of Pod {} in namespace {}", name, namespace);
+            return ValidatingWebhook.Decision.DENIED;
+        } else {
+            LOG.info("Allowing request for eviction of Pod {} in namespace {}", name, namespace);
+            return ValidatingWebhook.Decision.ALLOWED;
+        }
+    }
+}
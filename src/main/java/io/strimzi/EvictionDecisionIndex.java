@@ -0,0 +1,212 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of precomputed eviction decisions for the cached pods. It is updated from the pod informer events and keeps
+ * for every pod its UID, whether it is a Strimzi pod which should be drained and whether it is already annotated for
+ * restart. This allows the webhook to decide about the eviction with a single lookup without evaluating the pod
+ * labels for every eviction request.
+ *
+ * The decisions are stored per namespace to avoid building a combined namespace / name key for every lookup.
+ *
+ * Next to the decisions, the index keeps a compact filter with the keys of the pods which should be drained. It is used
+ * to quickly reject the evictions of all other pods. The filter cannot remove pods. So when more pods than its capacity
+ * were added to it, it is rebuilt from the current decisions.
+ */
+public class EvictionDecisionIndex implements ResourceEventHandler<Pod> {
+    private static final Logger LOG = LoggerFactory.getLogger(EvictionDecisionIndex.class);
+
+    /* test */ static final int DEFAULT_FILTER_EXPECTED_PODS = 10_000;
+    /* test */ static final double DEFAULT_FILTER_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final boolean drainKafka;
+    private final boolean drainZooKeeper;
+    private final int filterExpectedPods;
+    private final double filterFalsePositiveProbability;
+
+    private final Map<String, Map<String, PodDecision>> decisions = new ConcurrentHashMap<>();
+
+    private volatile PodKeyFilter filter;
+    private int filterCapacity;
+    private final AtomicLong filteredPods = new AtomicLong(0);
+
+    /**
+     * Constructs the eviction decision index with the default filter settings
+     *
+     * @param drainKafka        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper    Indicates whether ZooKeeper pods should be drained
+     */
+    public EvictionDecisionIndex(boolean drainKafka, boolean drainZooKeeper) {
+        this(drainKafka, drainZooKeeper, DEFAULT_FILTER_EXPECTED_PODS, DEFAULT_FILTER_FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Constructs the eviction decision index
+     *
+     * @param drainKafka                        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper                    Indicates whether ZooKeeper pods should be drained
+     * @param filterExpectedPods                Expected number of pods which should be drained
+     * @param filterFalsePositiveProbability    Desired false positive probability of the filter
+     */
+    public EvictionDecisionIndex(boolean drainKafka, boolean drainZooKeeper, int filterExpectedPods, double filterFalsePositiveProbability) {
+        this.drainKafka = drainKafka;
+        this.drainZooKeeper = drainZooKeeper;
+        this.filterExpectedPods = filterExpectedPods;
+        this.filterFalsePositiveProbability = filterFalsePositiveProbability;
+        this.filterCapacity = filterExpectedPods;
+        this.filter = new PodKeyFilter(filterCapacity, filterFalsePositiveProbability);
+    }
+
+    @Override
+    public void onAdd(Pod pod) {
+        update(pod);
+    }
+
+    @Override
+    public void onUpdate(Pod oldPod, Pod newPod) {
+        update(newPod);
+    }
+
+    @Override
+    public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+        ObjectMeta metadata = pod.getMetadata();
+        Map<String, PodDecision> namespaceDecisions = decisions.get(metadata.getNamespace());
+
+        if (namespaceDecisions != null) {
+            // Remove the decision only if it belongs to the deleted pod and not to a newer pod with the same name
+            namespaceDecisions.computeIfPresent(metadata.getName(), (name, decision) -> decision.uid().equals(metadata.getUid()) ? null : decision);
+        }
+    }
+
+    /**
+     * Computes the decision for the pod and stores it in the index
+     *
+     * @param pod   Pod for which the decision should be computed
+     */
+    private void update(Pod pod) {
+        ObjectMeta metadata = pod.getMetadata();
+        PodDecision decision = new PodDecision(metadata.getUid(),
+                ValidatingWebhook.matchingLabel(metadata.getLabels(), drainKafka, drainZooKeeper),
+                metadata.getAnnotations() != null && "true".equals(metadata.getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION)));
+
+        LOG.debug("Updating eviction decision for Pod {} in namespace {} to {}", metadata.getName(), metadata.getNamespace(), decision);
+        decisions.computeIfAbsent(metadata.getNamespace(), namespace -> new ConcurrentHashMap<>()).put(metadata.getName(), decision);
+
+        if (decision.drainable()) {
+            addToFilter(metadata.getNamespace(), metadata.getName());
+        }
+    }
+
+    /**
+     * Adds the pod to the filter. When the filter has more pods than its capacity, it is rebuilt.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     */
+    private synchronized void addToFilter(String namespace, String name) {
+        if (!filter.mightContain(namespace, name)) {
+            filter.put(namespace, name);
+
+            if (filteredPods.incrementAndGet() > filterCapacity) {
+                rebuildFilter();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the filter from the current decisions. This removes the pods which were deleted from the filter and
+     * grows the filter if needed.
+     */
+    private synchronized void rebuildFilter() {
+        long drainablePods = decisions.values().stream()
+                .flatMap(namespaceDecisions -> namespaceDecisions.values().stream())
+                .filter(PodDecision::drainable)
+                .count();
+        int capacity = (int) Math.max(filterExpectedPods, Math.min(Integer.MAX_VALUE / 2, drainablePods * 2));
+        PodKeyFilter newFilter = new PodKeyFilter(capacity, filterFalsePositiveProbability);
+
+        decisions.forEach((namespace, namespaceDecisions) -> namespaceDecisions.forEach((name, decision) -> {
+            if (decision.drainable()) {
+                newFilter.put(namespace, name);
+            }
+        }));
+
+        LOG.info("Rebuilt the pod filter with {} pods and capacity {}", drainablePods, capacity);
+        filterCapacity = capacity;
+        filteredPods.set(drainablePods);
+        filter = newFilter;
+    }
+
+    /**
+     * Checks whether the pod might be a pod which should be drained. This check is fast and does not allocate any
+     * objects, but it might return false positives.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  False if the pod is definitely not a pod which should be drained. True if it might be.
+     */
+    public boolean mightBeDrainable(String namespace, String name) {
+        return filter.mightContain(namespace, name);
+    }
+
+    /**
+     * @return  Estimated false positive probability of the filter with the current number of pods
+     */
+    public double filterFalsePositiveProbability() {
+        return filter.expectedFalsePositiveProbability(filteredPods.get());
+    }
+
+    /**
+     * @return  Memory used by the filter in bytes
+     */
+    public long filterSizeInBytes() {
+        return filter.sizeInBytes();
+    }
+
+    /**
+     * Gets the eviction decision for given pod
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  The decision for the pod or null if the pod is not known
+     */
+    public PodDecision get(String namespace, String name) {
+        Map<String, PodDecision> namespaceDecisions = decisions.get(namespace);
+        return namespaceDecisions != null ? namespaceDecisions.get(name) : null;
+    }
+
+    /**
+     * Removes all decisions from the index
+     */
+    public synchronized void clear() {
+        decisions.clear();
+        filterCapacity = filterExpectedPods;
+        filteredPods.set(0);
+        filter = new PodKeyFilter(filterCapacity, filterFalsePositiveProbability);
+    }
+
+    /**
+     * Precomputed eviction decision for a pod
+     *
+     * @param uid           UID of the pod
+     * @param drainable     Indicates whether the pod is a Strimzi pod which should be drained
+     * @param annotated     Indicates whether the pod is already annotated for restart
+     */
+    public record PodDecision(String uid, boolean drainable, boolean annotated) {
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Exports the finished spans to a local file with one JSON object per line. This allows to inspect the traces without
+ * an OpenTelemetry collector. The exporter is picked up by the OpenTelemetry SDK as a CDI span exporter and does
+ * nothing unless the file is configured.
+ */
+@ApplicationScoped
+public class FileSpanExporter implements SpanExporter {
+    private static final Logger LOG = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Path path;
+    private Writer writer;
+
+    /**
+     * Constructs the file span exporter. This is the default constructor used in production which gets the values
+     * from quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public FileSpanExporter() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.tracing.file.path", String.class));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param path  Path of the file where the spans should be written or empty to disable the exporter
+     */
+    /* test */ FileSpanExporter(Optional<String> path) {
+        this.path = path.filter(p -> !p.isBlank())
+                .map(Path::of)
+                .orElse(null);
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        if (path == null) {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        try {
+            if (writer == null) {
+                // Opened with the first spans and not in the constructor which also runs for the CDI client proxy
+                LOG.info("Spans will be exported to file {}", path);
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            for (SpanData span : spans) {
+                write(span);
+                writer.write('\n');
+            }
+
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            LOG.warn("Failed to export spans to file", e);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    /**
+     * Writes the span as a single JSON object
+     *
+     * @param span  Span which should be written
+     *
+     * @throws IOException  When writing to the file fails
+     */
+    private void write(SpanData span) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartObject();
+        generator.writeStringField("traceId", span.getTraceId());
+        generator.writeStringField("spanId", span.getSpanId());
+
+        if (span.getParentSpanContext().isValid()) {
+            generator.writeStringField("parentSpanId", span.getParentSpanId());
+        }
+
+        generator.writeStringField("name", span.getName());
+        generator.writeNumberField("startEpochNanos", span.getStartEpochNanos());
+        generator.writeNumberField("endEpochNanos", span.getEndEpochNanos());
+        generator.writeStringField("status", span.getStatus().getStatusCode().name());
+
+        generator.writeObjectFieldStart("attributes");
+        for (var attribute : span.getAttributes().asMap().entrySet()) {
+            generator.writeStringField(attribute.getKey().getKey(), String.valueOf(attribute.getValue()));
+        }
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (writer != null) {
+            try {
+                writer.close();
+                writer = null;
+            } catch (IOException e) {
+                LOG.warn("Failed to close the span export file", e);
+                return CompletableResultCode.ofFailure();
+            }
+        }
+
+        return CompletableResultCode.ofSuccess();
+    }
+}
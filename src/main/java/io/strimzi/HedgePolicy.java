@@ -0,0 +1,243 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Hedges the idempotent requests to the Kubernetes API. When a request does not return within the hedge delay, a second
+ * request is sent and the first acceptable response wins. The other request is cancelled. The hedge delay is the
+ * configured percentile of the recent request latencies, so only the slowest requests are hedged. It is never shorter
+ * than the configured minimal delay, which is also used until enough latencies are recorded.
+ *
+ * The hedges are limited by a budget. Every request adds the budget ratio to the available hedges and every hedge
+ * takes one. So when the Kubernetes API is slow for all requests, the hedges do not double the load. The hedges are
+ * also sent only when the client-side rate limit allows them right away.
+ *
+ * The latency of every request is recorded when it completes, including the hedges. When the first request is
+ * cancelled because the hedge won, the time until the cancellation is recorded as its latency, so that the slow
+ * requests are not missing from the recent latencies.
+ */
+class HedgePolicy {
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.pod.get.hedge";
+
+    // Number of recent latencies from which the hedge delay is calculated
+    private static final int WINDOW_SIZE = 512;
+    // Number of recorded latencies after which the hedge delay is recalculated
+    private static final int UPDATE_INTERVAL = 32;
+    // Maximal number of hedges which can be saved up in the budget
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final BiFunction<Long, TimeUnit, Executor> delayedExecutor;
+
+    private final long[] latencies = new long[WINDOW_SIZE];
+    private int recorded;
+    private long delayNanos;
+    private double budget;
+
+    private final Counter fired;
+    private final Counter won;
+    private final Counter exhausted;
+    private final Counter rateLimited;
+
+    /**
+     * Constructs the hedge policy
+     *
+     * @param registry      Meter registry
+     * @param percentile    Percentile of the recent latencies used as the hedge delay (for example 95)
+     * @param minDelayMs    Minimal hedge delay in milliseconds
+     * @param budgetRatio   Ratio of the requests which can be hedged (for example 0.1 for 10 %)
+     */
+    HedgePolicy(MeterRegistry registry, double percentile, long minDelayMs, double budgetRatio) {
+        this(registry, percentile, minDelayMs, budgetRatio, CompletableFuture::delayedExecutor);
+    }
+
+    /**
+     * Constructor used by tests to control when the hedges are sent
+     *
+     * @param registry          Meter registry
+     * @param percentile        Percentile of the recent latencies used as the hedge delay (for example 95)
+     * @param minDelayMs        Minimal hedge delay in milliseconds
+     * @param budgetRatio       Ratio of the requests which can be hedged (for example 0.1 for 10 %)
+     * @param delayedExecutor   Creates the executor which runs the hedge after the hedge delay
+     */
+    /* test */ HedgePolicy(MeterRegistry registry, double percentile, long minDelayMs, double budgetRatio, BiFunction<Long, TimeUnit, Executor> delayedExecutor) {
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMs);
+        this.budgetRatio = budgetRatio;
+        this.delayedExecutor = delayedExecutor;
+        this.delayNanos = minDelayNanos;
+
+        fired = Counter.builder(METRIC_PREFIX + ".fired")
+                .description("Number of hedged requests sent because the first request did not return within the hedge delay")
+                .register(registry);
+        won = Counter.builder(METRIC_PREFIX + ".won")
+                .description("Number of hedged requests which returned before the first request")
+                .register(registry);
+        exhausted = Counter.builder(METRIC_PREFIX + ".budget.exhausted")
+                .description("Number of requests which were not hedged because the hedge budget was exhausted")
+                .register(registry);
+        rateLimited = Counter.builder(METRIC_PREFIX + ".rate.limited")
+                .description("Number of requests which were not hedged because of the client-side rate limit")
+                .register(registry);
+    }
+
+    /**
+     * Sends the request and hedges it when it does not return within the hedge delay
+     *
+     * @param send          Sends the request
+     * @param acceptable    Decides whether the response is acceptable or whether the other request should be waited for
+     * @param maxDelayMs    Maximal time in milliseconds until which the request can be hedged
+     * @param hedgePermit   Takes the permit of the client-side rate limiter for the hedge if it is available right away
+     *
+     * @return  Future which completes with the first acceptable response. When no response is acceptable, it completes
+     *          with the result of the request which returned last.
+     *
+     * @param <T>   Type of the response
+     */
+    <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> send, Predicate<T> acceptable, long maxDelayMs, BooleanSupplier hedgePermit) {
+        long delayNanos = addBudgetAndGetDelay();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicBoolean accepted = new AtomicBoolean(false);
+
+        attempt(send, acceptable, result, attempts, pending, accepted, false);
+
+        if (TimeUnit.NANOSECONDS.toMillis(delayNanos) < maxDelayMs) {
+            delayedExecutor.apply(delayNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                if (!result.isDone()) {
+                    if (!tryTakeBudget()) {
+                        exhausted.increment();
+                        return;
+                    } else if (!hedgePermit.getAsBoolean()) {
+                        rateLimited.increment();
+                        returnBudget();
+                        return;
+                    }
+
+                    pending.incrementAndGet();
+
+                    if (result.isDone()) {
+                        pending.decrementAndGet();
+                    } else {
+                        fired.increment();
+                        attempt(send, acceptable, result, attempts, pending, accepted, true);
+                    }
+                }
+            });
+        }
+
+        // Cancelling the result cancels the requests which are still running
+        result.whenComplete((response, error) -> attempts.forEach(attempt -> attempt.cancel(true)));
+
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> send, Predicate<T> acceptable, CompletableFuture<T> result, List<CompletableFuture<T>> attempts, AtomicInteger pending, AtomicBoolean accepted, boolean hedge) {
+        long start = System.nanoTime();
+        CompletableFuture<T> attempt = send.get();
+        attempts.add(attempt);
+
+        attempt.whenComplete((response, error) -> {
+            if ((error == null && acceptable.test(response))
+                    || (!hedge && error instanceof CancellationException)) {
+                // The cancelled first request took at least until the cancellation
+                record(System.nanoTime() - start);
+            }
+
+            if (error == null && acceptable.test(response)) {
+                // The won counter is incremented before the result is completed, so it is up-to-date once the caller
+                // gets the response
+                if (!result.isDone() && accepted.compareAndSet(false, true)) {
+                    if (hedge) {
+                        won.increment();
+                    }
+
+                    result.complete(response);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            }
+        });
+    }
+
+    /**
+     * Adds the budget of one request and returns the current hedge delay
+     *
+     * @return  Hedge delay in nanoseconds
+     */
+    private synchronized long addBudgetAndGetDelay() {
+        budget = Math.min(MAX_BUDGET, budget + budgetRatio);
+        return delayNanos;
+    }
+
+    /**
+     * Takes one hedge from the budget
+     *
+     * @return  True if the budget allows to hedge the request. False otherwise.
+     */
+    /* test */ synchronized boolean tryTakeBudget() {
+        if (budget >= 1) {
+            budget--;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the hedge which was not sent to the budget
+     */
+    private synchronized void returnBudget() {
+        budget = Math.min(MAX_BUDGET, budget + 1);
+    }
+
+    /**
+     * Records the latency of a request and recalculates the hedge delay regularly
+     *
+     * @param latencyNanos  Latency of the request in nanoseconds
+     */
+    /* test */ synchronized void record(long latencyNanos) {
+        latencies[recorded % WINDOW_SIZE] = latencyNanos;
+        recorded++;
+
+        if (recorded % UPDATE_INTERVAL == 0) {
+            long[] window = Arrays.copyOf(latencies, Math.min(recorded, WINDOW_SIZE));
+            Arrays.sort(window);
+            int index = (int) Math.ceil(percentile / 100 * window.length) - 1;
+            delayNanos = Math.max(minDelayNanos, window[Math.max(0, Math.min(index, window.length - 1))]);
+        }
+    }
+
+    /**
+     * @return  Current hedge delay in nanoseconds
+     */
+    /* test */ synchronized long delayNanos() {
+        return delayNanos;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Decides about the evictions without calling the Kubernetes API. It uses the pod cache with its eviction decision
+ * index (if enabled) and the decision memo (if enabled). The decisions are returned as the results of the pod check, so
+ * that they are turned into the webhook responses in the same way as the pods checked using the Kubernetes API.
+ */
+@ApplicationScoped
+public class InMemoryDecisions {
+    private static final Logger LOG = LoggerFactory.getLogger(InMemoryDecisions.class);
+
+    @Inject
+    PodCache podCache;
+
+    @Inject
+    DecisionMemo decisionMemo;
+
+    /**
+     * Tries to decide about the eviction using the data kept in memory. When the pod cache is enabled and synced,
+     * evictions of pods which are definitely not Strimzi pods which should be drained are allowed right away.
+     * Otherwise, it tries to decide based on the precomputed decision from the eviction decision index. When the
+     * decision memo is enabled, repeated requests for the same pod are answered using the recent decision.
+     *
+     * @param eviction  Eviction of the pod
+     *
+     * @return  Result of the pod check or null if the pod needs to be checked using the Kubernetes API
+     */
+    public ValidatingWebhook.PodCheck get(ValidatingWebhook.InFlightEviction eviction) {
+        String name = eviction.name();
+        String namespace = eviction.namespace();
+
+        if (podCache != null && podCache.isEnabled() && podCache.isKnownNotDrainable(namespace, name)) {
+            LOG.debug("Pod {} in namespace {} is not in the pod filter and will be allowed", name, namespace);
+            return ValidatingWebhook.PodCheck.NOT_DRAINABLE;
+        }
+
+        ValidatingWebhook.PodCheck indexedCheck = checkFromDecisionIndex(name, namespace, eviction.uid());
+
+        if (indexedCheck != null) {
+            return indexedCheck;
+        }
+
+        Boolean recentDecision = decisionMemo != null && decisionMemo.isEnabled() ? decisionMemo.get(namespace, name, eviction.uid()) : null;
+
+        if (recentDecision != null) {
+            LOG.debug("Using recent eviction decision for Pod {} in namespace {}", name, namespace);
+            return recentDecision ? ValidatingWebhook.PodCheck.DRAINABLE : ValidatingWebhook.PodCheck.NOT_DRAINABLE;
+        }
+
+        return null;
+    }
+
+    /**
+     * Tries to decide about the eviction using the precomputed decision from the eviction decision index. The decision
+     * can be used only when the pod should not be drained or when it is already annotated for restart. In all other
+     * cases, the pod needs to be checked and possibly annotated.
+     *
+     * @param name          Name of the evicted pod
+     * @param namespace     Namespace of the evicted pod
+     * @param evictionUid   UID from the eviction request preconditions or null if not set
+     *
+     * @return  Result of the pod check or null if the decision index cannot be used for this request
+     */
+    private ValidatingWebhook.PodCheck checkFromDecisionIndex(String name, String namespace, String evictionUid) {
+        if (podCache != null && podCache.isEnabled()) {
+            EvictionDecisionIndex.PodDecision decision = podCache.getDecision(namespace, name);
+
+            // Decisions for a different UID might be outdated => we ignore them and check the pod
+            if (decision != null && (evictionUid == null || evictionUid.equals(decision.uid()))) {
+                if (!decision.drainable()) {
+                    LOG.info("Received eviction event which does not match any relevant pods.");
+                    return ValidatingWebhook.PodCheck.NOT_DRAINABLE;
+                } else if (decision.annotated()) {
+                    LOG.info("Received eviction webhook for Pod {} in namespace {}", name, namespace);
+                    LOG.info("Pod {} in namespace {} is already annotated for restart", name, namespace);
+                    return ValidatingWebhook.PodCheck.DRAINABLE;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks whether the pod is a Strimzi pod which should be drained according to the pod cache
+     *
+     * @param eviction  Eviction of the pod
+     *
+     * @return  True if the pod cache knows the pod as a Strimzi pod which should be drained. False otherwise.
+     */
+    public boolean isDrainable(ValidatingWebhook.InFlightEviction eviction) {
+        EvictionDecisionIndex.PodDecision decision = podCache != null && podCache.isEnabled() ? podCache.getDecision(eviction.namespace(), eviction.name()) : null;
+
+        return decision != null
+                && decision.drainable()
+                && (eviction.uid() == null || eviction.uid().equals(decision.uid()));
+    }
+
+    /**
+     * Stores the decision in the decision memo (if enabled)
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param uid           UID of the pod
+     * @param strimziPod    True if the pod is a Strimzi pod which was annotated for restart. False otherwise.
+     */
+    public void remember(String namespace, String name, String uid, boolean strimziPod) {
+        if (decisionMemo != null && decisionMemo.isEnabled()) {
+            decisionMemo.put(namespace, name, uid, strimziPod);
+        }
+    }
+
+    /**
+     * Removes the decision about the pod from the decision memo (if enabled)
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     */
+    public void forget(String namespace, String name) {
+        if (decisionMemo != null && decisionMemo.isEnabled()) {
+            decisionMemo.remove(namespace, name);
+        }
+    }
+}
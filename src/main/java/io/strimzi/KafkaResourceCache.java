@@ -0,0 +1,306 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.ReducedStateItemStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional cache of the Strimzi {@code Kafka} and {@code KafkaNodePool} custom resources. Annotating a pod for restart
+ * is futile when the Strimzi Cluster Operator does not reconcile its Kafka cluster because the reconciliation is paused
+ * using the {@code strimzi.io/pause-reconciliation} annotation. It is postponed when the custom resources of the pod
+ * have changes which were not reconciled yet ({@code status.observedGeneration} is behind {@code metadata.generation}).
+ * Any change of the custom resource spec counts, not only the changes which roll the pods. The pod is annotated when
+ * the eviction is retried after the Cluster Operator reconciled the changes. In both cases, the eviction is denied
+ * without annotating the pod when the evictions are denied, and allowed without annotating the pod otherwise. The cache
+ * is disabled by default and can be enabled using the {@code strimzi.kafka.cache.enabled} option.
+ *
+ * The informers keep only the namespace, name, and resource version of the custom resources. For each of them, only
+ * whether it is paused and whether it has changes which were not reconciled yet is kept in memory.
+ */
+@ApplicationScoped
+@SuppressWarnings("checkstyle:ClassFanOutComplexity")
+public class KafkaResourceCache {
+    private static final Logger LOG = LoggerFactory.getLogger(KafkaResourceCache.class);
+
+    private static final String PAUSE_ANNOTATION = "strimzi.io/pause-reconciliation";
+    private static final String CLUSTER_LABEL_KEY = "strimzi.io/cluster";
+    private static final String POOL_LABEL_KEY = "strimzi.io/pool-name";
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.kafka.cache";
+
+    @Inject
+    @InformerClient
+    KubernetesClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final boolean enabled;
+    private final List<String> namespaces;
+    private final String apiVersion;
+
+    private final Map<String, ResourceState> kafkas = new ConcurrentHashMap<>();
+    private final Map<String, ResourceState> nodePools = new ConcurrentHashMap<>();
+    private final List<SharedIndexInformer<GenericKubernetesResource>> informers = new ArrayList<>();
+
+    private Counter skippedPaused;
+    private Counter skippedReconciling;
+
+    /**
+     * Constructs the Kafka resource cache. This is the default constructor used in production which gets the values
+     * from quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public KafkaResourceCache() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.kafka.cache.enabled", Boolean.class).orElse(false),
+                ValidatingWebhook.parseNamespaces(ConfigProvider.getConfig().getOptionalValue("strimzi.drain.namespaces", String.class)),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.kafka.cache.api.version", String.class).orElse("v1beta2"));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client        Kubernetes client
+     * @param registry      Meter registry
+     * @param enabled       Enables / disables the Kafka resource cache
+     * @param namespaces    Namespaces which should be cached. Empty list means all namespaces.
+     * @param apiVersion    Version of the Strimzi API
+     */
+    /* test */ KafkaResourceCache(KubernetesClient client, MeterRegistry registry, boolean enabled, List<String> namespaces, String apiVersion) {
+        this(enabled, namespaces, apiVersion);
+        this.client = client;
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled       Enables / disables the Kafka resource cache
+     * @param namespaces    Namespaces which should be cached. Empty list means all namespaces.
+     * @param apiVersion    Version of the Strimzi API
+     */
+    private KafkaResourceCache(boolean enabled, List<String> namespaces, String apiVersion) {
+        this.enabled = enabled;
+        this.namespaces = namespaces;
+        this.apiVersion = apiVersion;
+
+        if (!this.enabled) {
+            LOG.info("Kafka resource cache is disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        skippedPaused = Counter.builder(METRIC_PREFIX + ".skipped.annotations")
+                .description("Number of pods which were not annotated for restart because of the state of their custom resources")
+                .tag("reason", "reconciliation-paused")
+                .register(registry);
+        skippedReconciling = Counter.builder(METRIC_PREFIX + ".skipped.annotations")
+                .description("Number of pods which were not annotated for restart because of the state of their custom resources")
+                .tag("reason", "reconciliation-pending")
+                .register(registry);
+    }
+
+    /**
+     * Starts the cache when Quarkus is starting
+     *
+     * @param ev    Startup event
+     */
+    void onStart(@Observes StartupEvent ev) {
+        start();
+    }
+
+    /**
+     * Stops the cache when Quarkus is stopping
+     *
+     * @param ev    Shutdown event
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        stop();
+    }
+
+    /**
+     * @return  True if the Kafka resource cache is enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the informers for the Kafka and KafkaNodePool resources (if enabled)
+     */
+    /* test */ void start() {
+        if (enabled) {
+            LOG.info("Starting the Kafka resource cache");
+            startInformers(context("Kafka", "kafkas"), kafkas);
+            startInformers(context("KafkaNodePool", "kafkanodepools"), nodePools);
+        }
+    }
+
+    /**
+     * Stops the informers
+     */
+    /* test */ void stop() {
+        if (enabled) {
+            LOG.info("Stopping the Kafka resource cache");
+            informers.forEach(SharedIndexInformer::stop);
+            informers.clear();
+            kafkas.clear();
+            nodePools.clear();
+        }
+    }
+
+    /**
+     * Starts the informers for one kind of the custom resources in the watched namespaces
+     *
+     * @param context   Definition of the custom resource
+     * @param states    Map where the states of the custom resources are kept
+     */
+    private void startInformers(ResourceDefinitionContext context, Map<String, ResourceState> states) {
+        List<SharedIndexInformer<GenericKubernetesResource>> kindInformers = new ArrayList<>();
+
+        if (namespaces.isEmpty()) {
+            kindInformers.add(client.genericKubernetesResources(context).inAnyNamespace().runnableInformer(0));
+        } else {
+            for (String namespace : namespaces) {
+                kindInformers.add(client.genericKubernetesResources(context).inNamespace(namespace).runnableInformer(0));
+            }
+        }
+
+        for (SharedIndexInformer<GenericKubernetesResource> informer : kindInformers) {
+            informer.itemStore(new ReducedStateItemStore<>(ReducedStateItemStore.NAME_KEY_STATE, GenericKubernetesResource.class, client.getKubernetesSerialization()));
+            informer.addEventHandler(new StateHandler(states));
+            informer.start();
+            informers.add(informer);
+        }
+    }
+
+    private ResourceDefinitionContext context(String kind, String plural) {
+        return new ResourceDefinitionContext.Builder()
+                .withGroup("kafka.strimzi.io")
+                .withVersion(apiVersion)
+                .withKind(kind)
+                .withPlural(plural)
+                .withNamespaced(true)
+                .build();
+    }
+
+    /**
+     * Checks whether annotating the pod for restart would be futile because of the state of its custom resources
+     *
+     * @param metadata  Metadata of the pod
+     *
+     * @return  The reason why the pod should not be annotated or null if it should be annotated
+     */
+    public SkipReason skipReason(ObjectMeta metadata) {
+        if (!enabled || metadata.getLabels() == null) {
+            return null;
+        }
+
+        ResourceState kafka = state(kafkas, metadata.getNamespace(), metadata.getLabels().get(CLUSTER_LABEL_KEY));
+        ResourceState nodePool = state(nodePools, metadata.getNamespace(), metadata.getLabels().get(POOL_LABEL_KEY));
+
+        if (kafka != null && kafka.paused()) {
+            LOG.info("Pod {} in namespace {} will not be annotated for restart because the reconciliation of its Kafka cluster is paused", metadata.getName(), metadata.getNamespace());
+            skippedPaused.increment();
+            return SkipReason.RECONCILIATION_PAUSED;
+        } else if (kafka != null && kafka.pendingChanges() || nodePool != null && nodePool.pendingChanges()) {
+            LOG.info("Pod {} in namespace {} will not be annotated for restart because its Kafka cluster has changes which will be reconciled", metadata.getName(), metadata.getNamespace());
+            skippedReconciling.increment();
+            return SkipReason.RECONCILIATION_PENDING;
+        } else {
+            return null;
+        }
+    }
+
+    private static ResourceState state(Map<String, ResourceState> states, String namespace, String name) {
+        return name != null ? states.get(namespace + "/" + name) : null;
+    }
+
+    /**
+     * Computes the compact state of the custom resource
+     *
+     * @param resource  Kafka or KafkaNodePool custom resource
+     *
+     * @return  State of the custom resource
+     */
+    /* test */ static ResourceState toState(GenericKubernetesResource resource) {
+        ObjectMeta metadata = resource.getMetadata();
+        boolean paused = metadata.getAnnotations() != null && "true".equals(metadata.getAnnotations().get(PAUSE_ANNOTATION));
+
+        Long generation = metadata.getGeneration();
+        Object observedGeneration = resource.getAdditionalProperties().get("status") instanceof Map<?, ?> status ? status.get("observedGeneration") : null;
+        boolean pendingChanges = generation != null
+                && observedGeneration instanceof Number observed
+                && observed.longValue() < generation;
+
+        return new ResourceState(paused, pendingChanges);
+    }
+
+    /**
+     * Reasons why a pod should not be annotated for restart
+     */
+    enum SkipReason {
+        RECONCILIATION_PAUSED,
+        RECONCILIATION_PENDING
+    }
+
+    /**
+     * Compact state of a Kafka or KafkaNodePool custom resource
+     *
+     * @param paused            Indicates whether the reconciliation is paused
+     * @param pendingChanges    Indicates whether the custom resource has changes which were not reconciled yet
+     */
+    /* test */ record ResourceState(boolean paused, boolean pendingChanges) {
+    }
+
+    /**
+     * Keeps the states of the custom resources up to date
+     */
+    private static class StateHandler implements ResourceEventHandler<GenericKubernetesResource> {
+        private final Map<String, ResourceState> states;
+
+        StateHandler(Map<String, ResourceState> states) {
+            this.states = states;
+        }
+
+        @Override
+        public void onAdd(GenericKubernetesResource resource) {
+            states.put(resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName(), toState(resource));
+        }
+
+        @Override
+        public void onUpdate(GenericKubernetesResource oldResource, GenericKubernetesResource newResource) {
+            onAdd(newResource);
+        }
+
+        @Override
+        public void onDelete(GenericKubernetesResource resource, boolean deletedFinalStateUnknown) {
+            states.remove(resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName());
+        }
+    }
+}
@@ -8,18 +8,30 @@ import io.fabric8.kubernetes.client.Config;
 import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.util.Optional;
 
 /**
  * Custom producer for KubernetesClient that allows client runtime
- * configuration.
+ * configuration. It produces two separate clients: the default client used
+ * while handling the eviction requests and the informer client used by the
+ * informers and other background tasks. Each client has its own connections,
+ * timeouts, and rate limiter. The default client runs on the Vert.x instance
+ * of the application. The informer client runs on its own small Vert.x
+ * instance, so that the watches and their reconnects do not share the event
+ * loop with the eviction requests. The rate limiters are produced as well, so
+ * that the callers can acquire their permits before sending the requests.
  */
 @ApplicationScoped
 public final class KubernetesClientProducer {
@@ -39,7 +51,148 @@ public final class KubernetesClientProducer {
     Optional<Integer> requestTimeout = Optional.empty();
 
     /**
-     * Creates a KubernetesClient with custom configurations.
+     * Quarkus Kubernetes Client 'request retry backoff limit' configuration property. It is the maximal number of
+     * retries of the requests which failed with 429 or 5xx errors or with I/O errors.
+     */
+    @ConfigProperty(name = "quarkus.kubernetes-client.request-retry-backoff-limit")
+    Optional<Integer> requestRetryBackoffLimit = Optional.empty();
+
+    /**
+     * Quarkus Kubernetes Client 'request retry backoff interval' configuration property. It is the initial backoff of
+     * the retries which doubles with every retry. Retry-After from the throttled responses takes precedence when it is
+     * longer.
+     */
+    @ConfigProperty(name = "quarkus.kubernetes-client.request-retry-backoff-interval")
+    Optional<Integer> requestRetryBackoffInterval = Optional.empty();
+
+    /**
+     * Use HTTP/2 to multiplex the concurrent Kubernetes API requests over shared connections
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.client.http2", defaultValue = "false")
+    boolean http2 = false;
+
+    /**
+     * Maximal number of connections of the default client to the Kubernetes API server
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.client.max.connections", defaultValue = "8192")
+    int maxConnections = 8192;
+
+    /**
+     * Time in seconds after which the idle connections to the Kubernetes API server are closed. 0 means no timeout.
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.client.idle.timeout.seconds", defaultValue = "0")
+    int idleTimeoutSeconds = 0;
+
+    /**
+     * Keep the connections to the Kubernetes API server open for reuse by the next requests
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.client.keep.alive", defaultValue = "true")
+    boolean keepAlive = true;
+
+    /**
+     * Time in seconds for which the Kubernetes API server can keep the connections open
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.client.keep.alive.timeout.seconds", defaultValue = "60")
+    int keepAliveTimeoutSeconds = 60;
+
+    /**
+     * Number of requests per second of the default client. 0 disables the rate limiting.
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.client.qps", defaultValue = "0")
+    double qps = 0;
+
+    /**
+     * Number of requests which the default client can send at once above the rate
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.client.burst", defaultValue = "20")
+    int burst = 20;
+
+    /**
+     * Connection timeout of the informer client in milliseconds
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.informer.client.connection.timeout.ms")
+    Optional<Integer> informerConnectionTimeout = Optional.empty();
+
+    /**
+     * Request timeout of the informer client in milliseconds
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.informer.client.request.timeout.ms")
+    Optional<Integer> informerRequestTimeout = Optional.empty();
+
+    /**
+     * Maximal number of connections of the informer client to the Kubernetes API server
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.informer.client.max.connections", defaultValue = "32")
+    int informerMaxConnections = 32;
+
+    /**
+     * Number of requests per second of the informer client. 0 disables the rate limiting.
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.informer.client.qps", defaultValue = "0")
+    double informerQps = 0;
+
+    /**
+     * Number of requests which the informer client can send at once above the rate
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.informer.client.burst", defaultValue = "20")
+    int informerBurst = 20;
+
+    /**
+     * Number of the event loop threads of the Vert.x instance used by the informer client
+     */
+    @ConfigProperty(name = "strimzi.kubernetes.informer.client.event.loop.threads", defaultValue = "1")
+    int informerEventLoopThreads = 1;
+
+    /**
+     * Vert.x instance of the application used to run the HTTP client of the default Kubernetes client
+     */
+    @Inject
+    Vertx vertx;
+
+    /**
+     * Meter registry used by the rate limiters of the Kubernetes clients
+     */
+    @Inject
+    MeterRegistry registry;
+
+    private ApiRateLimiter webhookRateLimiter;
+    private ApiRateLimiter informerRateLimiter;
+    private Vertx informerVertx;
+
+    /**
+     * Creates the rate limiter of the default KubernetesClient
+     *
+     * @return rate limiter of the default KubernetesClient
+     */
+    @Produces
+    @Singleton
+    public synchronized ApiRateLimiter rateLimiter() {
+        if (webhookRateLimiter == null) {
+            webhookRateLimiter = new ApiRateLimiter(registry, "webhook", qps, burst, System::nanoTime);
+        }
+
+        return webhookRateLimiter;
+    }
+
+    /**
+     * Creates the rate limiter of the informer KubernetesClient
+     *
+     * @return rate limiter of the informer KubernetesClient
+     */
+    @Produces
+    @Singleton
+    @InformerClient
+    public synchronized ApiRateLimiter informerRateLimiter() {
+        if (informerRateLimiter == null) {
+            informerRateLimiter = new ApiRateLimiter(registry, "informer", informerQps, informerBurst, System::nanoTime);
+        }
+
+        return informerRateLimiter;
+    }
+
+    /**
+     * Creates a KubernetesClient with custom configurations. This client is
+     * used while handling the eviction requests.
      *
      * @return configured KubernetesClient instance
      */
@@ -61,7 +214,101 @@ public final class KubernetesClientProducer {
             LOG.info("Setting Kubernetes client property 'quarkus.kubernetes-client.request-timeout' to '{}' ms", value);
         });
 
+        return build("webhook", configBuilder, vertx, maxConnections, registry != null ? rateLimiter() : null);
+    }
+
+    /**
+     * Creates a KubernetesClient for the informers and other background tasks
+     * with its own configuration.
+     *
+     * @return configured KubernetesClient instance
+     */
+    @Produces
+    @Singleton
+    @InformerClient
+    public KubernetesClient informerKubernetesClient() {
+        // Start with the default auto-configured settings
+        ConfigBuilder configBuilder = new ConfigBuilder();
+
+        // Override the connection timeout if set.
+        informerConnectionTimeout.ifPresent(value -> {
+            configBuilder.withConnectionTimeout(value);
+            LOG.info("Setting informer Kubernetes client property 'strimzi.kubernetes.informer.client.connection.timeout.ms' to '{}' ms", value);
+        });
+
+        // Override the request timeout if set.
+        informerRequestTimeout.ifPresent(value -> {
+            configBuilder.withRequestTimeout(value);
+            LOG.info("Setting informer Kubernetes client property 'strimzi.kubernetes.informer.client.request.timeout.ms' to '{}' ms", value);
+        });
+
+        return build("informer", configBuilder, vertx != null ? informerVertx() : null, informerMaxConnections, registry != null ? informerRateLimiter() : null);
+    }
+
+    /**
+     * Creates the Vert.x instance of the informer client. It has only a few event loop threads because the informer
+     * client handles only the watches and the occasional lists.
+     *
+     * @return Vert.x instance of the informer client
+     */
+    private synchronized Vertx informerVertx() {
+        if (informerVertx == null) {
+            informerVertx = Vertx.vertx(new VertxOptions()
+                    .setEventLoopPoolSize(Math.max(1, informerEventLoopThreads))
+                    .setWorkerPoolSize(1));
+        }
+
+        return informerVertx;
+    }
+
+    /**
+     * Closes the Vert.x instance of the informer client
+     */
+    @PreDestroy
+    synchronized void close() {
+        if (informerVertx != null) {
+            informerVertx.close();
+            informerVertx = null;
+        }
+    }
+
+    /**
+     * Builds the KubernetesClient with the configuration shared by all clients
+     *
+     * @param name              Name of the client used in the logs and metrics
+     * @param configBuilder     Builder with the client specific configuration
+     * @param clientVertx       Vert.x instance used to run the HTTP client or null to use the Kubernetes client default
+     * @param maxConnections    Maximal number of connections of the client
+     * @param rateLimiter       Rate limiter of the client or null if not used
+     *
+     * @return configured KubernetesClient instance
+     */
+    private KubernetesClient build(String name, ConfigBuilder configBuilder, Vertx clientVertx, int maxConnections, ApiRateLimiter rateLimiter) {
+        // Override the retry backoff limit if set.
+        requestRetryBackoffLimit.ifPresent(value -> {
+            configBuilder.withRequestRetryBackoffLimit(value);
+            LOG.info("Setting {} Kubernetes client property 'quarkus.kubernetes-client.request-retry-backoff-limit' to '{}'", name, value);
+        });
+
+        // Override the retry backoff interval if set.
+        requestRetryBackoffInterval.ifPresent(value -> {
+            configBuilder.withRequestRetryBackoffInterval(value);
+            LOG.info("Setting {} Kubernetes client property 'quarkus.kubernetes-client.request-retry-backoff-interval' to '{}' ms", name, value);
+        });
+
         Config kubernetesConfig = configBuilder.build();
-        return new KubernetesClientBuilder().withConfig(kubernetesConfig).build();
+        KubernetesClientBuilder clientBuilder = new KubernetesClientBuilder().withConfig(kubernetesConfig);
+
+        if (clientVertx != null) {
+            clientBuilder.withHttpClientFactory(new KubernetesHttpClientFactory(clientVertx, http2, maxConnections, idleTimeoutSeconds, keepAlive, keepAliveTimeoutSeconds));
+            LOG.info("The {} Kubernetes client uses {} Vert.x instance with HTTP/2 {}, max connections {}, idle timeout {} s, keep-alive {}, and keep-alive timeout {} s",
+                    name, clientVertx == vertx ? "the application" : "its own", http2 ? "enabled" : "disabled", maxConnections, idleTimeoutSeconds, keepAlive, keepAliveTimeoutSeconds);
+        }
+
+        if (rateLimiter != null) {
+            clientBuilder.withHttpClientBuilderConsumer(builder -> builder.addOrReplaceInterceptor(ApiRateLimiter.NAME, rateLimiter));
+        }
+
+        return clientBuilder.build();
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.vertx.VertxHttpClientFactory;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.WebClientOptions;
+
+/**
+ * Factory of the HTTP clients used by the Kubernetes client. The HTTP clients run on the given Vert.x instance, so the
+ * Kubernetes client does not start its own event loop threads. The factory also tunes the HTTP transport of the
+ * Kubernetes client: HTTP/2, the size of the connection pool, and the idle and keep-alive timeouts. The options are
+ * tuned in the additional configuration hook of the Vert.x HTTP client factory after the Kubernetes client applied its
+ * own configuration.
+ */
+class KubernetesHttpClientFactory extends VertxHttpClientFactory {
+    private final boolean http2;
+    private final int maxConnections;
+    private final int idleTimeoutSeconds;
+    private final boolean keepAlive;
+    private final int keepAliveTimeoutSeconds;
+
+    /**
+     * Constructs the factory
+     *
+     * @param vertx                     Vert.x instance used to run the HTTP clients
+     * @param http2                     Use HTTP/2 to multiplex the concurrent requests over shared connections
+     * @param maxConnections            Maximal number of connections to the Kubernetes API server
+     * @param idleTimeoutSeconds        Time after which the idle connections are closed. 0 means no timeout.
+     * @param keepAlive                 Keep the connections open for reuse by the next requests
+     * @param keepAliveTimeoutSeconds   Time for which the Kubernetes API server can keep the connections open
+     */
+    KubernetesHttpClientFactory(Vertx vertx, boolean http2, int maxConnections, int idleTimeoutSeconds, boolean keepAlive, int keepAliveTimeoutSeconds) {
+        super(vertx);
+        this.http2 = http2;
+        this.maxConnections = maxConnections;
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+        this.keepAlive = keepAlive;
+        this.keepAliveTimeoutSeconds = keepAliveTimeoutSeconds;
+    }
+
+    @Override
+    protected void additionalConfig(WebClientOptions options) {
+        configure(options, http2, maxConnections, idleTimeoutSeconds, keepAlive, keepAliveTimeoutSeconds);
+    }
+
+    /**
+     * Tunes the options of the HTTP client
+     *
+     * @param options                   HTTP client options created by the Kubernetes client
+     * @param http2                     Use HTTP/2 to multiplex the concurrent requests over shared connections
+     * @param maxConnections            Maximal number of connections to the Kubernetes API server
+     * @param idleTimeoutSeconds        Time after which the idle connections are closed. 0 means no timeout.
+     * @param keepAlive                 Keep the connections open for reuse by the next requests
+     * @param keepAliveTimeoutSeconds   Time for which the Kubernetes API server can keep the connections open
+     */
+    /* test */ static void configure(HttpClientOptions options, boolean http2, int maxConnections, int idleTimeoutSeconds, boolean keepAlive, int keepAliveTimeoutSeconds) {
+        if (http2) {
+            // HTTP/2 is negotiated using ALPN when connecting over TLS. The requests fall back to HTTP/1.1 when the
+            // Kubernetes API server does not support it.
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                    .setUseAlpn(true)
+                    .setHttp2MaxPoolSize(maxConnections);
+        }
+
+        options.setMaxPoolSize(maxConnections)
+                .setIdleTimeout(idleTimeoutSeconds)
+                .setKeepAlive(keepAlive)
+                .setKeepAliveTimeout(keepAliveTimeoutSeconds)
+                .setHttp2KeepAliveTimeout(keepAliveTimeoutSeconds);
+    }
+}
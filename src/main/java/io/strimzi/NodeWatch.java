@@ -0,0 +1,361 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Optional watch of the cluster nodes. When a node gets one of the configured disruption taints, it will be drained
+ * soon. The node watch then annotates the Strimzi Kafka and ZooKeeper pods running on this node for restart right away,
+ * so that the Strimzi Cluster Operator can start rolling them before the first eviction request arrives. By default,
+ * only the taints which the Cluster Autoscaler and Karpenter add right before draining the node are used. Cordoned
+ * nodes (with the {@code spec.unschedulable} field set) are not always drained, so they are handled as disrupted only
+ * when enabled using the {@code strimzi.node.watch.cordoned} option. The watch is disabled by default and can be
+ * enabled using the {@code strimzi.node.watch.enabled} option.
+ *
+ * The pods on the node are found using the informers of the pod cache, so the node watch requires the pod cache to be
+ * enabled. When the node watch is enabled, the stores of these informers are indexed by the {@code spec.nodeName}
+ * field of the pods and keep the pod fields needed to decide about the annotation. The pods are annotated on a separate
+ * thread in the same way as when their eviction is denied, so the pods are not annotated twice.
+ */
+@ApplicationScoped
+@SuppressWarnings("checkstyle:ClassFanOutComplexity")
+public class NodeWatch {
+    private static final Logger LOG = LoggerFactory.getLogger(NodeWatch.class);
+
+    /* test */ static final String DEFAULT_DISRUPTION_TAINTS = "ToBeDeletedByClusterAutoscaler,karpenter.sh/disrupted,karpenter.sh/disruption";
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.node.watch";
+
+    @Inject
+    @InformerClient
+    KubernetesClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    RestartAnnotator restartAnnotator;
+
+    @Inject
+    PodCache podCache;
+
+    private final boolean enabled;
+    private final Set<String> disruptionTaints;
+    private final boolean cordoned;
+    private final boolean drainKafka;
+    private final boolean drainZooKeeper;
+
+    // Names of the nodes which are cordoned or tainted for disruption
+    private final Set<String> disruptedNodes = ConcurrentHashMap.newKeySet();
+    // Pods which are waiting to be annotated
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final PodHandler podHandler = new PodHandler();
+
+    private SharedIndexInformer<Node> nodeInformer;
+    private ExecutorService executor;
+    private Counter disruptedNodesCounter;
+    private Counter annotatedPods;
+
+    /**
+     * Constructs the node watch. This is the default constructor used in production which gets the values from quarkus
+     * configuration.
+     */
+    @SuppressWarnings("unused")
+    public NodeWatch() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.node.watch.enabled", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.node.watch.disruption.taints", String.class).orElse(DEFAULT_DISRUPTION_TAINTS),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.node.watch.cordoned", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.drain.kafka", Boolean.class).orElse(true),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.drain.zookeeper", Boolean.class).orElse(true));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client            Kubernetes client
+     * @param registry          Meter registry
+     * @param restartAnnotator  Restart annotator used to annotate the pods
+     * @param podCache          Pod cache used to find the pods on the nodes
+     * @param enabled           Enables / disables the node watch
+     * @param disruptionTaints  Comma-separated list of taint keys which indicate that the node will be drained
+     * @param cordoned          Indicates whether the cordoned nodes should be handled as disrupted
+     * @param drainKafka        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper    Indicates whether ZooKeeper pods should be drained
+     */
+    /* test */ NodeWatch(KubernetesClient client, MeterRegistry registry, RestartAnnotator restartAnnotator, PodCache podCache, boolean enabled, String disruptionTaints, boolean cordoned, boolean drainKafka, boolean drainZooKeeper) {
+        this(enabled, disruptionTaints, cordoned, drainKafka, drainZooKeeper);
+        this.client = client;
+        this.registry = registry;
+        this.restartAnnotator = restartAnnotator;
+        this.podCache = podCache;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled           Enables / disables the node watch
+     * @param disruptionTaints  Comma-separated list of taint keys which indicate that the node will be drained
+     * @param cordoned          Indicates whether the cordoned nodes should be handled as disrupted
+     * @param drainKafka        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper    Indicates whether ZooKeeper pods should be drained
+     */
+    private NodeWatch(boolean enabled, String disruptionTaints, boolean cordoned, boolean drainKafka, boolean drainZooKeeper) {
+        this.enabled = enabled;
+        this.disruptionTaints = Arrays.stream(disruptionTaints.split(","))
+                .map(String::trim)
+                .filter(taint -> !taint.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.cordoned = cordoned;
+        this.drainKafka = drainKafka;
+        this.drainZooKeeper = drainZooKeeper;
+
+        if (!this.enabled) {
+            LOG.info("Node watch is disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        disruptedNodesCounter = Counter.builder(METRIC_PREFIX + ".disrupted.nodes")
+                .description("Number of nodes which were detected to be cordoned or tainted for disruption")
+                .register(registry);
+        annotatedPods = Counter.builder(METRIC_PREFIX + ".annotated.pods")
+                .description("Number of pods annotated for restart because their node was cordoned or tainted for disruption")
+                .register(registry);
+    }
+
+    /**
+     * Starts the node watch when Quarkus is starting
+     *
+     * @param ev    Startup event
+     */
+    void onStart(@Observes StartupEvent ev) {
+        start();
+    }
+
+    /**
+     * Stops the node watch when Quarkus is stopping
+     *
+     * @param ev    Shutdown event
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        stop();
+    }
+
+    /**
+     * @return  True if the node watch is enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return  Handler of the pod events which is added to the informers of the pod cache
+     */
+    public ResourceEventHandler<Pod> podHandler() {
+        return podHandler;
+    }
+
+    /**
+     * Starts the node informer (if enabled). The pod cache is started on startup as well, so its informers are usually
+     * synced before the nodes which are already cordoned are found. Pods added to the pod cache later are checked
+     * against the disrupted nodes as well.
+     */
+    /* test */ void start() {
+        if (enabled) {
+            if (podCache == null || !podCache.isEnabled()) {
+                LOG.warn("Node watch requires the pod cache to be enabled and will not be started");
+                return;
+            }
+
+            LOG.info("Starting the node watch with disruption taints {} and with cordoned nodes {}", disruptionTaints, cordoned ? "handled as disrupted" : "ignored");
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "node-watch");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            nodeInformer = client.nodes().runnableInformer(0);
+            nodeInformer.addEventHandler(new NodeHandler());
+            nodeInformer.start();
+        }
+    }
+
+    /**
+     * Stops the node informer
+     */
+    /* test */ void stop() {
+        if (enabled) {
+            LOG.info("Stopping the node watch");
+
+            if (nodeInformer != null) {
+                nodeInformer.stop();
+            }
+
+            disruptedNodes.clear();
+
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * @return  True if the node informer is synced. False otherwise.
+     */
+    /* test */ boolean isSynced() {
+        return nodeInformer != null && nodeInformer.hasSynced();
+    }
+
+    /**
+     * Waits until the annotations submitted so far are done
+     */
+    /* test */ void awaitAnnotations() throws InterruptedException, ExecutionException, TimeoutException {
+        executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Checks whether the node has one of the disruption taints or is cordoned when the cordoned nodes are handled as
+     * disrupted
+     *
+     * @param node  Node which should be checked
+     *
+     * @return  True if the node is expected to be drained. False otherwise.
+     */
+    /* test */ boolean isDisrupted(Node node) {
+        if (node.getSpec() == null) {
+            return false;
+        } else if (cordoned && Boolean.TRUE.equals(node.getSpec().getUnschedulable())) {
+            return true;
+        } else {
+            return node.getSpec().getTaints() != null
+                    && node.getSpec().getTaints().stream().anyMatch(taint -> disruptionTaints.contains(taint.getKey()));
+        }
+    }
+
+    /**
+     * Marks the node as disrupted and annotates the Strimzi pods running on it
+     *
+     * @param nodeName  Name of the node
+     */
+    private void nodeDisrupted(String nodeName) {
+        if (disruptedNodes.add(nodeName)) {
+            LOG.info("Node {} is cordoned or tainted for disruption. Its Strimzi pods will be annotated for restart.", nodeName);
+            disruptedNodesCounter.increment();
+
+            podCache.podsOnNode(nodeName).forEach(this::maybeAnnotate);
+        }
+    }
+
+    /**
+     * Annotates the pod for restart if it should be drained and is not annotated yet. The pod is annotated on the
+     * executor thread so that the informer threads are not blocked by the Kubernetes API calls.
+     *
+     * @param pod   Pod which should be annotated
+     */
+    private void maybeAnnotate(Pod pod) {
+        ObjectMeta metadata = pod.getMetadata();
+
+        if (ValidatingWebhook.matchingLabel(metadata.getLabels(), drainKafka, drainZooKeeper)
+                && (metadata.getAnnotations() == null || !"true".equals(metadata.getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION)))) {
+            String key = metadata.getNamespace() + "/" + metadata.getName();
+
+            if (pending.add(key)) {
+                executor.execute(() -> {
+                    try {
+                        if (restartAnnotator.annotatePodForRestart(metadata, false) == ValidatingWebhook.PodCheck.DRAINABLE) {
+                            annotatedPods.increment();
+                        }
+                    } catch (RuntimeException e) {
+                        LOG.warn("Failed to annotate Pod {} in namespace {} for restart", metadata.getName(), metadata.getNamespace(), e);
+                    } finally {
+                        pending.remove(key);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Handles the node events and detects the nodes which become cordoned or tainted for disruption
+     */
+    private class NodeHandler implements ResourceEventHandler<Node> {
+        @Override
+        public void onAdd(Node node) {
+            update(node);
+        }
+
+        @Override
+        public void onUpdate(Node oldNode, Node newNode) {
+            update(newNode);
+        }
+
+        @Override
+        public void onDelete(Node node, boolean deletedFinalStateUnknown) {
+            disruptedNodes.remove(node.getMetadata().getName());
+        }
+
+        private void update(Node node) {
+            if (isDisrupted(node)) {
+                nodeDisrupted(node.getMetadata().getName());
+            } else if (disruptedNodes.remove(node.getMetadata().getName())) {
+                LOG.info("Node {} is not cordoned or tainted for disruption anymore", node.getMetadata().getName());
+            }
+        }
+    }
+
+    /**
+     * Handles the pod events and annotates the pods which appear on the disrupted nodes
+     */
+    private class PodHandler implements ResourceEventHandler<Pod> {
+        @Override
+        public void onAdd(Pod pod) {
+            update(pod);
+        }
+
+        @Override
+        public void onUpdate(Pod oldPod, Pod newPod) {
+            update(newPod);
+        }
+
+        @Override
+        public void onDelete(Pod pod, boolean deletedFinalStateUnknown) {
+            // Nothing to do
+        }
+
+        private void update(Pod pod) {
+            if (pod.getSpec() != null && pod.getSpec().getNodeName() != null && disruptedNodes.contains(pod.getSpec().getNodeName())) {
+                maybeAnnotate(pod);
+            }
+        }
+    }
+}
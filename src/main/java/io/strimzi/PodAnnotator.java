@@ -0,0 +1,197 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Annotates pods for restart using a JSON merge patch which contains only the {@code strimzi.io/manual-rolling-update}
+ * annotation. Unlike patching the whole pod, this does not need the current pod, sends only a few bytes and does not
+ * overwrite any changes done to the pod in the meantime by the Strimzi Cluster Operator.
+ *
+ * The merge patch does not contain the resource version, so it never fails because of a conflict. When the Kubernetes
+ * API rejects the patch because of too many requests (429), the patch is retried with exponential backoff and jitter up
+ * to the configured number of retries. Throttled patches are not retried before the time requested by the Kubernetes
+ * API server. Note that the Kubernetes client itself already retries the throttled requests a few times before giving
+ * up. So the retries here apply only after the client gave up.
+ */
+@ApplicationScoped
+public class PodAnnotator {
+    private static final Logger LOG = LoggerFactory.getLogger(PodAnnotator.class);
+
+    /* test */ static final String ANNOTATION_PATCH = "{\"metadata\":{\"annotations\":{\"" + ValidatingWebhook.MANUAL_RU_ANNOTATION + "\":\"true\"}}}";
+    private static final PatchContext MERGE_PATCH = PatchContext.of(PatchType.JSON_MERGE);
+    private static final int ANNOTATION_PATCH_SIZE = ANNOTATION_PATCH.getBytes(StandardCharsets.UTF_8).length;
+
+    /* test */ static final int DEFAULT_MAX_RETRIES = 3;
+    /* test */ static final long DEFAULT_RETRY_BACKOFF_MS = 100L;
+
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.pod.patch";
+
+    @Inject
+    KubernetesClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ApiRateLimiter rateLimiter;
+
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    private DistributionSummary patchSize;
+
+    /**
+     * Constructs the pod annotator. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public PodAnnotator() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.patch.max.retries", Integer.class).orElse(DEFAULT_MAX_RETRIES),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.patch.retry.backoff.ms", Long.class).orElse(DEFAULT_RETRY_BACKOFF_MS));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client            Kubernetes client
+     * @param registry          Meter registry
+     * @param maxRetries        Maximal number of retries for throttled patches
+     * @param retryBackoffMs    Initial backoff between the retries in milliseconds
+     */
+    /* test */ PodAnnotator(KubernetesClient client, MeterRegistry registry, int maxRetries, long retryBackoffMs) {
+        this(maxRetries, retryBackoffMs);
+        this.client = client;
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param maxRetries        Maximal number of retries for throttled patches
+     * @param retryBackoffMs    Initial backoff between the retries in milliseconds
+     */
+    private PodAnnotator(int maxRetries, long retryBackoffMs) {
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        patchSize = DistributionSummary.builder(METRIC_PREFIX + ".size")
+                .description("Size of the pod patches sent to the Kubernetes API")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Annotates the pod for restart.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  True if the pod was annotated. False if the pod does not exist.
+     */
+    public boolean annotate(String namespace, String name) {
+        Timer.Sample sample = Timer.start(registry);
+        String result = "error";
+
+        try {
+            boolean annotated = patchWithRetry(namespace, name);
+            result = annotated ? "success" : "not-found";
+            return annotated;
+        } finally {
+            sample.stop(Timer.builder(METRIC_PREFIX + ".latency")
+                    .description("Time spent patching the pods including the retries by the result of the patch")
+                    .tag("result", result)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Patches the pod and retries the patch when it fails because of too many requests.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  True if the pod was annotated. False if the pod does not exist.
+     */
+    private boolean patchWithRetry(String namespace, String name) {
+        int attempt = 0;
+
+        while (true) {
+            try {
+                if (rateLimiter != null) {
+                    rateLimiter.acquire("patch of Pod " + name + " in namespace " + namespace, client.getConfiguration().getRequestTimeout());
+                }
+
+                patchSize.record(ANNOTATION_PATCH_SIZE);
+                // Patching through resource(...) instead of withName(...) avoids getting the pod before patching it
+                client.pods().inNamespace(namespace).resource(podReference(namespace, name)).patch(MERGE_PATCH, ANNOTATION_PATCH);
+                return true;
+            } catch (KubernetesClientException e) {
+                if (e.getCode() == 404) {
+                    LOG.warn("No pod has been found with name {} in namespace {}", name, namespace);
+                    return false;
+                } else if (isRetriable(e) && attempt < maxRetries) {
+                    long backoff = RetryBackoff.delayMs(retryBackoffMs, attempt, e);
+                    attempt++;
+
+                    LOG.info("Patching Pod {} in namespace {} failed with code {}. Retrying in {} ms ({}/{})", name, namespace, e.getCode(), backoff, attempt, maxRetries);
+                    Counter.builder(METRIC_PREFIX + ".retries")
+                            .description("Number of retried pod patches")
+                            .tag("code", String.valueOf(e.getCode()))
+                            .register(registry)
+                            .increment();
+                    sleep(backoff);
+                } else {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static Pod podReference(String namespace, String name) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(namespace)
+                .endMetadata()
+                .build();
+    }
+
+    private static boolean isRetriable(KubernetesClientException e) {
+        return e.getCode() == 429;
+    }
+
+    private static void sleep(long backoff) {
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KubernetesClientException.launderThrowable(e);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.ReducedStateItemStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional cache of the Strimzi Kafka and ZooKeeper pods. When enabled, it uses Kubernetes informers to watch all pods
+ * with the {@code strimzi.io/kind=Kafka} label in the namespaces watched by the Drain Cleaner and maintains the
+ * eviction decision index with precomputed eviction decisions for these pods. The webhook can then decide about the
+ * evicted pods locally instead of calling the Kubernetes API for every eviction request. The cache is disabled by
+ * default and can be enabled using the {@code strimzi.pod.cache.enabled} option.
+ *
+ * The webhook needs only a few fields from the pod metadata. So the informers do not keep the full pods in memory.
+ * Their stores keep only the namespace, name, UID and resource version of each pod, which is what the informers need
+ * to detect deleted pods, and the node name of the pod used to open the drain sessions. The labels and annotations are
+ * evaluated when the pod events are received and only the outcome is stored in the eviction decision index.
+ *
+ * Once the informers are synced, the cache knows all Strimzi Kafka and ZooKeeper pods. Evictions of pods which are
+ * definitely not in its pod filter can be allowed right away without calling the Kubernetes API.
+ *
+ * When the node watch is enabled, it shares the informers of the cache. Their stores then keep also the pod labels,
+ * annotations and node name and are indexed by the {@code spec.nodeName} field, so that the node watch can find the
+ * pods running on a node.
+ */
+@ApplicationScoped
+public class PodCache {
+    private static final Logger LOG = LoggerFactory.getLogger(PodCache.class);
+
+    /* test */ static final String ANY_NAMESPACE = "*";
+    private static final String STRIMZI_KIND_LABEL_KEY = "strimzi.io/kind";
+    private static final String STRIMZI_KIND_LABEL_VALUE = "Kafka";
+    private static final String NODE_NAME_INDEX = "nodeName";
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.pod.filter";
+
+    @Inject
+    @InformerClient
+    KubernetesClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ClusterRollGate rollGate;
+
+    @Inject
+    NodeWatch nodeWatch;
+
+    private final boolean enabled;
+    private final List<String> namespaces;
+    private final EvictionDecisionIndex decisionIndex;
+
+    private final Map<String, SharedIndexInformer<Pod>> informers = new ConcurrentHashMap<>();
+
+    private Counter filterRejected;
+    private Counter filterPassed;
+    private Counter filterFalsePositives;
+
+    /**
+     * Constructs the pod cache. This is the default constructor used in production which gets the values from quarkus
+     * configuration.
+     */
+    @SuppressWarnings("unused")
+    public PodCache() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.pod.cache.enabled", Boolean.class).orElse(false),
+                ValidatingWebhook.parseNamespaces(ConfigProvider.getConfig().getOptionalValue("strimzi.drain.namespaces", String.class)),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.drain.kafka", Boolean.class).orElse(true),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.drain.zookeeper", Boolean.class).orElse(true),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.pod.cache.filter.expected.pods", Integer.class).orElse(EvictionDecisionIndex.DEFAULT_FILTER_EXPECTED_PODS),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.pod.cache.filter.false.positive.probability", Double.class).orElse(EvictionDecisionIndex.DEFAULT_FILTER_FALSE_POSITIVE_PROBABILITY));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client            Kubernetes client
+     * @param registry          Meter registry
+     * @param enabled           Enables / disables the pod cache
+     * @param namespaces        Namespaces which should be cached. Empty list means all namespaces.
+     * @param drainKafka        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper    Indicates whether ZooKeeper pods should be drained
+     */
+    /* test */ PodCache(KubernetesClient client, MeterRegistry registry, boolean enabled, List<String> namespaces, boolean drainKafka, boolean drainZooKeeper)  {
+        this(enabled, namespaces, drainKafka, drainZooKeeper, EvictionDecisionIndex.DEFAULT_FILTER_EXPECTED_PODS, EvictionDecisionIndex.DEFAULT_FILTER_FALSE_POSITIVE_PROBABILITY);
+        this.client = client;
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled           Enables / disables the pod cache
+     * @param namespaces        Namespaces which should be cached. Empty list means all namespaces.
+     * @param drainKafka                        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper                    Indicates whether ZooKeeper pods should be drained
+     * @param filterExpectedPods                Expected number of pods in the pod filter
+     * @param filterFalsePositiveProbability    Desired false positive probability of the pod filter
+     */
+    private PodCache(boolean enabled, List<String> namespaces, boolean drainKafka, boolean drainZooKeeper, int filterExpectedPods, double filterFalsePositiveProbability)  {
+        this.enabled = enabled;
+        this.namespaces = namespaces;
+        this.decisionIndex = new EvictionDecisionIndex(drainKafka, drainZooKeeper, filterExpectedPods, filterFalsePositiveProbability);
+
+        if (!this.enabled) {
+            LOG.info("Pod cache is disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        filterRejected = Counter.builder(METRIC_PREFIX + ".checks")
+                .description("Number of evictions checked against the pod filter")
+                .tag("result", "rejected")
+                .register(registry);
+        filterPassed = Counter.builder(METRIC_PREFIX + ".checks")
+                .description("Number of evictions checked against the pod filter")
+                .tag("result", "passed")
+                .register(registry);
+        filterFalsePositives = Counter.builder(METRIC_PREFIX + ".false.positives")
+                .description("Number of evictions which passed the pod filter but were not for pods which should be drained")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".expected.false.positive.probability", decisionIndex, EvictionDecisionIndex::filterFalsePositiveProbability)
+                .description("Estimated false positive probability of the pod filter")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".memory", decisionIndex, EvictionDecisionIndex::filterSizeInBytes)
+                .description("Memory used by the pod filter")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Starts the cache when Quarkus is starting
+     *
+     * @param ev    Startup event
+     */
+    void onStart(@Observes StartupEvent ev) {
+        start();
+    }
+
+    /**
+     * Stops the cache when Quarkus is stopping
+     *
+     * @param ev    Shutdown event
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        stop();
+    }
+
+    /**
+     * @return  True if the pod cache is enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the informers (if enabled). The informers are started asynchronously and the cache does not wait for
+     * them to be synced. Until they are synced, the eviction decision index will not know the pods and the webhook will
+     * fall back to get them from the Kubernetes API.
+     */
+    /* test */ void start() {
+        if (enabled) {
+            if (namespaces.isEmpty()) {
+                LOG.info("Starting the pod cache for all namespaces");
+                informers.put(ANY_NAMESPACE, client.pods().inAnyNamespace().withLabel(STRIMZI_KIND_LABEL_KEY, STRIMZI_KIND_LABEL_VALUE).runnableInformer(0));
+            } else {
+                LOG.info("Starting the pod cache for namespaces {}", namespaces);
+
+                for (String namespace : namespaces) {
+                    informers.put(namespace, client.pods().inNamespace(namespace).withLabel(STRIMZI_KIND_LABEL_KEY, STRIMZI_KIND_LABEL_VALUE).runnableInformer(0));
+                }
+            }
+
+            for (SharedIndexInformer<Pod> informer : informers.values()) {
+                informer.itemStore(compactItemStore());
+                informer.addEventHandler(decisionIndex);
+
+                if (isRollGateEnabled()) {
+                    informer.addEventHandler(rollGate);
+                }
+
+                if (isNodeWatchEnabled()) {
+                    informer.addIndexers(Map.of(NODE_NAME_INDEX, pod -> pod.getSpec() != null && pod.getSpec().getNodeName() != null ? List.of(pod.getSpec().getNodeName()) : List.of()));
+                    informer.addEventHandler(nodeWatch.podHandler());
+                }
+
+                informer.start();
+            }
+        }
+    }
+
+    /**
+     * Creates the item store used by the informers. It keeps only the pod namespace, name, UID, resource version and
+     * node name. When the node watch or the cluster roll gate is enabled, it keeps also the labels and annotations of
+     * the pod. The cluster roll gate needs them to find the Kafka cluster of the pods deleted while the informer was
+     * disconnected, which are reported from the store.
+     *
+     * @return  Item store for the pod informers
+     */
+    /* test */ ReducedStateItemStore<Pod> compactItemStore() {
+        if (isNodeWatchEnabled() || isRollGateEnabled()) {
+            return new ReducedStateItemStore<>(ReducedStateItemStore.NAME_KEY_STATE, Pod.class, client.getKubernetesSerialization(),
+                    "metadata.uid", "metadata.labels", "metadata.annotations", "spec.nodeName");
+        } else {
+            return new ReducedStateItemStore<>(ReducedStateItemStore.NAME_KEY_STATE, Pod.class, client.getKubernetesSerialization(), "metadata.uid", "spec.nodeName");
+        }
+    }
+
+    private boolean isNodeWatchEnabled() {
+        return nodeWatch != null && nodeWatch.isEnabled();
+    }
+
+    private boolean isRollGateEnabled() {
+        return rollGate != null && rollGate.isEnabled();
+    }
+
+    /**
+     * Stops the informers
+     */
+    /* test */ void stop() {
+        if (enabled) {
+            LOG.info("Stopping the pod cache");
+            informers.values().forEach(SharedIndexInformer::stop);
+            informers.clear();
+            decisionIndex.clear();
+        }
+    }
+
+    /**
+     * @return  True if the cache is enabled and all informers are synced. False otherwise.
+     */
+    public boolean isSynced() {
+        return enabled
+                && !informers.isEmpty()
+                && informers.values().stream().allMatch(SharedIndexInformer::hasSynced);
+    }
+
+    /**
+     * Gets the Strimzi pods running on the node. The pods are known only when the node watch is enabled.
+     *
+     * @param nodeName  Name of the node
+     *
+     * @return  List of the Strimzi pods on the node with their labels, annotations and node name
+     */
+    public List<Pod> podsOnNode(String nodeName) {
+        List<Pod> pods = new ArrayList<>();
+
+        if (isNodeWatchEnabled()) {
+            for (SharedIndexInformer<Pod> informer : informers.values()) {
+                pods.addAll(informer.getIndexer().byIndex(NODE_NAME_INDEX, nodeName));
+            }
+        }
+
+        return pods;
+    }
+
+    /**
+     * Gets the name of the node on which the pod is running
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  Name of the node or null if the pod is not in the cache or is not running on any node
+     */
+    public String nodeName(String namespace, String name) {
+        String key = namespace + "/" + name;
+
+        for (SharedIndexInformer<Pod> informer : informers.values()) {
+            Pod pod = informer.getStore().getByKey(key);
+
+            if (pod != null) {
+                return pod.getSpec() != null ? pod.getSpec().getNodeName() : null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Checks whether the pod is definitely not a pod which should be drained. This is decided using the pod filter and
+     * only once the cache is synced. Before that, the cache does not know all pods and the pod needs to be checked.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  True if the pod is definitely not a pod which should be drained. False otherwise.
+     */
+    public boolean isKnownNotDrainable(String namespace, String name) {
+        if (!isSynced()) {
+            return false;
+        } else if (!decisionIndex.mightBeDrainable(namespace, name)) {
+            filterRejected.increment();
+            return true;
+        } else {
+            filterPassed.increment();
+
+            EvictionDecisionIndex.PodDecision decision = decisionIndex.get(namespace, name);
+            if (decision == null || !decision.drainable()) {
+                filterFalsePositives.increment();
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Gets the precomputed eviction decision for the pod.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  The eviction decision or null if the pod is not in the cache
+     */
+    public EvictionDecisionIndex.PodDecision getDecision(String namespace, String name) {
+        return decisionIndex.get(namespace, name);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Checks the evicted pod and annotates it for restart when it is a Strimzi pod which should be drained. The pod
+ * metadata are taken from the open drain session which knows the pod (if enabled) or from the Kubernetes API. The
+ * decisions about the checked pods are remembered in the decision memo (if enabled) and the drain sessions are updated
+ * with the annotated pods.
+ */
+@ApplicationScoped
+public class PodChecker {
+    private static final Logger LOG = LoggerFactory.getLogger(PodChecker.class);
+
+    @Inject
+    PodMetadataClient podMetadataClient;
+
+    @Inject
+    RestartAnnotator restartAnnotator;
+
+    @Inject
+    InMemoryDecisions inMemoryDecisions;
+
+    @Inject
+    DrainSessions drainSessions;
+
+    @Inject
+    PodCache podCache;
+
+    @Inject
+    ApiCircuitBreaker circuitBreaker;
+
+    @Inject
+    WebhookTracing tracing;
+
+    private final boolean drainKafka;
+    private final boolean drainZooKeeper;
+
+    /**
+     * Constructs the pod checker. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public PodChecker() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.drain.kafka", Boolean.class).orElse(true),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.drain.zookeeper", Boolean.class).orElse(true));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client                Kubernetes client
+     * @param inMemoryDecisions     Decisions kept in memory
+     * @param drainKafka            Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper        Indicates whether ZooKeeper pods should be drained
+     * @param denyEviction          Indicates whether the evictions of the Strimzi pods are denied
+     */
+    /* test */ PodChecker(KubernetesClient client, InMemoryDecisions inMemoryDecisions, boolean drainKafka, boolean drainZooKeeper, boolean denyEviction) {
+        this(drainKafka, drainZooKeeper);
+        this.podMetadataClient = new PodMetadataClient(client, new SimpleMeterRegistry());
+        this.restartAnnotator = new RestartAnnotator(new PodAnnotator(client, new SimpleMeterRegistry(), PodAnnotator.DEFAULT_MAX_RETRIES, PodAnnotator.DEFAULT_RETRY_BACKOFF_MS),
+                inMemoryDecisions, denyEviction);
+        this.inMemoryDecisions = inMemoryDecisions;
+        this.tracing = WebhookTracing.noop();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param drainKafka        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper    Indicates whether ZooKeeper pods should be drained
+     */
+    private PodChecker(boolean drainKafka, boolean drainZooKeeper) {
+        this.drainKafka = drainKafka;
+        this.drainZooKeeper = drainZooKeeper;
+    }
+
+    /**
+     * Gets the pod metadata, checks whether it is a Strimzi pod which should be drained and if so, annotates it for
+     * restart. When the drain sessions are enabled, the pod metadata are taken from the open drain session which knows
+     * the pod. Otherwise, they are taken from the Kubernetes API.
+     *
+     * @param name          Name of the evicted pod
+     * @param namespace     Namespace of the evicted pod
+     * @param evictionUid   UID from the eviction request preconditions or null if not set
+     * @param dryRun        Flag indicating whether this is a dry-run request
+     * @param deadline      Deadline by which the request has to be answered
+     *
+     * @return  Result of the pod check. DRAINABLE if the pod should be rolled by the Strimzi Cluster Operator.
+     */
+    public ValidatingWebhook.PodCheck checkAndAnnotatePod(String name, String namespace, String evictionUid, boolean dryRun, Deadline deadline) {
+        ObjectMeta sessionMetadata = drainSessions != null && drainSessions.isEnabled() ? drainSessions.get(namespace, name, evictionUid) : null;
+        ObjectMeta metadata = sessionMetadata != null ? sessionMetadata : getPodMetadata(namespace, name, deadline);
+
+        if (metadata != null) {
+            if (tracing.inSpan("match-labels", namespace, name, () -> ValidatingWebhook.matchingLabel(metadata.getLabels(), drainKafka, drainZooKeeper))) {
+                LOG.info("Received eviction webhook for Pod {} in namespace {}", name, namespace);
+
+                if (matchingUuid(evictionUid, metadata.getUid())) {
+                    ValidatingWebhook.PodCheck annotation = restartAnnotator.annotatePodForRestart(metadata, dryRun, deadline);
+
+                    if (annotation != ValidatingWebhook.PodCheck.DRAINABLE) {
+                        return annotation;
+                    }
+
+                    if (!dryRun) {
+                        inMemoryDecisions.remember(namespace, name, metadata.getUid(), true);
+                    }
+
+                    updateDrainSession(namespace, name, sessionMetadata != null, dryRun);
+
+                    return ValidatingWebhook.PodCheck.DRAINABLE;
+                } else {
+                    return ValidatingWebhook.PodCheck.UID_MISMATCH;
+                }
+            } else {
+                LOG.info("Received eviction event which does not match any relevant pods.");
+                inMemoryDecisions.remember(namespace, name, metadata.getUid(), false);
+                return ValidatingWebhook.PodCheck.NOT_DRAINABLE;
+            }
+        } else {
+            // Not remembered, because a Strimzi pod might be recreated under the same name and evicted without the UID
+            LOG.warn("No pod has been found with name {} in namespace {}", name, namespace);
+            return ValidatingWebhook.PodCheck.NOT_FOUND;
+        }
+    }
+
+    private boolean matchingUuid(String evictionUuid, String podUuid) {
+        if (evictionUuid == null || evictionUuid.equals(podUuid))   {
+            return true;
+        } else {
+            LOG.warn("The UUID {} from the eviction request does not match the UUID of the current pod {}. The request might be old and should be ignored.", evictionUuid, podUuid);
+            return false;
+        }
+    }
+
+    /**
+     * Updates the drain sessions (if enabled) after a Strimzi pod was annotated for restart. When the pod is known to
+     * an open session, it is marked as annotated there. Otherwise, a new session is opened for the node of the pod.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param inSession     Indicates whether the pod metadata were taken from an open drain session
+     * @param dryRun        Flag indicating whether this is a dry-run request
+     */
+    private void updateDrainSession(String namespace, String name, boolean inSession, boolean dryRun) {
+        if (drainSessions != null && drainSessions.isEnabled()) {
+            if (!inSession) {
+                drainSessions.open(namespace, name, podCache != null && podCache.isEnabled() ? podCache.nodeName(namespace, name) : null, !dryRun);
+            } else if (!dryRun) {
+                drainSessions.annotated(namespace, name);
+            }
+        }
+    }
+
+    /**
+     * Gets the pod metadata and records the result in the circuit breaker (if used). The call is traced in its own span.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param deadline      Deadline by which the request has to be answered
+     *
+     * @return  The pod metadata or null if the pod does not exist
+     */
+    private ObjectMeta getPodMetadata(String namespace, String name, Deadline deadline) {
+        Span span = tracing.start("get-pod", namespace, name);
+
+        try (Scope ignored = span.makeCurrent()) {
+            ObjectMeta metadata = podMetadataClient.get(namespace, name, deadline);
+
+            if (circuitBreaker != null) {
+                circuitBreaker.recordSuccess();
+            }
+
+            tracing.endCall(span, metadata != null ? "found" : "not-found", null);
+            return metadata;
+        } catch (RuntimeException e) {
+            if (circuitBreaker != null) {
+                circuitBreaker.recordFailure(e);
+            }
+
+            tracing.endCall(span, e instanceof DeadlineExceededException ? "deadline-exceeded" : "error", e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compact probabilistic set of pod keys (namespace and name) based on a Bloom filter. It never returns false negatives:
+ * when it says that a pod is not in the set, the pod was never added. But it might return false positives for pods
+ * which were not added with the probability configured when creating the filter.
+ *
+ * The pod keys are hashed from the hash codes of the namespace and name strings. So checking a pod does not allocate
+ * any objects. Pods cannot be removed from the filter. The filter has to be rebuilt instead.
+ */
+public class PodKeyFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final int numBits;
+    private final int numHashes;
+
+    /**
+     * Constructs the filter
+     *
+     * @param expectedPods                  Expected number of pods in the filter
+     * @param falsePositiveProbability      Desired false positive probability with the expected number of pods
+     */
+    public PodKeyFilter(int expectedPods, double falsePositiveProbability) {
+        int pods = Math.max(1, expectedPods);
+        long optimalBits = (long) Math.ceil(-pods * Math.log(falsePositiveProbability) / (LN2 * LN2));
+
+        this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, optimalBits));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / pods * LN2));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+    }
+
+    /**
+     * Adds the pod to the filter
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     */
+    public void put(String namespace, String name) {
+        long hash = hash(namespace, name);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= numHashes; i++) {
+            int bit = Math.floorMod(hash1 + i * hash2, numBits);
+            bits.getAndUpdate(bit >>> 6, word -> word | (1L << bit));
+        }
+    }
+
+    /**
+     * Checks whether the pod might be in the filter
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  False if the pod is definitely not in the filter. True if it might be in the filter.
+     */
+    public boolean mightContain(String namespace, String name) {
+        long hash = hash(namespace, name);
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= numHashes; i++) {
+            int bit = Math.floorMod(hash1 + i * hash2, numBits);
+
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Estimates the false positive probability for given number of pods in the filter
+     *
+     * @param pods  Number of pods added to the filter
+     *
+     * @return  Estimated false positive probability
+     */
+    public double expectedFalsePositiveProbability(long pods) {
+        return Math.pow(1 - Math.exp(-(double) numHashes * pods / numBits), numHashes);
+    }
+
+    /**
+     * @return  Size of the bit array of this filter in bytes
+     */
+    public long sizeInBytes() {
+        return bits.length() * 8L;
+    }
+
+    /**
+     * Combines the hash codes of the namespace and the name into a single 64-bit hash. The hash codes of strings are
+     * cached by the JVM, so this does not need to go through the strings again.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  64-bit hash of the pod key
+     */
+    private static long hash(String namespace, String name) {
+        long hash = namespace.hashCode() * 0x9E3779B97F4A7C15L + name.hashCode();
+
+        // Finalizer from the SplitMix64 generator to spread the bits
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.utils.URLUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Gets the pod metadata from the Kubernetes API. The webhook needs only the pod labels, annotations and UID to decide
+ * about the eviction. So instead of getting the whole pod with its spec and status, it asks the Kubernetes API to
+ * return only the {@code PartialObjectMetadata} of the pod. This makes the responses much smaller and faster to decode,
+ * especially for Kafka broker pods with many environment variables and volumes.
+ *
+ * The request timeout is shortened to the time remaining until the deadline of the webhook request. The latency of the
+ * requests is recorded by their result.
+ *
+ * Optionally, the requests are hedged: when the Kubernetes API does not respond within a percentile of the recent
+ * latencies, a second request is sent and the first response wins (see {@link HedgePolicy}). The requests which failed
+ * with a transient error are retried with backoff and jitter while the deadline allows it. The Kubernetes client already
+ * retries these errors on its own, but without regard to the deadline.
+ */
+@ApplicationScoped
+public class PodMetadataClient {
+    private static final Logger LOG = LoggerFactory.getLogger(PodMetadataClient.class);
+
+    /* test */ static final String PARTIAL_OBJECT_METADATA = "application/json;as=PartialObjectMetadata;g=meta.k8s.io;v=v1";
+
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.pod.get";
+
+    @Inject
+    KubernetesClient client;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    ApiRateLimiter rateLimiter;
+
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayMs;
+    private final double hedgeBudget;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    private HedgePolicy hedgePolicy;
+
+    /**
+     * Constructs the pod metadata client. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public PodMetadataClient() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.pod.get.hedge.enabled", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.pod.get.hedge.percentile", Double.class).orElse(95.0),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.pod.get.hedge.min.delay.ms", Long.class).orElse(20L),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.pod.get.hedge.budget.percent", Double.class).orElse(10.0) / 100,
+                ConfigProvider.getConfig().getOptionalValue("strimzi.pod.get.max.retries", Integer.class).orElse(2),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.pod.get.retry.backoff.ms", Long.class).orElse(50L));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values. The requests are not hedged or retried.
+     *
+     * @param client    Kubernetes client
+     * @param registry  Meter registry
+     */
+    /* test */ PodMetadataClient(KubernetesClient client, MeterRegistry registry) {
+        this(client, registry, false, 95.0, 20L, 0.1, 0, 50L);
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param client            Kubernetes client
+     * @param registry          Meter registry
+     * @param hedgeEnabled      Enables or disables the hedged requests
+     * @param hedgePercentile   Percentile of the recent latencies used as the hedge delay
+     * @param hedgeMinDelayMs   Minimal hedge delay in milliseconds
+     * @param hedgeBudget       Ratio of the requests which can be hedged
+     * @param maxRetries        Maximal number of retries of the requests which failed with a transient error
+     * @param retryBackoffMs    Initial backoff between the retries in milliseconds
+     */
+    /* test */ PodMetadataClient(KubernetesClient client, MeterRegistry registry, boolean hedgeEnabled, double hedgePercentile, long hedgeMinDelayMs, double hedgeBudget, int maxRetries, long retryBackoffMs) {
+        this(hedgeEnabled, hedgePercentile, hedgeMinDelayMs, hedgeBudget, maxRetries, retryBackoffMs);
+        this.client = client;
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param hedgeEnabled      Enables or disables the hedged requests
+     * @param hedgePercentile   Percentile of the recent latencies used as the hedge delay
+     * @param hedgeMinDelayMs   Minimal hedge delay in milliseconds
+     * @param hedgeBudget       Ratio of the requests which can be hedged
+     * @param maxRetries        Maximal number of retries of the requests which failed with a transient error
+     * @param retryBackoffMs    Initial backoff between the retries in milliseconds
+     */
+    private PodMetadataClient(boolean hedgeEnabled, double hedgePercentile, long hedgeMinDelayMs, double hedgeBudget, int maxRetries, long retryBackoffMs) {
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+        this.hedgeBudget = hedgeBudget;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        if (hedgeEnabled) {
+            LOG.info("Pod reads are hedged after the {}th percentile of their latency (at least {} ms) with budget of {} % of the requests", hedgePercentile, hedgeMinDelayMs, hedgeBudget * 100);
+            hedgePolicy = new HedgePolicy(registry, hedgePercentile, hedgeMinDelayMs, hedgeBudget);
+        }
+    }
+
+    /**
+     * Gets the metadata of the pod.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     *
+     * @return  The pod metadata or null if the pod does not exist
+     */
+    public ObjectMeta get(String namespace, String name) {
+        return get(namespace, name, Deadline.none());
+    }
+
+    /**
+     * Gets the metadata of the pod before the deadline.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param deadline      Deadline by which the metadata need to be received
+     *
+     * @return  The pod metadata or null if the pod does not exist
+     *
+     * @throws DeadlineExceededException    When the metadata were not received before the deadline
+     */
+    public ObjectMeta get(String namespace, String name, Deadline deadline) {
+        long start = System.nanoTime();
+        String result = "error";
+
+        try {
+            ObjectMeta metadata = fetch(namespace, name, deadline);
+            result = metadata != null ? "success" : "not-found";
+            return metadata;
+        } catch (DeadlineExceededException e) {
+            result = "deadline-exceeded";
+            throw e;
+        } finally {
+            Timer.builder(METRIC_PREFIX + ".latency")
+                    .description("Time spent getting the pod metadata by the result of the request")
+                    .tag("result", result)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private ObjectMeta fetch(String namespace, String name, Deadline deadline) {
+        for (int attempt = 0; ; attempt++) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("Deadline expired before getting metadata of Pod " + name + " in namespace " + namespace);
+            }
+
+            try {
+                HttpResponse<byte[]> response = send(namespace, name, deadline);
+
+                if (response.code() == 404) {
+                    return null;
+                } else if (!response.isSuccessful()) {
+                    throw requestFailed("Failed to get metadata of Pod " + name + " in namespace " + namespace + ": HTTP " + response.code(), response);
+                }
+
+                return client.getKubernetesSerialization().unmarshal(new ByteArrayInputStream(response.body()), GenericKubernetesResource.class).getMetadata();
+            } catch (KubernetesClientException e) {
+                if (!RetryBackoff.isTransient(e) || !backoffBeforeRetry(attempt, deadline, e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the request to get the pod metadata and waits for the response until the deadline. When enabled, the
+     * request is hedged.
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param deadline      Deadline by which the metadata need to be received
+     *
+     * @return  Response with the pod metadata
+     */
+    private HttpResponse<byte[]> send(String namespace, String name, Deadline deadline) {
+        Config config = client.getConfiguration();
+
+        if (rateLimiter != null) {
+            rateLimiter.acquire("GET request for metadata of Pod " + name + " in namespace " + namespace, deadline.timeoutMs(config.getRequestTimeout()));
+        }
+
+        long timeoutMs = deadline.timeoutMs(config.getRequestTimeout());
+        HttpClient httpClient = client.getHttpClient();
+        HttpRequest.Builder requestBuilder = httpClient.newHttpRequestBuilder()
+                .uri(URLUtils.join(config.getMasterUrl(), "api", "v1", "namespaces", namespace, "pods", name))
+                .header("Accept", PARTIAL_OBJECT_METADATA);
+
+        if (timeoutMs != Long.MAX_VALUE) {
+            requestBuilder.timeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        HttpRequest request = requestBuilder.build();
+        // The metadata are small, so the body is buffered. Streaming the body makes the HTTP client close the connections
+        // under concurrent load, which fails the other requests sent over them.
+        CompletableFuture<HttpResponse<byte[]>> future = hedgePolicy != null
+                ? hedgePolicy.send(() -> httpClient.sendAsync(request, byte[].class), response -> !RetryBackoff.isTransient(response.code()), timeoutMs,
+                        () -> rateLimiter == null || rateLimiter.tryAcquire())
+                : httpClient.sendAsync(request, byte[].class);
+
+        try {
+            return deadline.isBounded() ? future.get(timeoutMs, TimeUnit.MILLISECONDS) : future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KubernetesClientException.launderThrowable(e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new DeadlineExceededException("Deadline expired while getting metadata of Pod " + name + " in namespace " + namespace);
+        } catch (ExecutionException e) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("Deadline expired while getting metadata of Pod " + name + " in namespace " + namespace);
+            }
+
+            throw KubernetesClientException.launderThrowable(e.getCause());
+        }
+    }
+
+    /**
+     * Creates the exception for the failed request. The Retry-After header of the response is passed in the Status
+     * details, so that the retries wait for the time requested by the Kubernetes API server.
+     *
+     * @param message   Error message
+     * @param response  Failed response
+     *
+     * @return  Exception with the status of the failed request
+     */
+    private static KubernetesClientException requestFailed(String message, HttpResponse<?> response) {
+        StatusBuilder status = new StatusBuilder()
+                .withCode(response.code())
+                .withMessage(message);
+        long retryAfterMs = ApiRateLimiter.retryAfterMs(response);
+
+        if (retryAfterMs > 0) {
+            status.withNewDetails()
+                    .withRetryAfterSeconds((int) Math.min(Integer.MAX_VALUE, TimeUnit.MILLISECONDS.toSeconds(retryAfterMs)))
+                    .endDetails();
+        }
+
+        return new KubernetesClientException(status.build());
+    }
+
+    /**
+     * Waits before retrying the request if it can be retried
+     *
+     * @param attempt   Number of the failed attempts before this one (starting at 0)
+     * @param deadline  Deadline by which the metadata need to be received
+     * @param failure   Failure of the last attempt
+     *
+     * @return  True if the request should be retried. False otherwise.
+     */
+    private boolean backoffBeforeRetry(int attempt, Deadline deadline, KubernetesClientException failure) {
+        if (attempt >= maxRetries) {
+            return false;
+        }
+
+        long backoffMs = RetryBackoff.delayMs(retryBackoffMs, attempt, failure);
+
+        if (backoffMs >= deadline.remainingMs()) {
+            // The retry would not finish before the deadline
+            return false;
+        }
+
+        LOG.debug("Retrying to get pod metadata in {} ms after a transient failure: {}", backoffMs, failure.getMessage());
+        Counter.builder(METRIC_PREFIX + ".retries")
+                .description("Number of requests to get the pod metadata retried after a transient failure")
+                .register(registry)
+                .increment();
+
+        try {
+            Thread.sleep(backoffMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KubernetesClientException.launderThrowable(e);
+        }
+
+        return true;
+    }
+}
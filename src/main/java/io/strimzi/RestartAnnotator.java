@@ -0,0 +1,250 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Scope;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Annotates the Strimzi pods for restart. The pod is not annotated when the Kafka resource cache knows that annotating
+ * it would be futile or when the cluster roll gate does not allow it. The annotation is either handed over to the
+ * annotation queue or patched right away. When the pod could not be annotated, it is forgotten by the decision memo,
+ * the drain sessions and the cluster roll gate, so that its next eviction checks and annotates it again.
+ */
+@ApplicationScoped
+public class RestartAnnotator {
+    private static final Logger LOG = LoggerFactory.getLogger(RestartAnnotator.class);
+
+    @Inject
+    PodAnnotator podAnnotator;
+
+    @Inject
+    AnnotationQueue annotationQueue;
+
+    @Inject
+    InMemoryDecisions inMemoryDecisions;
+
+    @Inject
+    DrainSessions drainSessions;
+
+    @Inject
+    ClusterRollGate rollGate;
+
+    @Inject
+    KafkaResourceCache kafkaCache;
+
+    @Inject
+    RetryAfterPolicy retryAfter;
+
+    @Inject
+    DeadlinePolicy deadlinePolicy;
+
+    @Inject
+    WebhookTracing tracing;
+
+    private final boolean denyEviction;
+
+    /**
+     * Constructs the restart annotator. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public RestartAnnotator() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.deny.eviction", Boolean.class).orElse(true));
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param podAnnotator          Pod annotator patching the pods
+     * @param inMemoryDecisions     Decisions kept in memory
+     * @param denyEviction          Indicates whether the evictions of the Strimzi pods are denied
+     */
+    /* test */ RestartAnnotator(PodAnnotator podAnnotator, InMemoryDecisions inMemoryDecisions, boolean denyEviction) {
+        this(denyEviction);
+        this.podAnnotator = podAnnotator;
+        this.inMemoryDecisions = inMemoryDecisions;
+        this.tracing = WebhookTracing.noop();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param denyEviction  Indicates whether the evictions of the Strimzi pods are denied
+     */
+    private RestartAnnotator(boolean denyEviction) {
+        this.denyEviction = denyEviction;
+    }
+
+    /**
+     * Annotates the pod for restart if it is not annotated yet.
+     *
+     * @param metadata  Metadata of the pod which should be annotated
+     * @param dryRun    Flag indicating whether this is a dry-run request
+     *
+     * @return  DRAINABLE if the pod is annotated or was already annotated. Otherwise, the reason why it was not
+     *          annotated.
+     */
+    public ValidatingWebhook.PodCheck annotatePodForRestart(ObjectMeta metadata, boolean dryRun) {
+        return annotatePodForRestart(metadata, dryRun, Deadline.none());
+    }
+
+    /**
+     * Annotates the pod for restart if it is not annotated yet. The webhook waits for the patch only until the
+     * deadline. The pod is not annotated when the Kafka resource cache knows that annotating it would be futile or when
+     * the cluster roll gate is enabled and the Kafka cluster of the pod has too many pending rolling updates. The gate is
+     * used only when the evictions are denied, because the allowed evictions disrupt the pods regardless of the gate.
+     *
+     * @param metadata  Metadata of the pod which should be annotated
+     * @param dryRun    Flag indicating whether this is a dry-run request
+     * @param deadline  Deadline by which the request has to be answered
+     *
+     * @return  DRAINABLE if the pod is annotated or was already annotated. Otherwise, the reason why it was not
+     *          annotated.
+     */
+    public ValidatingWebhook.PodCheck annotatePodForRestart(ObjectMeta metadata, boolean dryRun, Deadline deadline) {
+        String name = metadata.getName();
+        String namespace = metadata.getNamespace();
+        boolean gated = denyEviction && !dryRun && rollGate != null && rollGate.isEnabled();
+
+        if (metadata.getAnnotations() == null
+                || !"true".equals(metadata.getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION))) {
+            ValidatingWebhook.PodCheck admission = admitRestart(metadata, gated);
+
+            if (admission != ValidatingWebhook.PodCheck.DRAINABLE) {
+                return admission;
+            }
+
+            LOG.info("Pod {} in namespace {} should be annotated for restart", name, namespace);
+            patchPod(metadata, dryRun, deadline);
+        } else {
+            LOG.info("Pod {} in namespace {} is already annotated for restart", name, namespace);
+
+            if (gated) {
+                rollGate.record(metadata);
+            }
+        }
+
+        return ValidatingWebhook.PodCheck.DRAINABLE;
+    }
+
+    /**
+     * Checks whether the pod which is not annotated yet should be annotated for restart now
+     *
+     * @param metadata  Metadata of the pod
+     * @param gated     Indicates whether the pod has to pass the cluster roll gate
+     *
+     * @return  DRAINABLE if the pod should be annotated. Otherwise, the reason why it should not be annotated.
+     */
+    private ValidatingWebhook.PodCheck admitRestart(ObjectMeta metadata, boolean gated) {
+        KafkaResourceCache.SkipReason skipReason = kafkaCache != null ? kafkaCache.skipReason(metadata) : null;
+
+        if (skipReason == KafkaResourceCache.SkipReason.RECONCILIATION_PAUSED) {
+            return ValidatingWebhook.PodCheck.RECONCILIATION_PAUSED;
+        } else if (skipReason == KafkaResourceCache.SkipReason.RECONCILIATION_PENDING) {
+            return ValidatingWebhook.PodCheck.RECONCILIATION_PENDING;
+        } else if (gated && !rollGate.tryAcquire(metadata)) {
+            if (retryAfter != null) {
+                retryAfter.deferred(metadata.getNamespace(), metadata.getName(), rollGate.pendingPods(metadata));
+            }
+
+            return ValidatingWebhook.PodCheck.DEFERRED;
+        } else {
+            return ValidatingWebhook.PodCheck.DRAINABLE;
+        }
+    }
+
+    /**
+     * Patches the pod with the rolling update annotation. The patch contains only the annotation, so the current pod
+     * does not need to be fetched and no other changes done to the pod in the meantime are overwritten.
+     *
+     * When the eviction is denied and the annotation queue is enabled, the pod is handed over to the queue and the
+     * webhook does not wait for the patch. When the queue is full, the pod is patched right away. The webhook waits for
+     * the patch only until the deadline. After that, the patch finishes in the background. When the pod could not be
+     * annotated by the queue or right away, it is forgotten so that the next eviction checks and annotates it again.
+     *
+     * @param metadata      Metadata of the pod
+     * @param dryRun        Flag indicating whether this is a dry-run request
+     * @param deadline      Deadline by which the request has to be answered
+     */
+    private void patchPod(ObjectMeta metadata, boolean dryRun, Deadline deadline)   {
+        String name = metadata.getName();
+        String namespace = metadata.getNamespace();
+
+        if (dryRun) {
+            LOG.info("Pod {} in namespace {} was not patched because webhook is in dry-run mode", name, namespace);
+        } else if (denyEviction && annotationQueue != null && annotationQueue.isEnabled() && annotationQueue.submit(namespace, name, () -> annotationFailed(metadata))) {
+            LOG.info("Pod {} in namespace {} was queued for patching", name, namespace);
+        } else if (annotateWithin(metadata, deadline)) {
+            LOG.info("Pod {} in namespace {} was patched", name, namespace);
+        }
+    }
+
+    /**
+     * Annotates the pod and waits for the patch only until the deadline. The patch is traced in its own span. When the
+     * pod does not exist or the patch fails, the pod is forgotten. When the deadline expires, the patch finishes in the
+     * background and the pod is kept.
+     *
+     * @param metadata      Metadata of the pod
+     * @param deadline      Deadline by which the request has to be answered
+     *
+     * @return  True if the pod was patched before the deadline. False otherwise.
+     */
+    private boolean annotateWithin(ObjectMeta metadata, Deadline deadline) {
+        String name = metadata.getName();
+        String namespace = metadata.getNamespace();
+        Span span = tracing.start("patch-pod", namespace, name);
+
+        try (Scope ignored = span.makeCurrent()) {
+            boolean patched = deadlinePolicy == null
+                    ? podAnnotator.annotate(namespace, name)
+                    : deadlinePolicy.awaitWithin(deadline, () -> podAnnotator.annotate(namespace, name));
+
+            if (!patched) {
+                annotationFailed(metadata);
+            }
+
+            tracing.endCall(span, patched ? "patched" : "not-found", null);
+            return patched;
+        } catch (DeadlineExceededException e) {
+            LOG.warn("Pod {} in namespace {} was not patched before the deadline. The patch will finish in the background.", name, namespace);
+            tracing.endCall(span, "deadline-exceeded", null);
+            return false;
+        } catch (RuntimeException e) {
+            annotationFailed(metadata);
+            tracing.endCall(span, "error", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Forgets the pod which could not be annotated for restart. The decision remembered for the pod is removed, the pod
+     * is removed from the open drain sessions (if enabled), where it was already marked as annotated, and it is
+     * released from the cluster roll gate (if enabled), so that it does not block the other pods of its Kafka cluster.
+     * The next eviction of the pod is then checked using the Kubernetes API and the pod is annotated again.
+     *
+     * @param metadata  Metadata of the pod
+     */
+    private void annotationFailed(ObjectMeta metadata) {
+        if (inMemoryDecisions != null) {
+            inMemoryDecisions.forget(metadata.getNamespace(), metadata.getName());
+        }
+
+        if (drainSessions != null && drainSessions.isEnabled()) {
+            drainSessions.forget(metadata.getNamespace(), metadata.getName());
+        }
+
+        if (rollGate != null && rollGate.isEnabled()) {
+            rollGate.release(metadata);
+        }
+    }
+}
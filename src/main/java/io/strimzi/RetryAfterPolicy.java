@@ -0,0 +1,230 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Optional policy computing the retry-after hints of the denied evictions. Without the hint, the tools draining the
+ * nodes retry the evictions on their own fixed schedule and each retry costs a full webhook round trip. With the policy
+ * enabled, the {@code details.retryAfterSeconds} field of the deny response tells the clients honoring it how long the
+ * roll of the pod is expected to take. Pods which will be rolled get the expected duration of a roll minus the time
+ * since their eviction was denied for the first time. Pods deferred by the cluster roll gate get the expected duration
+ * of a roll multiplied by the number of pods of their Kafka cluster which are pending before them. Pods of Kafka
+ * clusters with paused reconciliation get the maximal hint.
+ *
+ * The hints are always kept between the configured minimum and maximum. The time of the first denial is kept in
+ * memory for each pod and forgotten once its eviction is allowed or when it is not retried for longer than twice the
+ * maximal hint.
+ */
+@ApplicationScoped
+public class RetryAfterPolicy {
+    private static final Logger LOG = LoggerFactory.getLogger(RetryAfterPolicy.class);
+
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.retry.after";
+
+    @Inject
+    MeterRegistry registry;
+
+    private final boolean enabled;
+    private final long rollSeconds;
+    private final long minSeconds;
+    private final long maxSeconds;
+    private final LongSupplier clock;
+
+    // Denied pods by their namespace and name
+    private final Map<String, DeniedPod> deniedPods = new ConcurrentHashMap<>();
+
+    private DistributionSummary hints;
+
+    /**
+     * Constructs the policy. This is the default constructor used in production which gets the values from quarkus
+     * configuration.
+     */
+    @SuppressWarnings("unused")
+    public RetryAfterPolicy() {
+        this(ConfigProvider.getConfig().getOptionalValue("strimzi.retry.after.enabled", Boolean.class).orElse(false),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.retry.after.roll.seconds", Long.class).orElse(120L),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.retry.after.min.seconds", Long.class).orElse(5L),
+                ConfigProvider.getConfig().getOptionalValue("strimzi.retry.after.max.seconds", Long.class).orElse(300L),
+                System::nanoTime);
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param registry      Meter registry
+     * @param enabled       Enables / disables the retry-after hints
+     * @param rollSeconds   Expected duration of the roll of a single pod in seconds
+     * @param minSeconds    Minimal retry-after hint in seconds
+     * @param maxSeconds    Maximal retry-after hint in seconds
+     * @param clock         Clock returning the current time in nanoseconds
+     */
+    /* test */ RetryAfterPolicy(MeterRegistry registry, boolean enabled, long rollSeconds, long minSeconds, long maxSeconds, LongSupplier clock) {
+        this(enabled, rollSeconds, minSeconds, maxSeconds, clock);
+        this.registry = registry;
+        initializeMetrics();
+    }
+
+    /**
+     * Private constructor used to set the right values which is called from production and from tests.
+     *
+     * @param enabled       Enables / disables the retry-after hints
+     * @param rollSeconds   Expected duration of the roll of a single pod in seconds
+     * @param minSeconds    Minimal retry-after hint in seconds
+     * @param maxSeconds    Maximal retry-after hint in seconds
+     * @param clock         Clock returning the current time in nanoseconds
+     */
+    private RetryAfterPolicy(boolean enabled, long rollSeconds, long minSeconds, long maxSeconds, LongSupplier clock) {
+        this.enabled = enabled;
+        this.rollSeconds = rollSeconds;
+        this.minSeconds = minSeconds;
+        this.maxSeconds = Math.max(minSeconds, maxSeconds);
+        this.clock = clock;
+
+        if (!this.enabled) {
+            LOG.info("Retry-after hints are disabled");
+        }
+    }
+
+    @PostConstruct
+    /* test */ void initializeMetrics() {
+        hints = DistributionSummary.builder(METRIC_PREFIX + ".hints")
+                .description("Retry-after hints sent in the responses denying the evictions")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    /**
+     * @return  True if the retry-after hints are enabled. False otherwise.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records the number of pods of the Kafka cluster which are pending before the pod deferred by the cluster roll
+     * gate
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param backlog       Number of pods pending before the pod
+     */
+    public void deferred(String namespace, String name, int backlog) {
+        if (enabled) {
+            long now = clock.getAsLong();
+            // The roll of the deferred pod did not start yet
+            deniedPods.put(namespace + "/" + name, new DeniedPod(now, now, backlog));
+        }
+    }
+
+    /**
+     * Forgets the pod once its eviction is allowed
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     */
+    public void forget(String namespace, String name) {
+        if (enabled) {
+            deniedPods.remove(namespace + "/" + name);
+        }
+    }
+
+    /**
+     * Computes the retry-after hint for the webhook response. Pods with allowed eviction are forgotten.
+     *
+     * @param requestNamespace  Namespace of the admission request used when the eviction does not have any
+     * @param eviction          Eviction request or null if the request is not for an Eviction
+     * @param decision          Decision about the request
+     *
+     * @return  The retry-after hint in seconds or null if there should be none
+     */
+    public Integer retryAfterSeconds(String requestNamespace, ValidatingWebhook.EvictionRequest eviction, ValidatingWebhook.Decision decision) {
+        if (!enabled || eviction == null || eviction.name() == null) {
+            return null;
+        }
+
+        String namespace = eviction.namespace() != null ? eviction.namespace() : requestNamespace;
+
+        if (decision.allowed) {
+            forget(namespace, eviction.name());
+            return null;
+        } else {
+            return retryAfterSeconds(namespace, eviction.name(), decision);
+        }
+    }
+
+    /**
+     * Computes the retry-after hint for the denied eviction
+     *
+     * @param namespace     Namespace of the pod
+     * @param name          Name of the pod
+     * @param decision      Decision about the eviction
+     *
+     * @return  The retry-after hint in seconds or null if the hints are disabled
+     */
+    /* test */ Integer retryAfterSeconds(String namespace, String name, ValidatingWebhook.Decision decision) {
+        if (!enabled) {
+            return null;
+        }
+
+        long now = clock.getAsLong();
+        forgetExpired(now);
+
+        DeniedPod pod = deniedPods.compute(namespace + "/" + name, (key, denied) -> denied != null ? new DeniedPod(denied.since(), now, denied.backlog()) : new DeniedPod(now, now, 0));
+
+        long seconds = switch (decision) {
+            case RECONCILIATION_PAUSED -> maxSeconds;
+            case DEFERRED -> rollSeconds * Math.max(1, pod.backlog());
+            default -> rollSeconds - TimeUnit.NANOSECONDS.toSeconds(now - pod.since());
+        };
+
+        int hint = (int) Math.min(Math.max(seconds, minSeconds), maxSeconds);
+        LOG.debug("Eviction of Pod {} in namespace {} should be retried after {} seconds", name, namespace, hint);
+        hints.record(hint);
+
+        return hint;
+    }
+
+    /**
+     * Forgets the pods which were not denied for longer than twice the maximal hint
+     *
+     * @param now   Current time in nanoseconds
+     */
+    private void forgetExpired(long now) {
+        long expiryNanos = TimeUnit.SECONDS.toNanos(2 * maxSeconds);
+        deniedPods.values().removeIf(pod -> now - pod.lastDenied() > expiryNanos);
+    }
+
+    /**
+     * @return  Number of pods which are remembered by the policy
+     */
+    /* test */ int deniedPods() {
+        return deniedPods.size();
+    }
+
+    /**
+     * Pod with denied eviction
+     *
+     * @param since         Time when the eviction was denied for the first time since the pod was last deferred in
+     *                      nanoseconds
+     * @param lastDenied    Time when the eviction was denied for the last time in nanoseconds
+     * @param backlog       Number of pods of the Kafka cluster pending before the pod when it was deferred
+     */
+    private record DeniedPod(long since, long lastDenied, int backlog) {
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exponential backoff with jitter used between the retries of the Kubernetes API calls. The backoff doubles with every
+ * attempt and its second half is random, so that the requests throttled at the same time are not all retried at the
+ * same time again. When the Kubernetes API server told the client how long to wait before retrying, the backoff is
+ * never shorter than that.
+ */
+final class RetryBackoff {
+    // Caps the exponent to avoid overflows for large numbers of retries
+    private static final int MAX_EXPONENT = 16;
+
+    private RetryBackoff() {
+        // Utility class
+    }
+
+    /**
+     * Calculates the backoff before the next retry
+     *
+     * @param initialMs     Initial backoff in milliseconds
+     * @param attempt       Number of the failed attempts before this backoff (starting at 0)
+     * @param failure       Failure of the last attempt
+     *
+     * @return  Backoff in milliseconds
+     */
+    static long delayMs(long initialMs, int attempt, Throwable failure) {
+        long exponentialMs = initialMs << Math.min(attempt, MAX_EXPONENT);
+        long halfMs = exponentialMs / 2;
+        long jitteredMs = exponentialMs - halfMs + ThreadLocalRandom.current().nextLong(halfMs + 1);
+
+        return Math.max(jitteredMs, retryAfterMs(failure));
+    }
+
+    /**
+     * Gets the time after which the request should be retried from the failure. The Kubernetes API server sends it in
+     * the Retry-After header and in the Status details of the 429 responses. The Kubernetes client exposes only the
+     * Status.
+     *
+     * @param failure   Failure of the request
+     *
+     * @return  Time in milliseconds after which the request should be retried or 0 if it is not known
+     */
+    static long retryAfterMs(Throwable failure) {
+        if (failure instanceof KubernetesClientException e
+                && e.getStatus() != null
+                && e.getStatus().getDetails() != null
+                && e.getStatus().getDetails().getRetryAfterSeconds() != null) {
+            return TimeUnit.SECONDS.toMillis(e.getStatus().getDetails().getRetryAfterSeconds());
+        }
+
+        return 0;
+    }
+
+    /**
+     * Checks whether the request failed with a transient error and can be retried if it is idempotent. The I/O errors,
+     * throttled requests, and server errors are transient.
+     *
+     * @param failure   Failure of the request
+     *
+     * @return  True if the failure is transient. False otherwise.
+     */
+    static boolean isTransient(KubernetesClientException failure) {
+        return failure.getCode() == 0 ? failure.getCause() instanceof IOException : isTransient(failure.getCode());
+    }
+
+    /**
+     * Checks whether the HTTP status code of the response is a transient error
+     *
+     * @param code  HTTP status code of the response
+     *
+     * @return  True if the status code is a transient error. False otherwise.
+     */
+    static boolean isTransient(int code) {
+        return code == 429 || code >= 500;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent executions of the same operation. When an operation with a given key is already running, other
+ * callers with the same key do not run it again and wait for the result of the running operation instead. Once the
+ * operation completes, the next caller with the same key runs it again.
+ *
+ * @param <K>   Type of the key identifying the operation
+ * @param <V>   Type of the result of the operation
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong(0);
+
+    /**
+     * Runs the operation or waits for the result of the same operation which is already running.
+     *
+     * @param key           Key identifying the operation
+     * @param operation     The operation
+     *
+     * @return  Result of the operation
+     */
+    public V execute(K key, Supplier<V> operation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existingFlight = inFlight.putIfAbsent(key, flight);
+
+        if (existingFlight != null) {
+            coalesced.incrementAndGet();
+            return await(existingFlight);
+        }
+
+        try {
+            V result = operation.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Checks whether the operation with the given key is running.
+     *
+     * @param key   Key identifying the operation
+     *
+     * @return  True if the operation is running. False otherwise.
+     */
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    /**
+     * Waits for the result of the running operation. Exceptions thrown by the operation are re-thrown to all callers.
+     *
+     * @param flight    Future with the result of the running operation
+     *
+     * @return  Result of the operation
+     */
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return  Number of callers which did not run the operation and waited for the result of an operation which was
+     *          already running
+     */
+    public long coalescedCount() {
+        return coalesced.get();
+    }
+}
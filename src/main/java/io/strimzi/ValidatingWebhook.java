@@ -4,25 +4,22 @@
  */
 package io.strimzi;
 
-import io.fabric8.kubernetes.api.model.Pod;
-import io.fabric8.kubernetes.api.model.StatusBuilder;
-import io.fabric8.kubernetes.api.model.admission.v1.AdmissionRequest;
-import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReview;
-import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReviewBuilder;
-import io.fabric8.kubernetes.api.model.policy.v1.Eviction;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import org.eclipse.microprofile.config.inject.ConfigProperty;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.smallrye.common.annotation.NonBlocking;
+import io.smallrye.mutiny.Uni;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.BadRequestException;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.MediaType;
-import java.util.HashMap;
+import java.io.IOException;
 import java.util.Map;
 import java.util.regex.Pattern;
 import java.util.Arrays;
@@ -38,23 +35,22 @@ public class ValidatingWebhook {
     private static final Pattern ZOOKEEPER_PATTERN = Pattern.compile(".+-zookeeper");
     private static final Pattern KAFKA_PATTERN = Pattern.compile(".+-kafka");
     private static final String STRIMZI_LABEL_KEY = "strimzi.io/name";
+    static final String MANUAL_RU_ANNOTATION = "strimzi.io/manual-rolling-update";
 
-    @ConfigProperty(name = "strimzi.drain.kafka")
-    boolean drainKafka;
-
-    @ConfigProperty(name = "strimzi.drain.zookeeper")
-    boolean drainZooKeeper;
+    @Inject
+    EvictionDecider evictionDecider;
 
-    @ConfigProperty(name = "strimzi.deny.eviction")
-    boolean denyEviction;
+    @Inject
+    RetryAfterPolicy retryAfter;
 
-    @ConfigProperty(name = "strimzi.drain.namespaces")
-    Optional<String> drainNamespaces;
+    @Inject
+    WebhookExecutor webhookExecutor;
 
     @Inject
-    KubernetesClient client;
+    WebhookMetrics webhookMetrics;
 
-    private List<String> parsedDrainNamespaces = Collections.emptyList();
+    @Inject
+    WebhookTracing tracing;
 
     // Default constructor => used in production
     @SuppressWarnings("unused")
@@ -63,59 +59,45 @@ public class ValidatingWebhook {
 
     // Parametrized constructor => used in tests
     public ValidatingWebhook(KubernetesClient client, boolean drainKafka, boolean drainZooKeeper, boolean denyEviction) {
-        this.client = client;
-        this.drainZooKeeper = drainZooKeeper;
-        this.drainKafka = drainKafka;
-        this.denyEviction = denyEviction;
-        this.drainNamespaces = Optional.empty();
-        initializeNamespaces();
+        this(client, drainKafka, drainZooKeeper, denyEviction, null);
     }
 
     // Parametrized constructor for tests with namespace filtering
     public ValidatingWebhook(KubernetesClient client, boolean drainKafka, boolean drainZooKeeper, boolean denyEviction, String drainNamespaces) {
-        this.client = client;
-        this.drainZooKeeper = drainZooKeeper;
-        this.drainKafka = drainKafka;
-        this.denyEviction = denyEviction;
-        this.drainNamespaces = Optional.ofNullable(drainNamespaces);
-        initializeNamespaces();
+        this.webhookExecutor = new WebhookExecutor(WebhookExecutor.ExecutionMode.WORKER_POOL, Runnable::run);
+        this.webhookMetrics = new WebhookMetrics(new SimpleMeterRegistry());
+        this.tracing = WebhookTracing.noop();
+        this.evictionDecider = new EvictionDecider(client, webhookExecutor, drainKafka, drainZooKeeper, denyEviction, Optional.ofNullable(drainNamespaces));
     }
 
-    @PostConstruct
-    public void initializeNamespaces() {
-        if (!drainNamespaces.isPresent() || drainNamespaces.get().trim().isEmpty() || drainNamespaces.get().trim().equals("*")) {
-            parsedDrainNamespaces = Collections.emptyList();
-            LOG.info("Drain Cleaner will watch all namespaces");
+    /**
+     * Parses the comma-separated list of namespaces from the strimzi.drain.namespaces option.
+     *
+     * @param drainNamespaces   Value of the strimzi.drain.namespaces option
+     *
+     * @return  List of namespaces. Empty list means all namespaces.
+     */
+    static List<String> parseNamespaces(Optional<String> drainNamespaces) {
+        if (drainNamespaces.isEmpty() || drainNamespaces.get().trim().isEmpty() || drainNamespaces.get().trim().equals("*")) {
+            return Collections.emptyList();
         } else {
-            parsedDrainNamespaces = Arrays.stream(drainNamespaces.get().split(","))
+            return Arrays.stream(drainNamespaces.get().split(","))
                     .map(String::trim)
                     .filter(ns -> !ns.isEmpty())
                     .collect(Collectors.toList());
-            LOG.info("Drain Cleaner will watch namespaces: {}", parsedDrainNamespaces);
-        }
-    }
-
-    private EvictionRequest extractEviction(AdmissionRequest request)    {
-        if (request.getObject() instanceof Eviction eviction) {
-            LOG.debug("Received Eviction request of version v1");
-
-            // Extract the UID from preconditions if set
-            String uid = eviction.getDeleteOptions() != null && eviction.getDeleteOptions().getPreconditions() != null ? eviction.getDeleteOptions().getPreconditions().getUid() : null;
-
-            return new EvictionRequest(eviction.getMetadata().getName(), eviction.getMetadata().getNamespace(), uid);
-        } else if (request.getObject() instanceof io.fabric8.kubernetes.api.model.policy.v1beta1.Eviction eviction) {
-            LOG.debug("Received Eviction request of version v1beta1");
-
-            // Extract the UID from preconditions if set
-            String uid = eviction.getDeleteOptions() != null && eviction.getDeleteOptions().getPreconditions() != null ? eviction.getDeleteOptions().getPreconditions().getUid() : null;
-
-            return new EvictionRequest(eviction.getMetadata().getName(), eviction.getMetadata().getNamespace(), uid);
-        } else {
-            return null;
         }
     }
 
-    private boolean matchingLabel(Map<String, String> labels) {
+    /**
+     * Checks whether the pod labels belong to a Strimzi Kafka or ZooKeeper pod which should be drained.
+     *
+     * @param labels            Labels of the pod
+     * @param drainKafka        Indicates whether Kafka pods should be drained
+     * @param drainZooKeeper    Indicates whether ZooKeeper pods should be drained
+     *
+     * @return  True if the pod should be drained. False otherwise.
+     */
+    static boolean matchingLabel(Map<String, String> labels, boolean drainKafka, boolean drainZooKeeper) {
         if (labels != null && labels.get(STRIMZI_LABEL_KEY) != null
                 && "Kafka".equals(labels.get("strimzi.io/kind"))) {
             return drainKafka && KAFKA_PATTERN.matcher(labels.get(STRIMZI_LABEL_KEY)).matches()
@@ -125,130 +107,97 @@ public class ValidatingWebhook {
         }
     }
 
-    private boolean matchingUuid(String evictionUuid, String podUuid) {
-        if (evictionUuid == null || evictionUuid.equals(podUuid))   {
-            return true;
-        } else {
-            LOG.warn("The UUID {} from the eviction request does not match the UUID of the current pod {}. The request might be old and should be ignored.", evictionUuid, podUuid);
-            return false;
-        }
-    }
-
-    private boolean isNamespaceWatched(String namespace) {
-        return parsedDrainNamespaces.isEmpty() || parsedDrainNamespaces.contains(namespace);
-    }
-
+    /**
+     * Handles the AdmissionReview requests sent by the Kubernetes API server. The request is decoded and the response
+     * encoded using the streaming AdmissionReview codec without binding the whole AdmissionReview. The request is
+     * handled according to the execution model configured in the webhook executor.
+     *
+     * @param body  JSON with the AdmissionReview request
+     *
+     * @return  Uni with the JSON with the AdmissionReview response
+     */
     @POST
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public AdmissionReview webhook(AdmissionReview review) {
-        LOG.debug("Received AdmissionReview request: {}", review);
-
-        AdmissionRequest request = review.getRequest();
-        EvictionRequest eviction = extractEviction(request);
-
-        if (eviction != null) {
-            String name = eviction.name();
-            String namespace = eviction.namespace();
-
-            if (namespace == null) {
-                // Some applications (see https://github.com/strimzi/drain-cleaner/issues/34) might send the eviction
-                // request without the namespace. In such case, we use the namespace form the AdmissionRequest.
-                LOG.warn("There is no namespace in the Eviction request - trying to use namespace of the Admission request");
-                namespace = request.getNamespace();
+    @NonBlocking
+    public Uni<byte[]> webhook(byte[] body) {
+        long start = System.nanoTime();
+
+        return webhookExecutor.execute(() -> {
+            AdmissionReviewCodec.DecodedRequest request;
+            Span span = tracing.start("decode-admission-review");
+
+            try {
+                request = AdmissionReviewCodec.decode(body);
+                span.end();
+            } catch (IOException e) {
+                LOG.warn("Failed to decode the AdmissionReview request", e);
+                tracing.endReview(span, Decision.INVALID.outcome, e);
+                webhookMetrics.recordRequest(start, Decision.INVALID.outcome);
+                return Uni.createFrom().failure(new BadRequestException("Failed to decode the AdmissionReview request", e));
             }
 
-            if (name == null || namespace == null) {
-                LOG.warn("Failed to decode pod name or namespace from the eviction webhook (pod: {}, namespace: {})", name, namespace);
-            } else if (!isNamespaceWatched(namespace)) {
-                LOG.debug("Ignoring eviction request for Pod {} in namespace {} - namespace not in watch list", name, namespace);
-            } else {
-                Pod pod = client.pods().inNamespace(namespace).withName(name).get();
-
-                if (pod != null) {
-                    if (matchingLabel(pod.getMetadata().getLabels())) {
-                        LOG.info("Received eviction webhook for Pod {} in namespace {}", name, namespace);
-
-                        if (matchingUuid(eviction.uid(), pod.getMetadata().getUid())) {
-                            annotatePodForRestart(pod, request.getDryRun());
-
-                            // The Pod should be rolled by the Strimzi Cluster Operator
-                            //     => depending on the configuration, we deny or allow the eviction
-                            if (denyEviction) {
-                                LOG.info("Denying request for eviction of Pod {} in namespace {}", name, namespace);
-                                return denyRequest(request);
-                            } else {
-                                LOG.info("Allowing request for eviction of Pod {} in namespace {}", name, namespace);
-                                return allowRequest(request);
-                            }
-                        }
-                    } else {
-                        LOG.info("Received eviction event which does not match any relevant pods.");
-                    }
-                } else {
-                    LOG.warn("No pod has been found with name {} in namespace {}", name, namespace);
-                }
+            LOG.debug("Received AdmissionReview request: {}", request);
+
+            if (request.eviction() != null) {
+                webhookMetrics.recordEviction(request.eviction().version());
             }
-        } else {
-            LOG.warn("Weird, this does not seem to be an Eviction webhook");
-        }
 
-        // Does not seem like a request for us, but we will allow it if some other tool makes some sense of it
-        return allowRequest(request);
+            return evictionDecider.review(request.namespace(), request.dryRun(), request.eviction())
+                    .map(decision -> {
+                        // Dry-run requests are recorded separately regardless of their decision
+                        webhookMetrics.recordRequest(start, request.dryRun() ? "dry-run" : decision.outcome);
+                        Integer retryAfterSeconds = retryAfter != null ? retryAfter.retryAfterSeconds(request.namespace(), request.eviction(), decision) : null;
+                        return decision.allowed ? AdmissionReviewCodec.allow(request.uid()) : AdmissionReviewCodec.deny(request.uid(), decision.message, retryAfterSeconds);
+                    });
+        });
     }
 
-    private AdmissionReview allowRequest(AdmissionRequest request) {
-        return new AdmissionReviewBuilder()
-                .withNewResponse()
-                    .withUid(request.getUid())
-                    .withAllowed(true)
-                .endResponse()
-                .build();
+    record EvictionRequest(String name, String namespace, String uid, String version) {
     }
 
-    private AdmissionReview denyRequest(AdmissionRequest request) {
-        return new AdmissionReviewBuilder()
-                .withNewResponse()
-                    .withUid(request.getUid())
-                    .withAllowed(false)
-                    .withStatus(new StatusBuilder().withCode(500).withMessage("The pod will be rolled by the Strimzi Cluster Operator").build())
-                .endResponse()
-                .build();
+    record InFlightEviction(String namespace, String name, String uid, boolean dryRun) {
     }
 
-    void annotatePodForRestart(Pod pod, boolean dryRun) {
-        String name = pod.getMetadata().getName();
-        String namespace = pod.getMetadata().getNamespace();
-        if (pod.getMetadata() != null) {
-            if (pod.getMetadata().getAnnotations() == null) {
-                pod.getMetadata().setAnnotations(Map.of("strimzi.io/manual-rolling-update", "true"));
-                LOG.info("Pod {} in namespace {} should be annotated for restart", name, namespace);
-                patchPod(name, namespace, pod, dryRun);
-            } else if (!"true".equals(pod.getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"))) {
-                Map<String, String> newAnnos = new HashMap<>(pod.getMetadata().getAnnotations());
-                newAnnos.put("strimzi.io/manual-rolling-update", "true");
-                pod.getMetadata().setAnnotations(newAnnos);
-                LOG.info("Pod {} in namespace {} should be annotated for restart", name, namespace);
-                patchPod(name, namespace, pod, dryRun);
-            } else {
-                LOG.info("Pod {} in namespace {} is already annotated for restart", name, namespace);
-            }
-
-        } else {
-            LOG.debug("Pod {} in namespace {} is not a Strimzi pod", name, namespace);
+    /**
+     * Decisions about the webhook requests. The outcome is used as a tag of the webhook metrics.
+     */
+    enum Decision {
+        ALLOWED(true, "allowed"),
+        DENIED(false, "denied"),
+        DEFERRED(false, "deferred", "The pod will be rolled by the Strimzi Cluster Operator once the other pending rolling updates of its Kafka cluster are finished"),
+        RECONCILIATION_PAUSED(false, "reconciliation-paused", "The pod cannot be rolled because the reconciliation of its Kafka cluster is paused"),
+        RECONCILIATION_PENDING(false, "reconciliation-pending", "The pod will be annotated for restart once the Strimzi Cluster Operator reconciles the latest changes of the Kafka or KafkaNodePool resource of its cluster"),
+        IGNORED_NAMESPACE(true, "ignored-namespace"),
+        NOT_FOUND(true, "not-found"),
+        UID_MISMATCH(true, "uid-mismatch"),
+        INVALID(true, "invalid");
+
+        final boolean allowed;
+        final String outcome;
+        final String message;
+
+        Decision(boolean allowed, String outcome) {
+            this(allowed, outcome, null);
         }
-    }
 
-
-    void patchPod(String name, String namespace, Pod pod, boolean dryRun)   {
-        if (!dryRun) {
-            client.pods().inNamespace(namespace).withName(name).patch(pod);
-            LOG.info("Pod {} in namespace {} was patched", name, namespace);
-        } else {
-            LOG.info("Pod {} in namespace {} was not patched because webhook is in dry-run mode", name, namespace);
+        Decision(boolean allowed, String outcome, String message) {
+            this.allowed = allowed;
+            this.outcome = outcome;
+            this.message = message;
         }
     }
 
-    record EvictionRequest(String name, String namespace, String uid) {
+    /**
+     * Results of checking the evicted pod using the Kubernetes API
+     */
+    enum PodCheck {
+        DRAINABLE,
+        DEFERRED,
+        RECONCILIATION_PAUSED,
+        RECONCILIATION_PENDING,
+        NOT_DRAINABLE,
+        NOT_FOUND,
+        UID_MISMATCH
     }
-}
\ No newline at end of file
+}
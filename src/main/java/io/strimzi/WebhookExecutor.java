@@ -0,0 +1,166 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.quarkus.runtime.ShutdownEvent;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking parts of the webhook according to the configured execution model:
+ *
+ *   - worker-pool: the whole request is handled on the Quarkus worker thread pool. This is the default.
+ *   - virtual-threads: the whole request is handled on a new virtual thread. Virtual threads waiting for the
+ *     Kubernetes API do not block any platform thread, so the number of in-flight requests is not limited by the size
+ *     of the worker pool.
+ *   - event-loop: the request is decoded and decided on the Vert.x event loop whenever the decision does not need any
+ *     call to the Kubernetes API (e.g. from the pod filter, the eviction decision index, or the decision memo). Only
+ *     the requests which need the Kubernetes API are handed over to the worker thread pool.
+ */
+@ApplicationScoped
+public class WebhookExecutor {
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookExecutor.class);
+
+    private final ExecutionMode mode;
+    private final Executor workerPool;
+    private final ExecutorService virtualThreads;
+
+    /**
+     * Constructs the webhook executor. This is the default constructor used in production which gets the values from
+     * quarkus configuration.
+     */
+    @SuppressWarnings("unused")
+    public WebhookExecutor() {
+        this(ExecutionMode.fromValue(ConfigProvider.getConfig().getOptionalValue("strimzi.webhook.execution.mode", String.class).orElse("worker-pool")),
+                null);
+    }
+
+    /**
+     * Constructor used to set the right values which is called from production and from tests.
+     *
+     * @param mode          Execution model of the webhook
+     * @param workerPool    Executor used as the worker pool or null to use the Quarkus worker pool
+     */
+    WebhookExecutor(ExecutionMode mode, Executor workerPool) {
+        this.mode = mode;
+        this.workerPool = workerPool;
+        this.virtualThreads = mode == ExecutionMode.VIRTUAL_THREADS
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("drain-cleaner-webhook-", 0).factory())
+                : null;
+
+        LOG.info("Webhook will use the {} execution model", mode.value);
+    }
+
+    /**
+     * Stops the virtual thread executor when Quarkus is stopping
+     *
+     * @param ev    Shutdown event
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        stop();
+    }
+
+    /**
+     * Stops the virtual thread executor (if used)
+     */
+    public void stop() {
+        if (virtualThreads != null) {
+            virtualThreads.shutdown();
+        }
+    }
+
+    /**
+     * @return  Execution model of the webhook
+     */
+    public ExecutionMode mode() {
+        return mode;
+    }
+
+    /**
+     * Runs the whole request according to the execution model. In the event-loop execution model, the request is run
+     * right away on the calling thread and is expected to offload its blocking parts using {@link #offload(Supplier)}.
+     *
+     * @param request   Handler of the request
+     *
+     * @param <T>   Type of the response
+     *
+     * @return  Uni with the response
+     */
+    public <T> Uni<T> execute(Supplier<Uni<? extends T>> request) {
+        return switch (mode) {
+            case EVENT_LOOP -> Uni.createFrom().<T>deferred(request);
+            case VIRTUAL_THREADS -> Uni.createFrom().<T>deferred(request).runSubscriptionOn(virtualThreads);
+            case WORKER_POOL -> Uni.createFrom().<T>deferred(request).runSubscriptionOn(workerPool());
+        };
+    }
+
+    /**
+     * Runs the blocking operation. In the event-loop execution model, it is run on the worker thread pool. In the
+     * other execution models, the request is already running on a thread which can block, so it is run right away.
+     *
+     * @param operation     Blocking operation
+     *
+     * @param <T>   Type of the result
+     *
+     * @return  Uni with the result of the operation
+     */
+    public <T> Uni<T> offload(Supplier<T> operation) {
+        if (mode == ExecutionMode.EVENT_LOOP) {
+            return Uni.createFrom().item(operation).runSubscriptionOn(workerPool());
+        } else {
+            return Uni.createFrom().item(operation);
+        }
+    }
+
+    private Executor workerPool() {
+        // The Quarkus worker pool is registered in Mutiny when Quarkus is starting
+        return workerPool != null ? workerPool : Infrastructure.getDefaultWorkerPool();
+    }
+
+    /**
+     * Execution models supported by the webhook
+     */
+    public enum ExecutionMode {
+        WORKER_POOL("worker-pool"),
+        VIRTUAL_THREADS("virtual-threads"),
+        EVENT_LOOP("event-loop");
+
+        private final String value;
+
+        ExecutionMode(String value) {
+            this.value = value;
+        }
+
+        /**
+         * Parses the execution mode from the configuration value
+         *
+         * @param value     Configuration value
+         *
+         * @return  Execution mode
+         */
+        public static ExecutionMode fromValue(String value) {
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+
+            for (ExecutionMode mode : values()) {
+                if (mode.value.equals(normalized)) {
+                    return mode;
+                }
+            }
+
+            throw new IllegalArgumentException("Unsupported webhook execution mode " + value + ". Supported modes are worker-pool, virtual-threads, and event-loop.");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the eviction webhook. All metrics have only a few possible tag values, so they can be safely scraped by
+ * Prometheus even during large node drains.
+ */
+@ApplicationScoped
+public class WebhookMetrics {
+    private static final String METRIC_PREFIX = "strimzi.drain.cleaner.webhook";
+
+    @Inject
+    MeterRegistry registry;
+
+    /**
+     * Constructs the webhook metrics. This is the default constructor used in production.
+     */
+    @SuppressWarnings("unused")
+    public WebhookMetrics() {
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param registry  Meter registry
+     */
+    /* test */ WebhookMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Records the received eviction request
+     *
+     * @param version   Version of the Eviction API (v1 or v1beta1)
+     */
+    public void recordEviction(String version) {
+        Counter.builder(METRIC_PREFIX + ".evictions")
+                .description("Number of received eviction requests by the version of the Eviction API")
+                .tag("version", version)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Records the time spent handling the webhook request
+     *
+     * @param startNanos    Time when the request was received from System.nanoTime()
+     * @param outcome       Outcome of the request
+     */
+    public void recordRequest(long startNanos, String outcome) {
+        Timer.builder(METRIC_PREFIX + ".requests")
+                .description("Time spent handling the webhook requests by their outcome")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.Scope;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.function.Supplier;
+
+/**
+ * Creates the OpenTelemetry spans for the stages of the eviction webhook. Tracing is disabled by default. In that case,
+ * the OpenTelemetry SDK is disabled and all spans are no-op spans which are not recorded or exported.
+ */
+@ApplicationScoped
+public class WebhookTracing {
+    /* test */ static final AttributeKey<String> NAMESPACE = AttributeKey.stringKey("k8s.namespace.name");
+    /* test */ static final AttributeKey<String> POD = AttributeKey.stringKey("k8s.pod.name");
+    /* test */ static final AttributeKey<String> DECISION = AttributeKey.stringKey("strimzi.drain.cleaner.decision");
+    /* test */ static final AttributeKey<String> RESULT = AttributeKey.stringKey("strimzi.drain.cleaner.result");
+
+    @Inject
+    Tracer tracer;
+
+    /**
+     * Constructs the webhook tracing. This is the default constructor used in production.
+     */
+    @SuppressWarnings("unused")
+    public WebhookTracing() {
+    }
+
+    /**
+     * Constructor used by tests to pass mocked values
+     *
+     * @param tracer    OpenTelemetry tracer
+     */
+    /* test */ WebhookTracing(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * @return  Webhook tracing which does not record any spans
+     */
+    /* test */ static WebhookTracing noop() {
+        return new WebhookTracing(TracerProvider.noop().get("strimzi-drain-cleaner"));
+    }
+
+    /**
+     * Starts a new span as a child of the current span
+     *
+     * @param name  Name of the span
+     *
+     * @return  The started span
+     */
+    public Span start(String name) {
+        return tracer.spanBuilder(name).startSpan();
+    }
+
+    /**
+     * Starts a new span for a pod as a child of the current span
+     *
+     * @param name          Name of the span
+     * @param namespace     Namespace of the pod
+     * @param pod           Name of the pod
+     *
+     * @return  The started span
+     */
+    public Span start(String name, String namespace, String pod) {
+        return tracer.spanBuilder(name)
+                .setAttribute(NAMESPACE, namespace)
+                .setAttribute(POD, pod)
+                .startSpan();
+    }
+
+    /**
+     * Ends the span of the eviction review with the decision about the eviction or with the error
+     *
+     * @param span      Span which should be ended
+     * @param decision  Decision about the eviction or null if there is no decision
+     * @param failure   Error or null if there was no error
+     */
+    public void endReview(Span span, String decision, Throwable failure) {
+        end(span, DECISION, decision, failure);
+    }
+
+    /**
+     * Ends the span of the Kubernetes API call with its result or with the error
+     *
+     * @param span      Span which should be ended
+     * @param result    Result of the call or null if there is no result
+     * @param failure   Error or null if there was no error
+     */
+    public void endCall(Span span, String result, Throwable failure) {
+        end(span, RESULT, result, failure);
+    }
+
+    private void end(Span span, AttributeKey<String> key, String value, Throwable failure) {
+        if (value != null) {
+            span.setAttribute(key, value);
+        }
+
+        if (failure != null) {
+            span.recordException(failure);
+            span.setStatus(StatusCode.ERROR);
+        }
+
+        span.end();
+    }
+
+    /**
+     * Runs the operation in a new span
+     *
+     * @param name          Name of the span
+     * @param namespace     Namespace of the pod
+     * @param pod           Name of the pod
+     * @param operation     Operation which should be traced
+     *
+     * @param <T>   Type of the result
+     *
+     * @return  Result of the operation
+     */
+    public <T> T inSpan(String name, String namespace, String pod, Supplier<T> operation) {
+        Span span = start(name, namespace, pod);
+
+        try (Scope ignored = span.makeCurrent()) {
+            T result = operation.get();
+            span.end();
+            return result;
+        } catch (RuntimeException e) {
+            end(span, RESULT, null, e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReview;
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReviewBuilder;
+import io.fabric8.kubernetes.api.model.policy.v1.EvictionBuilder;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks decoding the AdmissionReview requests and encoding the responses for the v1 and v1beta1 evictions. The
+ * streaming codec used by the webhook is compared with binding the whole AdmissionReview to the Fabric8 model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j2.level=WARN", "-Djava.util.logging.manager=org.jboss.logmanager.LogManager"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AdmissionReviewCodecBenchmark {
+    private static final KubernetesSerialization SERIALIZATION = new KubernetesSerialization();
+
+    @Param({"v1", "v1beta1"})
+    String version;
+
+    private byte[] body;
+    private AdmissionReview review;
+
+    @Setup
+    public void setup() {
+        review = new AdmissionReviewBuilder()
+                .withNewRequest()
+                    .withUid("SOME-UUID")
+                    .withNamespace("my-namespace")
+                    .withDryRun(false)
+                    .withObject("v1".equals(version) ? evictionV1() : evictionV1beta1())
+                .endRequest()
+                .build();
+        body = SERIALIZATION.asJson(review).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Object evictionV1() {
+        return new EvictionBuilder()
+                .withNewMetadata()
+                    .withName("my-cluster-kafka-1")
+                    .withNamespace("my-namespace")
+                .endMetadata()
+                .build();
+    }
+
+    private static Object evictionV1beta1() {
+        return new io.fabric8.kubernetes.api.model.policy.v1beta1.EvictionBuilder()
+                .withNewMetadata()
+                    .withName("my-cluster-kafka-1")
+                    .withNamespace("my-namespace")
+                .endMetadata()
+                .build();
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return AdmissionReviewCodec.decode(body);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return AdmissionReviewCodec.deny("SOME-UUID");
+    }
+
+    @Benchmark
+    public AdmissionReview bind() {
+        return SERIALIZATION.unmarshal(new String(body, StandardCharsets.UTF_8), AdmissionReview.class);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return SERIALIZATION.asJson(review);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.CreateOptionsBuilder;
+import io.fabric8.kubernetes.api.model.DeleteOptionsBuilder;
+import io.fabric8.kubernetes.api.model.KubernetesResource;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionRequest;
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionRequestBuilder;
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReview;
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReviewBuilder;
+import io.fabric8.kubernetes.api.model.policy.v1.Eviction;
+import io.fabric8.kubernetes.api.model.policy.v1.EvictionBuilder;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SuppressWarnings("checkstyle:ClassDataAbstractionCoupling")
+public class AdmissionReviewCodecTest {
+    private static final Logger LOG = LoggerFactory.getLogger(AdmissionReviewCodecTest.class);
+
+    private final static KubernetesSerialization SERIALIZATION = new KubernetesSerialization();
+
+    @Test
+    public void testDecodeEviction() throws IOException {
+        AdmissionReviewCodec.DecodedRequest request = AdmissionReviewCodec.decode(review(v1Eviction("POD-UID"), true));
+
+        assertThat(request.uid(), is("SOME-UUID"));
+        assertThat(request.namespace(), is("my-namespace"));
+        assertThat(request.dryRun(), is(true));
+        assertThat(request.eviction(), is(new ValidatingWebhook.EvictionRequest("my-cluster-kafka-1", "my-namespace", "POD-UID", "v1")));
+    }
+
+    @Test
+    public void testDecodeEvictionWithoutPreconditions() throws IOException {
+        AdmissionReviewCodec.DecodedRequest request = AdmissionReviewCodec.decode(review(v1Eviction(null), false));
+
+        assertThat(request.dryRun(), is(false));
+        assertThat(request.eviction(), is(new ValidatingWebhook.EvictionRequest("my-cluster-kafka-1", "my-namespace", null, "v1")));
+    }
+
+    @Test
+    public void testDecodeV1beta1Eviction() throws IOException {
+        io.fabric8.kubernetes.api.model.policy.v1beta1.Eviction eviction = new io.fabric8.kubernetes.api.model.policy.v1beta1.EvictionBuilder()
+                .withNewMetadata()
+                    .withName("my-cluster-kafka-1")
+                .endMetadata()
+                .build();
+
+        AdmissionReviewCodec.DecodedRequest request = AdmissionReviewCodec.decode(review(eviction, false));
+
+        assertThat(request.eviction(), is(new ValidatingWebhook.EvictionRequest("my-cluster-kafka-1", null, null, "v1beta1")));
+    }
+
+    @Test
+    public void testDecodeOtherObject() throws IOException {
+        AdmissionReviewCodec.DecodedRequest request = AdmissionReviewCodec.decode(review(new PodBuilder().withNewMetadata().withName("my-pod").endMetadata().build(), false));
+
+        assertThat(request.uid(), is("SOME-UUID"));
+        assertThat(request.eviction(), is(nullValue()));
+    }
+
+    @Test
+    public void testDecodeUnexpectedValueTypes() throws IOException {
+        // Object and array values in place of the scalar fields are skipped without losing track of the other fields
+        String json = "{\"request\":{\"dryRun\":{\"uid\":\"WRONG-UUID\"},\"uid\":\"SOME-UUID\","
+                + "\"object\":{\"kind\":{\"apiVersion\":\"other/v1\"},\"apiVersion\":[\"policy/v1\"],"
+                + "\"metadata\":{\"name\":\"my-cluster-kafka-1\"}},\"namespace\":\"my-namespace\"}}";
+
+        AdmissionReviewCodec.DecodedRequest request = AdmissionReviewCodec.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(request.uid(), is("SOME-UUID"));
+        assertThat(request.namespace(), is("my-namespace"));
+        assertThat(request.dryRun(), is(false));
+        assertThat(request.eviction(), is(nullValue()));
+
+        json = "{\"request\":{\"object\":[{\"kind\":\"Eviction\"}],\"uid\":\"SOME-UUID\"}}";
+        request = AdmissionReviewCodec.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(request.uid(), is("SOME-UUID"));
+        assertThat(request.eviction(), is(nullValue()));
+    }
+
+    @Test
+    public void testDecodeInvalidRequests() {
+        assertThrows(IOException.class, () -> AdmissionReviewCodec.decode("{\"apiVersion\":\"admission.k8s.io/v1\"}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> AdmissionReviewCodec.decode("[]".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IOException.class, () -> AdmissionReviewCodec.decode("{\"request\":{\"uid\":".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testEncodedResponsesMatchFabric8() {
+        AdmissionReview allow = new AdmissionReviewBuilder()
+                .withNewResponse()
+                    .withUid("SOME-UUID")
+                    .withAllowed(true)
+                .endResponse()
+                .build();
+        AdmissionReview deny = new AdmissionReviewBuilder()
+                .withNewResponse()
+                    .withUid("SOME-UUID")
+                    .withAllowed(false)
+                    .withStatus(new StatusBuilder().withCode(500).withMessage("The pod will be rolled by the Strimzi Cluster Operator").build())
+                .endResponse()
+                .build();
+
+        assertThat(SERIALIZATION.unmarshal(new String(AdmissionReviewCodec.allow("SOME-UUID"), StandardCharsets.UTF_8), AdmissionReview.class), is(allow));
+        assertThat(SERIALIZATION.unmarshal(new String(AdmissionReviewCodec.deny("SOME-UUID"), StandardCharsets.UTF_8), AdmissionReview.class), is(deny));
+    }
+
+    @Test
+    public void testDenyWithMessage() {
+        AdmissionReview review = SERIALIZATION.unmarshal(new String(AdmissionReviewCodec.deny("SOME-UUID", "Some \"quoted\" message"), StandardCharsets.UTF_8), AdmissionReview.class);
+
+        assertThat(review.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(review.getResponse().getAllowed(), is(false));
+        assertThat(review.getResponse().getStatus().getMessage(), is("Some \"quoted\" message"));
+        assertThat(AdmissionReviewCodec.deny("SOME-UUID", AdmissionReviewCodec.DENY_MESSAGE), is(AdmissionReviewCodec.deny("SOME-UUID")));
+    }
+
+    @Test
+    public void testDenyWithRetryAfter() {
+        AdmissionReview review = SERIALIZATION.unmarshal(new String(AdmissionReviewCodec.deny("SOME-UUID", null, 120), StandardCharsets.UTF_8), AdmissionReview.class);
+
+        assertThat(review.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(review.getResponse().getAllowed(), is(false));
+        assertThat(review.getResponse().getStatus().getMessage(), is(AdmissionReviewCodec.DENY_MESSAGE));
+        assertThat(review.getResponse().getStatus().getDetails().getRetryAfterSeconds(), is(120));
+    }
+
+    @Test
+    public void testEncodeEscapesUid() {
+        AdmissionReview review = SERIALIZATION.unmarshal(new String(AdmissionReviewCodec.allow("SOME\"UUID\\ü"), StandardCharsets.UTF_8), AdmissionReview.class);
+
+        assertThat(review.getResponse().getUid(), is("SOME\"UUID\\ü"));
+    }
+
+    /**
+     * Measures the bytes allocated per request when the AdmissionReview is bound to the Fabric8 model classes and the
+     * response is built with the AdmissionReviewBuilder, and compares it with the streaming codec. The measured values
+     * are logged.
+     */
+    @Test
+    public void testAllocationsPerRequest() throws IOException {
+        int requests = 20_000;
+        byte[] body = review(v1Eviction("POD-UID"), false);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // Warm up both paths so that the class loading and JIT compilation are not measured
+        for (int i = 0; i < requests; i++) {
+            bindingRoundTrip(body);
+            codecRoundTrip(body);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < requests; i++) {
+            bindingRoundTrip(body);
+        }
+        long bindingBytesPerRequest = (threads.getCurrentThreadAllocatedBytes() - before) / requests;
+
+        before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < requests; i++) {
+            codecRoundTrip(body);
+        }
+        long codecBytesPerRequest = (threads.getCurrentThreadAllocatedBytes() - before) / requests;
+
+        LOG.info("Bytes allocated per AdmissionReview request of {} bytes: {} with data binding, {} with streaming codec", body.length, bindingBytesPerRequest, codecBytesPerRequest);
+
+        assertThat(codecBytesPerRequest < bindingBytesPerRequest / 5, is(true));
+    }
+
+    private static int bindingRoundTrip(byte[] body) {
+        AdmissionReview review = SERIALIZATION.unmarshal(new String(body, StandardCharsets.UTF_8), AdmissionReview.class);
+        AdmissionReview response = new AdmissionReviewBuilder()
+                .withNewResponse()
+                    .withUid(review.getRequest().getUid())
+                    .withAllowed(true)
+                .endResponse()
+                .build();
+
+        return SERIALIZATION.asJson(response).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static int codecRoundTrip(byte[] body) throws IOException {
+        AdmissionReviewCodec.DecodedRequest request = AdmissionReviewCodec.decode(body);
+
+        return AdmissionReviewCodec.allow(request.uid()).length;
+    }
+
+    private static Eviction v1Eviction(String preconditionsUid) {
+        EvictionBuilder eviction = new EvictionBuilder()
+                .withNewMetadata()
+                    .withName("my-cluster-kafka-1")
+                    .withNamespace("my-namespace")
+                .endMetadata();
+
+        if (preconditionsUid != null) {
+            eviction.withDeleteOptions(new DeleteOptionsBuilder().withNewPreconditions().withUid(preconditionsUid).endPreconditions().build());
+        }
+
+        return eviction.build();
+    }
+
+    /**
+     * Creates an AdmissionReview request similar to the requests sent by the Kubernetes API server
+     *
+     * @param object    Object of the request
+     * @param dryRun    Dry-run flag
+     *
+     * @return  JSON with the AdmissionReview request
+     */
+    private static byte[] review(KubernetesResource object, boolean dryRun) {
+        AdmissionRequest request = new AdmissionRequestBuilder()
+                .withUid("SOME-UUID")
+                .withNewKind("policy", "Eviction", "v1")
+                .withNewRequestKind("policy", "Eviction", "v1")
+                .withNewResource("", "pods", "v1")
+                .withSubResource("eviction")
+                .withName("my-cluster-kafka-1")
+                .withNamespace("my-namespace")
+                .withOperation("CREATE")
+                .withNewUserInfo()
+                    .withUsername("system:serviceaccount:kube-system:node-controller")
+                    .withUid("USER-UID")
+                    .withGroups("system:serviceaccounts", "system:serviceaccounts:kube-system", "system:authenticated")
+                .endUserInfo()
+                .withObject(object)
+                .withDryRun(dryRun)
+                .withOptions(new CreateOptionsBuilder().build())
+                .build();
+
+        return SERIALIZATION.asJson(new AdmissionReviewBuilder().withRequest(request).build()).getBytes(StandardCharsets.UTF_8);
+    }
+}
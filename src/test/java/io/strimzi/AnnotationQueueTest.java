@@ -0,0 +1,159 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AnnotationQueueTest {
+    PodAnnotator annotator;
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        annotator = mock(PodAnnotator.class);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testDisabledQueue() {
+        AnnotationQueue queue = new AnnotationQueue(annotator, registry, false, 10, 1, 3, 10);
+        queue.start();
+
+        assertThat(queue.isEnabled(), is(false));
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-0", () -> { }), is(false));
+
+        queue.stop();
+    }
+
+    @Test
+    public void testAnnotation() {
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-0")).thenReturn(true);
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-1")).thenReturn(true);
+
+        AnnotationQueue queue = new AnnotationQueue(annotator, registry, true, 10, 2, 3, 10);
+        queue.start();
+
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-0", () -> { }), is(true));
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-1", () -> { }), is(true));
+        queue.stop();
+
+        verify(annotator, times(1)).annotate("my-namespace", "my-cluster-kafka-0");
+        verify(annotator, times(1)).annotate("my-namespace", "my-cluster-kafka-1");
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.wait").timer().count(), is(2L));
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.depth").gauge().value(), is(0.0));
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.oldest.age").gauge().value(), is(0.0));
+    }
+
+    @Test
+    public void testDeduplicationAndCapacity() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-0")).thenAnswer(i -> {
+            started.countDown();
+            release.await();
+            return true;
+        });
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-1")).thenReturn(true);
+
+        AnnotationQueue queue = new AnnotationQueue(annotator, registry, true, 1, 1, 3, 10);
+        queue.start();
+
+        // The first pod blocks the only worker thread
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-0", () -> { }), is(true));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+
+        // Pod which is already being annotated is not queued again
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-0", () -> { }), is(true));
+
+        // The second pod fills the queue and the third does not fit in
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-1", () -> { }), is(true));
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-1", () -> { }), is(true));
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-2", () -> { }), is(false));
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.depth").gauge().value(), is(1.0));
+
+        release.countDown();
+        queue.stop();
+
+        verify(annotator, times(1)).annotate("my-namespace", "my-cluster-kafka-0");
+        verify(annotator, times(1)).annotate("my-namespace", "my-cluster-kafka-1");
+        verify(annotator, times(0)).annotate("my-namespace", "my-cluster-kafka-2");
+    }
+
+    @Test
+    public void testRetries() {
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-0"))
+                .thenThrow(new KubernetesClientException("Something went wrong", 503, null))
+                .thenReturn(true);
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-1"))
+                .thenThrow(new KubernetesClientException("Something went wrong", 500, null));
+
+        AnnotationQueue queue = new AnnotationQueue(annotator, registry, true, 10, 1, 2, 10);
+        queue.start();
+
+        AtomicInteger failed0 = new AtomicInteger(0);
+        AtomicInteger failed1 = new AtomicInteger(0);
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-0", failed0::incrementAndGet), is(true));
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-1", failed1::incrementAndGet), is(true));
+        queue.stop();
+
+        verify(annotator, times(2)).annotate("my-namespace", "my-cluster-kafka-0");
+        verify(annotator, times(3)).annotate("my-namespace", "my-cluster-kafka-1");
+        assertThat(failed0.get(), is(0));
+        assertThat(failed1.get(), is(1));
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.retries").counter().count(), is(3.0));
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.failures").counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testPermanentErrorsAreNotRetried() {
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-0"))
+                .thenThrow(new KubernetesClientException("Forbidden", 403, null));
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-1"))
+                .thenThrow(new KubernetesClientException("Too many requests", 429, null));
+        when(annotator.annotate("my-namespace", "my-cluster-kafka-2"))
+                .thenThrow(new IllegalStateException("Something went wrong"));
+
+        AnnotationQueue queue = new AnnotationQueue(annotator, registry, true, 10, 1, 3, 10);
+        queue.start();
+
+        AtomicInteger failed = new AtomicInteger(0);
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-0", failed::incrementAndGet), is(true));
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-1", failed::incrementAndGet), is(true));
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-2", failed::incrementAndGet), is(true));
+        queue.stop();
+
+        // The throttled patches were already retried by the pod annotator
+        verify(annotator, times(1)).annotate("my-namespace", "my-cluster-kafka-0");
+        verify(annotator, times(1)).annotate("my-namespace", "my-cluster-kafka-1");
+        verify(annotator, times(1)).annotate("my-namespace", "my-cluster-kafka-2");
+        assertThat(failed.get(), is(3));
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.retries").counter().count(), is(0.0));
+        assertThat(registry.get("strimzi.drain.cleaner.annotation.queue.failures").counter().count(), is(3.0));
+    }
+
+    @Test
+    public void testSubmitAfterStop() {
+        AnnotationQueue queue = new AnnotationQueue(annotator, registry, true, 10, 1, 3, 10);
+        queue.start();
+        queue.stop();
+
+        assertThat(queue.submit("my-namespace", "my-cluster-kafka-0", () -> { }), is(false));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ApiCircuitBreakerTest {
+    private static final KubernetesClientException UNAVAILABLE = new KubernetesClientException("Service Unavailable", 503, null);
+
+    @Test
+    public void testDisabled() {
+        ApiCircuitBreaker breaker = new ApiCircuitBreaker(new SimpleMeterRegistry(), false, 1, 1_000, System::nanoTime);
+
+        breaker.recordFailure(UNAVAILABLE);
+        breaker.recordFailure(UNAVAILABLE);
+
+        assertThat(breaker.allowRequest(), is(true));
+    }
+
+    @Test
+    public void testOpenAndClose() {
+        AtomicLong clock = new AtomicLong(0);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ApiCircuitBreaker breaker = new ApiCircuitBreaker(registry, true, 3, 1_000, clock::get);
+
+        // Failures in a row open the circuit
+        breaker.recordFailure(UNAVAILABLE);
+        breaker.recordFailure(new DeadlineExceededException("Too slow"));
+        assertThat(breaker.state(), is(ApiCircuitBreaker.State.CLOSED));
+        breaker.recordFailure(new KubernetesClientException("Too Many Requests", 429, null));
+        assertThat(breaker.state(), is(ApiCircuitBreaker.State.OPEN));
+        assertThat(registry.get("strimzi.drain.cleaner.api.circuit.breaker.state").gauge().value(), is(1.0));
+
+        assertThat(breaker.allowRequest(), is(false));
+        assertThat(registry.get("strimzi.drain.cleaner.api.circuit.breaker.short.circuited").counter().count(), is(1.0));
+
+        // After the open period, a single trial request is allowed
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+        assertThat(breaker.allowRequest(), is(true));
+        assertThat(breaker.state(), is(ApiCircuitBreaker.State.HALF_OPEN));
+        assertThat(breaker.allowRequest(), is(false));
+
+        // Failed trial opens the circuit again
+        breaker.recordFailure(UNAVAILABLE);
+        assertThat(breaker.state(), is(ApiCircuitBreaker.State.OPEN));
+        assertThat(breaker.allowRequest(), is(false));
+
+        // Successful trial closes the circuit
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1_000));
+        assertThat(breaker.allowRequest(), is(true));
+        breaker.recordSuccess();
+        assertThat(breaker.state(), is(ApiCircuitBreaker.State.CLOSED));
+        assertThat(breaker.allowRequest(), is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.api.circuit.breaker.state").gauge().value(), is(0.0));
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        ApiCircuitBreaker breaker = new ApiCircuitBreaker(new SimpleMeterRegistry(), true, 2, 1_000, () -> 0L);
+
+        breaker.recordFailure(UNAVAILABLE);
+        breaker.recordSuccess();
+        breaker.recordFailure(UNAVAILABLE);
+
+        assertThat(breaker.state(), is(ApiCircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void testClientErrorsDoNotOpenCircuit() {
+        ApiCircuitBreaker breaker = new ApiCircuitBreaker(new SimpleMeterRegistry(), true, 1, 1_000, () -> 0L);
+
+        breaker.recordFailure(new KubernetesClientException("Forbidden", 403, null));
+
+        assertThat(breaker.state(), is(ApiCircuitBreaker.State.CLOSED));
+        assertThat(breaker.allowRequest(), is(true));
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ApiRateLimiterTest {
+    private static final String PATH = "/api/v1/namespaces/my-namespace/pods/my-cluster-kafka-0";
+
+    KubernetesMockServer server;
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        server = new KubernetesMockServer(false);
+        server.init();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() {
+        server.destroy();
+    }
+
+    @Test
+    public void testTokenBucket() {
+        AtomicLong clock = new AtomicLong(0);
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 10, 2, clock::get);
+
+        // The burst is sent right away
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+
+        // Requests over the burst wait for their turn
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(TimeUnit.MILLISECONDS.toNanos(200)));
+
+        // The bucket is refilled over time, but never above the burst
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void testReservationLongerThanTimeout() {
+        AtomicLong clock = new AtomicLong(0);
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 10, 1, clock::get);
+
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        assertThat(limiter.reserve(TimeUnit.MILLISECONDS.toNanos(50)), is(-1L));
+
+        // The rejected request did not take any token
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void testPause() {
+        AtomicLong clock = new AtomicLong(0);
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 10, 2, clock::get);
+
+        // The requests wait for the pause even when tokens are available
+        limiter.pause(1_000);
+        assertThat(limiter.reserve(TimeUnit.MILLISECONDS.toNanos(500)), is(-1L));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(TimeUnit.SECONDS.toNanos(1)));
+
+        // The shorter pause does not shorten the longer one
+        limiter.pause(100);
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(TimeUnit.SECONDS.toNanos(1)));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+    }
+
+    @Test
+    public void testPauseWithDisabledRateLimiting() {
+        AtomicLong clock = new AtomicLong(0);
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 0, 1, clock::get);
+
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+
+        // Without the rate limiting, the requests are never delayed
+        limiter.pause(1_000);
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        assertThat(limiter.reserve(TimeUnit.MILLISECONDS.toNanos(500)), is(0L));
+    }
+
+    @Test
+    public void testClientThrottling() {
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 2, 1, System::nanoTime);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("GET request", 5_000);
+        }
+
+        // The second and third requests waited for their tokens which are refilled every 500 ms
+        assertThat(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(900), is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.kubernetes.client.throttled").tag("source", "client").counter().count(), is(2.0));
+        assertThat(registry.get("strimzi.drain.cleaner.kubernetes.client.rate.limit.wait").timer().count(), is(2L));
+        assertThat(registry.get("strimzi.drain.cleaner.kubernetes.client.throttled").tag("source", "server").counter().count(), is(0.0));
+    }
+
+    @Test
+    public void testRejectedRequest() {
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 0.1, 1, System::nanoTime);
+
+        limiter.acquire("GET request", 5_000);
+
+        // The next token is available only after 10 seconds which is longer than the request timeout
+        KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> limiter.acquire("GET request", 5_000));
+        assertThat(e.getCode(), is(429));
+        assertThat(registry.get("strimzi.drain.cleaner.kubernetes.client.rate.limit.rejected").counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testServerThrottling() {
+        server.expect().get().withPath(PATH).andReturn(429, null).withHeader("Retry-After", "10").once();
+
+        // The rate limiting is disabled, but the requests throttled by the server are still counted
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 0, 1, System::nanoTime);
+
+        try (KubernetesClient client = client(limiter)) {
+            long start = System.nanoTime();
+
+            // The throttled request is not retried, so its failure is not delayed by the Retry-After time
+            KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> client.pods().inNamespace("my-namespace").withName("my-cluster-kafka-0").get());
+            assertThat(e.getCode(), is(429));
+            assertThat(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10), is(true));
+        }
+
+        // The rate limiting is disabled, so the other requests do not wait for the Retry-After time
+        assertThat(limiter.reserve(Long.MAX_VALUE), is(0L));
+        assertThat(server.getRequestCount(), is(1));
+        assertThat(registry.get("strimzi.drain.cleaner.kubernetes.client.throttled").tag("source", "server").counter().count(), is(1.0));
+        assertThat(registry.get("strimzi.drain.cleaner.kubernetes.client.throttled").tag("source", "client").counter().count(), is(0.0));
+    }
+
+    @Test
+    public void testServerThrottlingWithRateLimiting() {
+        server.expect().get().withPath(PATH).andReturn(429, null).withHeader("Retry-After", "10").once();
+
+        ApiRateLimiter limiter = new ApiRateLimiter(registry, "webhook", 100, 10, System::nanoTime);
+
+        try (KubernetesClient client = client(limiter)) {
+            KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> client.pods().inNamespace("my-namespace").withName("my-cluster-kafka-0").get());
+            assertThat(e.getCode(), is(429));
+        }
+
+        // The next request waits for the Retry-After time
+        assertThat(limiter.reserve(Long.MAX_VALUE) > TimeUnit.SECONDS.toNanos(5), is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.kubernetes.client.throttled").tag("source", "server").counter().count(), is(1.0));
+    }
+
+    private KubernetesClient client(ApiRateLimiter limiter) {
+        Config config = new ConfigBuilder(Config.empty())
+                .withMasterUrl(server.url("/"))
+                .withRequestTimeout(5_000)
+                .withRequestRetryBackoffLimit(0)
+                .build();
+
+        return new KubernetesClientBuilder()
+                .withConfig(config)
+                .withHttpClientBuilderConsumer(builder -> builder.addOrReplaceInterceptor(ApiRateLimiter.NAME, limiter))
+                .build();
+    }
+}
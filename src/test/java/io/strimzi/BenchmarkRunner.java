@@ -0,0 +1,157 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler and compares the results with the baseline results from a previous run.
+ * The benchmarks are run using the benchmark Maven profile which fails the build when any benchmark is slower or
+ * allocates more than the baseline by more than the configured threshold. The report is printed to the console
+ * together with the JMH output. The following system properties are used:
+ *
+ *   - benchmark.include:   Regular expression selecting the benchmarks (defaults to all benchmarks)
+ *   - benchmark.result:    File where the JMH results are stored in the JSON format
+ *   - benchmark.baseline:  JMH results in the JSON format used as the baseline (optional)
+ *   - benchmark.threshold: Allowed regression against the baseline in percent (defaults to 10)
+ */
+public class BenchmarkRunner {
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    /**
+     * Runs the benchmarks
+     *
+     * @param args  Not used
+     *
+     * @throws RunnerException  When the benchmarks fail
+     * @throws IOException      When the baseline cannot be read
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        String result = System.getProperty("benchmark.result", "target/jmh-result.json");
+        String baseline = System.getProperty("benchmark.baseline", "");
+        double threshold = Double.parseDouble(System.getProperty("benchmark.threshold", "10"));
+
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(System.getProperty("benchmark.include", ".*Benchmark.*"))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build()).run();
+
+        if (baseline.isBlank()) {
+            System.out.println("No baseline configured - the results in " + result + " can be used as a baseline for the next run");
+        } else {
+            List<String> regressions = regressions(results, readBaseline(new File(baseline)), threshold);
+
+            if (regressions.isEmpty()) {
+                System.out.println("No benchmark regressed by more than " + threshold + "% against the baseline " + baseline);
+            } else {
+                regressions.forEach(System.err::println);
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Finds the benchmarks which are slower or allocate more than the baseline by more than the threshold
+     *
+     * @param results       Results of the benchmarks
+     * @param baseline      Baseline scores of the benchmarks
+     * @param threshold     Allowed regression in percent
+     *
+     * @return  List with the description of the regressions
+     */
+    private static List<String> regressions(Collection<RunResult> results, Map<String, Score> baseline, double threshold) {
+        List<String> regressions = new ArrayList<>();
+
+        for (RunResult result : results) {
+            String key = key(result.getParams());
+            Score expected = baseline.get(key);
+
+            if (expected == null) {
+                System.out.println("Benchmark " + key + " is not in the baseline");
+                continue;
+            }
+
+            Result<?> allocation = result.getSecondaryResults().get(ALLOCATION_METRIC);
+            Score actual = new Score(result.getPrimaryResult().getScore(), allocation != null ? allocation.getScore() : 0);
+
+            if (regressed(actual.time(), expected.time(), threshold)) {
+                regressions.add(String.format("Benchmark %s regressed from %.2f to %.2f %s", key, expected.time(), actual.time(), result.getPrimaryResult().getScoreUnit()));
+            }
+
+            if (regressed(actual.allocation(), expected.allocation(), threshold)) {
+                regressions.add(String.format("Benchmark %s allocation regressed from %.2f to %.2f B/op", key, expected.allocation(), actual.allocation()));
+            }
+        }
+
+        return regressions;
+    }
+
+    private static boolean regressed(double actual, double expected, double threshold) {
+        // Allocations below a few bytes per operation are just noise of the profiler
+        return actual > 1 && actual > expected * (1 + threshold / 100);
+    }
+
+    /**
+     * Reads the baseline scores from the JMH results in the JSON format
+     *
+     * @param file  File with the JMH results
+     *
+     * @return  Map with the baseline scores of the benchmarks
+     *
+     * @throws IOException  When the file cannot be read
+     */
+    private static Map<String, Score> readBaseline(File file) throws IOException {
+        Map<String, Score> baseline = new HashMap<>();
+
+        for (JsonNode benchmark : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = benchmark.path("params").fields();
+            fields.forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+
+            baseline.put(benchmark.get("benchmark").asText() + params,
+                    new Score(benchmark.get("primaryMetric").get("score").asDouble(),
+                            benchmark.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score").asDouble(0)));
+        }
+
+        return baseline;
+    }
+
+    private static String key(BenchmarkParams params) {
+        Map<String, String> values = new TreeMap<>();
+        params.getParamsKeys().forEach(param -> values.put(param, params.getParam(param)));
+
+        return params.getBenchmark() + values;
+    }
+
+    /**
+     * Score of a benchmark
+     *
+     * @param time          Average time of the operation
+     * @param allocation    Allocated bytes per operation
+     */
+    record Score(double time, double allocation) {
+    }
+}
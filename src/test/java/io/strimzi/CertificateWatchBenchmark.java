@@ -0,0 +1,64 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks checking the watched Secret for changes to the certificates. The Secret does not change, so the Drain
+ * Cleaner is never restarted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j2.level=WARN", "-Djava.util.logging.manager=org.jboss.logmanager.LogManager"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CertificateWatchBenchmark {
+    private CertificateWatch watch;
+    private Secret secret;
+
+    @Setup
+    public void setup() {
+        // Certificates have a few kilobytes
+        String certificate = Base64.getEncoder().encodeToString(new byte[2048]);
+        String key = Base64.getEncoder().encodeToString(new byte[1024]);
+
+        secret = new SecretBuilder()
+                .withNewMetadata()
+                    .withName("strimzi-drain-cleaner")
+                    .withNamespace("strimzi-drain-cleaner")
+                .endMetadata()
+                .withData(Map.of("tls.crt", certificate, "tls.key", key, "ca.crt", certificate))
+                .build();
+
+        watch = new CertificateWatch(null, new SimpleMeterRegistry(), true, "strimzi-drain-cleaner", "strimzi-drain-cleaner-1",
+                "strimzi-drain-cleaner", List.of("tls.crt", "tls.key"));
+        watch.previousValues = certificate + key;
+    }
+
+    @Benchmark
+    public Secret checkForChanges() {
+        watch.checkForChanges(secret);
+        return secret;
+    }
+}
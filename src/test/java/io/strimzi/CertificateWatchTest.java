@@ -10,16 +10,19 @@ import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.api.model.SecretList;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.PodResource;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import jakarta.enterprise.inject.Vetoed;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
@@ -27,6 +30,7 @@ import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
@@ -94,27 +98,27 @@ public class CertificateWatchTest {
 
     @Test
     public void testValidationWhenDisabled()    {
-        CertificateWatch watch = new CertificateWatch(null, false, null, null, null, null);
+        CertificateWatch watch = new CertificateWatch(null, new SimpleMeterRegistry(), false, null, null, null, null);
         watch.start();
         watch.stop();
     }
 
     @Test
     public void testValidationFailureWhenEnabled()    {
-        RuntimeException e = assertThrows(RuntimeException.class, () -> new CertificateWatch(null, true, null, null, null, null));
+        RuntimeException e = assertThrows(RuntimeException.class, () -> new CertificateWatch(null, new SimpleMeterRegistry(), true, null, null, null, null));
         assertThat(e.getMessage(), is("Certificate watch is enabled but missing one or more required options: [strimzi.certificate.watch.namespace, strimzi.certificate.watch.pod.name, strimzi.certificate.watch.secret.name, strimzi.certificate.watch.secret.keys]"));
     }
 
     @Test
     public void testValidationWhenEnabled()    {
-        CertificateWatch watch = new CertificateWatch(client, true, NAMESPACE, POD_NAME, SECRET_NAME, SECRET_KEYS);
+        CertificateWatch watch = new CertificateWatch(client, new SimpleMeterRegistry(), true, NAMESPACE, POD_NAME, SECRET_NAME, SECRET_KEYS);
         watch.start();
         watch.stop();
     }
 
     @Test
     public void testInitialization()    {
-        CertificateWatch watch = new CertificateWatch(client, true, NAMESPACE, POD_NAME, SECRET_NAME, SECRET_KEYS);
+        CertificateWatch watch = new CertificateWatch(client, new SimpleMeterRegistry(), true, NAMESPACE, POD_NAME, SECRET_NAME, SECRET_KEYS);
         watch.start();
         watch.stop();
 
@@ -143,6 +147,8 @@ public class CertificateWatchTest {
         assertThat(deleted.await(1, TimeUnit.SECONDS), is(true));
 
         verify(podResource, times(1)).delete();
+        assertThat(watch.registry.get("strimzi.drain.cleaner.certificate.watch.changes").counter().count(), is(1.0));
+        assertThat(watch.registry.get("strimzi.drain.cleaner.certificate.watch.restarts").tag("result", "success").counter().count(), is(1.0));
     }
 
     @Test
@@ -197,17 +203,30 @@ public class CertificateWatchTest {
         assertThat(checked.await(1, TimeUnit.SECONDS), is(true));
 
         verify(podResource, never()).delete();
+        assertThat(watch.registry.find("strimzi.drain.cleaner.certificate.watch.changes").counter(), is(nullValue()));
+    }
+
+    @Test
+    public void testFailedRestart() {
+        when(podResource.delete()).thenThrow(new KubernetesClientException("Forbidden", 403, null));
+
+        CertificateWatch watch = new CertificateWatch(client, new SimpleMeterRegistry(), true, NAMESPACE, POD_NAME, SECRET_NAME, SECRET_KEYS);
+
+        assertThrows(KubernetesClientException.class, watch::restartDrainCleaner);
+        assertThat(watch.registry.get("strimzi.drain.cleaner.certificate.watch.restarts").tag("result", "error").counter().count(), is(1.0));
     }
 
     /**
-     * This class is used to inject countdown latches to help with the tests
+     * This class is used to inject countdown latches to help with the tests. It is vetoed, so it is not discovered as
+     * a bean when the Drain Cleaner runs in the Quarkus test mode.
      */
+    @Vetoed
     static class MockedCertificateWatch extends CertificateWatch   {
         private final CountDownLatch podDeletionLatch;
         private final CountDownLatch checkForChangesLatch;
 
         public MockedCertificateWatch(KubernetesClient client, boolean enabled, String namespace, String podName, String secretName, List<String> secretKeys, CountDownLatch checkForChangesLatch, CountDownLatch podDeletionLatch) {
-            super(client, enabled, namespace, podName, secretName, secretKeys);
+            super(client, new SimpleMeterRegistry(), enabled, namespace, podName, secretName, secretKeys);
             this.checkForChangesLatch = checkForChangesLatch;
             this.podDeletionLatch = podDeletionLatch;
         }
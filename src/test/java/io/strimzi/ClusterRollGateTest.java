@@ -0,0 +1,134 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClusterRollGateTest {
+    MeterRegistry registry;
+    PodCache podCache;
+    AtomicLong clock;
+    ClusterRollGate gate;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        clock = new AtomicLong(0);
+        gate = new ClusterRollGate(registry, podCache, true, 2, 60_000, clock::get);
+    }
+
+    @Test
+    public void testPodCacheRequired() {
+        assertThat(gate.isEnabled(), is(true));
+
+        // Without the pod cache, the pending pods would be released only after the timeout
+        when(podCache.isEnabled()).thenReturn(false);
+        assertThat(gate.isEnabled(), is(false));
+        assertThat(new ClusterRollGate(registry, null, true, 2, 60_000, clock::get).isEnabled(), is(false));
+    }
+
+    @Test
+    public void testLimitPerCluster() {
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-0", "UID-0")), is(true));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-1", "UID-1")), is(true));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(false));
+
+        // Pending pods are acquired again and other clusters have their own limit
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-1", "UID-1")), is(true));
+        assertThat(gate.tryAcquire(metadata("other-cluster", "other-cluster-kafka-0", "UID-3")), is(true));
+
+        // Pods without the cluster label are not limited
+        assertThat(gate.tryAcquire(new ObjectMetaBuilder().withName("some-pod").withNamespace("my-namespace").build()), is(true));
+
+        assertThat(gate.pendingPods(), is(3));
+        assertThat(registry.get("strimzi.drain.cleaner.cluster.roll.gate.deferred").counter().count(), is(1.0));
+    }
+
+    @Test
+    public void testReleaseByInformer() {
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-0", "UID-0")), is(true));
+
+        // Pod annotated by someone else
+        gate.onAdd(annotatedPod("my-cluster-kafka-1", "UID-1"));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(false));
+
+        // Stale events for the pod before it was annotated do not release it
+        gate.onUpdate(pod("my-cluster-kafka-0", "UID-0"), pod("my-cluster-kafka-0", "UID-0"));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(false));
+
+        // Deleted pod is released
+        gate.onDelete(annotatedPod("my-cluster-kafka-0", "UID-0"), false);
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(true));
+
+        // Pod replaced by a new pod is released
+        gate.onAdd(pod("my-cluster-kafka-1", "NEW-UID-1"));
+        assertThat(gate.pendingPods(), is(1));
+    }
+
+    @Test
+    public void testReleaseAfterFailedPatch() {
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-0", "UID-0")), is(true));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-1", "UID-1")), is(true));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(false));
+
+        // A pod with a different UID is not released
+        gate.release(metadata("my-cluster", "my-cluster-kafka-0", "OTHER-UID"));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(false));
+
+        gate.release(metadata("my-cluster", "my-cluster-kafka-0", "UID-0"));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(true));
+        assertThat(gate.pendingPods(), is(2));
+    }
+
+    @Test
+    public void testReleaseAfterTimeout() {
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-0", "UID-0")), is(true));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-1", "UID-1")), is(true));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(false));
+
+        clock.set(TimeUnit.SECONDS.toNanos(61));
+        assertThat(gate.tryAcquire(metadata("my-cluster", "my-cluster-kafka-2", "UID-2")), is(true));
+        assertThat(gate.pendingPods(), is(1));
+    }
+
+    private static ObjectMeta metadata(String cluster, String name, String uid) {
+        return new ObjectMetaBuilder()
+                .withName(name)
+                .withNamespace("my-namespace")
+                .withUid(uid)
+                .withLabels(Map.of(ClusterRollGate.CLUSTER_LABEL_KEY, cluster))
+                .build();
+    }
+
+    private static Pod pod(String name, String uid) {
+        return new PodBuilder().withMetadata(metadata("my-cluster", name, uid)).build();
+    }
+
+    private static Pod annotatedPod(String name, String uid) {
+        return new PodBuilder(pod(name, uid))
+                .editMetadata()
+                    .addToAnnotations(ValidatingWebhook.MANUAL_RU_ANNOTATION, "true")
+                .endMetadata()
+                .build();
+    }
+}
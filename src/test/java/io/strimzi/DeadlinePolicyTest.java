@@ -0,0 +1,165 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DeadlinePolicyTest {
+    @Test
+    public void testDeadline() throws InterruptedException {
+        Deadline none = Deadline.none();
+        assertThat(none.isBounded(), is(false));
+        assertThat(none.isExpired(), is(false));
+        assertThat(none.timeoutMs(10_000), is(10_000L));
+        assertThat(none.timeoutMs(0), is(Long.MAX_VALUE));
+
+        Deadline deadline = Deadline.after(100);
+        assertThat(deadline.isBounded(), is(true));
+        assertThat(deadline.isExpired(), is(false));
+        assertThat(deadline.timeoutMs(10_000) <= 100, is(true));
+        // Without a request timeout, the remaining time of the deadline is used
+        assertThat(deadline.timeoutMs(0) > 0, is(true));
+        assertThat(deadline.timeoutMs(0) <= 100, is(true));
+
+        Thread.sleep(150);
+        assertThat(deadline.isExpired(), is(true));
+        assertThat(deadline.remainingMs(), is(0L));
+    }
+
+    @Test
+    public void testStart() {
+        DeadlinePolicy policy = new DeadlinePolicy(new SimpleMeterRegistry(), true, 5, 1_000, DeadlinePolicy.Fallback.CACHED, 10);
+        Deadline deadline = policy.start();
+        assertThat(deadline.isBounded(), is(true));
+        assertThat(deadline.remainingMs() <= 4_000, is(true));
+        assertThat(deadline.remainingMs() > 3_000, is(true));
+        policy.stop();
+
+        DeadlinePolicy disabledPolicy = new DeadlinePolicy(new SimpleMeterRegistry(), false, 5, 1_000, DeadlinePolicy.Fallback.CACHED, 10);
+        assertThat(disabledPolicy.start().isBounded(), is(false));
+        disabledPolicy.stop();
+    }
+
+    @Test
+    public void testFallbacks() {
+        assertThat(DeadlinePolicy.Fallback.fromValue("cached"), is(DeadlinePolicy.Fallback.CACHED));
+        assertThat(DeadlinePolicy.Fallback.fromValue(" Allow "), is(DeadlinePolicy.Fallback.ALLOW));
+        assertThrows(IllegalArgumentException.class, () -> DeadlinePolicy.Fallback.fromValue("deny"));
+        assertThrows(IllegalArgumentException.class, () -> DeadlinePolicy.Fallback.fromValue("ignore"));
+    }
+
+    @Test
+    public void testAwaitWithin() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeadlinePolicy policy = new DeadlinePolicy(registry, true, 1, 800, DeadlinePolicy.Fallback.CACHED, 10);
+
+        // Operations finishing in time return their result
+        assertThat(policy.awaitWithin(policy.start(), () -> "done"), is("done"));
+        assertThat(policy.awaitWithin(Deadline.none(), () -> "done"), is("done"));
+
+        // Failures are propagated
+        assertThrows(IllegalStateException.class, () -> policy.awaitWithin(policy.start(), () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        // Slow operations continue in the background after the deadline
+        CountDownLatch finished = new CountDownLatch(1);
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> policy.awaitWithin(policy.start(), () -> {
+            sleep(500);
+            finished.countDown();
+            return "done";
+        }));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500, is(true));
+        assertThat(finished.await(5, TimeUnit.SECONDS), is(true));
+
+        // Expired deadlines do not start the operation at all
+        Deadline expired = Deadline.after(0);
+        assertThrows(DeadlineExceededException.class, () -> policy.awaitWithin(expired, () -> {
+            throw new IllegalStateException("Should not be called");
+        }));
+
+        policy.stop();
+    }
+
+    @Test
+    public void testRunInBackground() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeadlinePolicy policy = new DeadlinePolicy(registry, true, 5, 1_000, DeadlinePolicy.Fallback.CACHED, 10);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        assertThat(policy.runInBackground(finished::countDown), is(true));
+        policy.recordFallback("deadline");
+
+        assertThat(finished.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.webhook.background.operations").counter().count(), is(1.0));
+        assertThat(registry.get("strimzi.drain.cleaner.webhook.fallbacks").tag("reason", "deadline").tag("fallback", "cached").counter().count(), is(1.0));
+        policy.stop();
+    }
+
+    @Test
+    public void testBackgroundOperationsAreLimited() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeadlinePolicy policy = new DeadlinePolicy(registry, true, 5, 1_000, DeadlinePolicy.Fallback.CACHED, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        assertThat(policy.runInBackground(() -> {
+            await(release);
+            finished.countDown();
+        }), is(true));
+
+        // The only permit is taken by the running operation
+        assertThat(policy.runInBackground(() -> {
+            throw new IllegalStateException("Should not be called");
+        }), is(false));
+        assertThat(registry.get("strimzi.drain.cleaner.webhook.background.operations.rejected").counter().count(), is(1.0));
+
+        // Once the operation finishes, the permit is returned
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS), is(true));
+        CountDownLatch next = new CountDownLatch(1);
+        assertThat(waitForPermit(policy, next::countDown), is(true));
+        assertThat(next.await(5, TimeUnit.SECONDS), is(true));
+
+        policy.stop();
+    }
+
+    private static boolean waitForPermit(DeadlinePolicy policy, Runnable operation) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (policy.runInBackground(operation)) {
+                return true;
+            }
+
+            Thread.sleep(50);
+        }
+
+        return false;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
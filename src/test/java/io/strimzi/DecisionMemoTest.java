@@ -0,0 +1,105 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DecisionMemoTest {
+    private final static String NAMESPACE = "my-namespace";
+
+    MeterRegistry registry;
+    AtomicLong clock;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        clock = new AtomicLong(0);
+    }
+
+    @Test
+    public void testDecisions() {
+        DecisionMemo memo = new DecisionMemo(registry, true, 5_000, 100, clock::get);
+
+        memo.put(NAMESPACE, "my-cluster-kafka-0", "UID-1", true);
+        memo.put(NAMESPACE, "my-cluster-entity-operator", "UID-2", false);
+        memo.put(NAMESPACE, "my-cluster-kafka-1", "UID-3", false);
+
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-0", null), is(true));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-0", "UID-1"), is(true));
+        assertThat(memo.get(NAMESPACE, "my-cluster-entity-operator", null), is(false));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-1", null), is(false));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-2", null), is(nullValue()));
+        assertThat(memo.get("other-namespace", "my-cluster-kafka-0", null), is(nullValue()));
+
+        assertThat(registry.get("strimzi.drain.cleaner.decision.memo.requests").tag("result", "hit").counter().count(), is(4.0));
+        assertThat(registry.get("strimzi.drain.cleaner.decision.memo.requests").tag("result", "miss").counter().count(), is(2.0));
+        assertThat(registry.get("strimzi.drain.cleaner.decision.memo.size").gauge().value(), is(3.0));
+    }
+
+    @Test
+    public void testExpiration() {
+        DecisionMemo memo = new DecisionMemo(registry, true, 5_000, 100, clock::get);
+
+        memo.put(NAMESPACE, "my-cluster-kafka-0", "UID-1", true);
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(5_000));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-0", null), is(true));
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(5_001));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-0", null), is(nullValue()));
+        assertThat(registry.get("strimzi.drain.cleaner.decision.memo.size").gauge().value(), is(0.0));
+    }
+
+    @Test
+    public void testUidChangeInvalidation() {
+        DecisionMemo memo = new DecisionMemo(registry, true, 5_000, 100, clock::get);
+
+        memo.put(NAMESPACE, "my-cluster-kafka-0", "UID-1", true);
+        memo.put(NAMESPACE, "my-cluster-kafka-1", "UID-4", false);
+
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-0", "UID-2"), is(nullValue()));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-0", null), is(nullValue()));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-1", "UID-3"), is(nullValue()));
+        assertThat(registry.get("strimzi.drain.cleaner.decision.memo.invalidations").counter().count(), is(2.0));
+    }
+
+    @Test
+    public void testRemove() {
+        DecisionMemo memo = new DecisionMemo(registry, true, 5_000, 100, clock::get);
+
+        memo.put(NAMESPACE, "my-cluster-kafka-0", "UID-1", true);
+        memo.put(NAMESPACE, "my-cluster-kafka-1", "UID-2", true);
+        memo.remove(NAMESPACE, "my-cluster-kafka-0");
+
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-0", null), is(nullValue()));
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-1", null), is(true));
+    }
+
+    @Test
+    public void testMaxSize() {
+        DecisionMemo memo = new DecisionMemo(registry, true, 5_000, 2, clock::get);
+
+        memo.put(NAMESPACE, "my-cluster-kafka-0", "UID-0", true);
+        memo.put(NAMESPACE, "my-cluster-kafka-1", "UID-1", true);
+        memo.put(NAMESPACE, "my-cluster-kafka-2", "UID-2", true);
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-2", null), is(nullValue()));
+
+        // Expired decisions are removed to make space for new ones
+        clock.set(TimeUnit.MILLISECONDS.toNanos(6_000));
+        memo.put(NAMESPACE, "my-cluster-kafka-2", "UID-2", true);
+        assertThat(memo.get(NAMESPACE, "my-cluster-kafka-2", null), is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.decision.memo.size").gauge().value(), is(1.0));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DrainSessionsTest {
+    private static final String NAMESPACE = "my-namespace";
+    private static final String POD_PATH = "/api/v1/namespaces/my-namespace/pods/my-cluster-kafka-0?includeObject=None";
+    private static final String LIST_PATH = "/api/v1/pods?fieldSelector=spec.nodeName%3Dnode-1&labelSelector=strimzi.io%2Fkind%3DKafka";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+    MeterRegistry registry;
+    AtomicLong clock;
+    DrainSessions sessions;
+
+    @BeforeEach
+    public void setup() {
+        server = new KubernetesMockServer(false);
+        server.init();
+        client = server.createClient();
+        registry = new SimpleMeterRegistry();
+        clock = new AtomicLong(0);
+        sessions = new DrainSessions(client, registry, true, List.of(), 30_000, clock::get);
+        sessions.start();
+    }
+
+    @AfterEach
+    public void teardown() {
+        sessions.stop();
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    public void testSession() throws InterruptedException, ExecutionException, TimeoutException {
+        server.expect().get().withPath(POD_PATH).andReturn(200, table("my-cluster-kafka-0", "node-1")).once();
+        server.expect().get().withPath(LIST_PATH).andReturn(200, new PodListBuilder().withItems(pod("my-cluster-kafka-0", "UID-0"), pod("my-cluster-kafka-1", "UID-1"), pod("my-cluster-zookeeper-0", "UID-2")).build()).once();
+
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-1", "UID-1"), is(nullValue()));
+
+        sessions.open(NAMESPACE, "my-cluster-kafka-0", null, true);
+        sessions.awaitOpened();
+        assertThat(server.getRequestCount(), is(2));
+
+        // The node is read from the table of the pod and the pods are listed only with their metadata
+        assertThat(server.takeRequest().getHeader("Accept"), is(DrainSessions.TABLE));
+        assertThat(server.takeRequest().getHeader("Accept"), is(DrainSessions.PARTIAL_OBJECT_METADATA_LIST));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.opened").counter().count(), is(1.0));
+
+        // Pods on the node are served from the session
+        ObjectMeta metadata = sessions.get(NAMESPACE, "my-cluster-kafka-1", "UID-1");
+        assertThat(metadata.getUid(), is("UID-1"));
+        assertThat(metadata.getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION), is(nullValue()));
+        sessions.annotated(NAMESPACE, "my-cluster-kafka-1");
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-1", "UID-1").getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION), is("true"));
+
+        // Evictions without UID, pods with a different UID or on other nodes are not served from the session
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-1", null), is(nullValue()));
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-1", "OTHER-UID"), is(nullValue()));
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-2", "UID-3"), is(nullValue()));
+
+        // Pods known to the session do not open another session
+        sessions.open(NAMESPACE, "my-cluster-zookeeper-0", null, true);
+        sessions.awaitOpened();
+        assertThat(server.getRequestCount(), is(2));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.opened").counter().count(), is(1.0));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.hits").counter().count(), is(2.0));
+
+        // The session is closed after its time-to-live
+        clock.set(TimeUnit.SECONDS.toNanos(31));
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-1", "UID-1"), is(nullValue()));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.evictions").summary().totalAmount(), is(3.0));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.annotated.pods").summary().totalAmount(), is(2.0));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.duration").timer().totalTime(TimeUnit.SECONDS), is(31.0));
+    }
+
+    @Test
+    public void testKnownNode() throws InterruptedException, ExecutionException, TimeoutException {
+        server.expect().get().withPath(LIST_PATH).andReturn(200, new PodListBuilder().withItems(pod("my-cluster-kafka-0", "UID-0"), pod("my-cluster-kafka-1", "UID-1")).build()).once();
+
+        // The pod is not read from the Kubernetes API when its node is known
+        sessions.open(NAMESPACE, "my-cluster-kafka-0", "node-1", true);
+        sessions.awaitOpened();
+
+        assertThat(server.getRequestCount(), is(1));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.opened").counter().count(), is(1.0));
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-1", "UID-1").getUid(), is("UID-1"));
+    }
+
+    @Test
+    public void testPodWithoutNode() throws InterruptedException, ExecutionException, TimeoutException {
+        server.expect().get().withPath(POD_PATH).andReturn(200, table("my-cluster-kafka-0", "<none>")).once();
+
+        sessions.open(NAMESPACE, "my-cluster-kafka-0", null, true);
+        sessions.awaitOpened();
+
+        assertThat(server.getRequestCount(), is(1));
+        assertThat(registry.get("strimzi.drain.cleaner.drain.session.opened").counter().count(), is(0.0));
+    }
+
+    @Test
+    public void testForget() throws InterruptedException, ExecutionException, TimeoutException {
+        server.expect().get().withPath(LIST_PATH).andReturn(200, new PodListBuilder().withItems(pod("my-cluster-kafka-0", "UID-0"), pod("my-cluster-kafka-1", "UID-1")).build()).once();
+
+        sessions.open(NAMESPACE, "my-cluster-kafka-0", "node-1", true);
+        sessions.awaitOpened();
+        sessions.annotated(NAMESPACE, "my-cluster-kafka-1");
+
+        // The pod which failed to be annotated is not served from the session anymore
+        sessions.forget(NAMESPACE, "my-cluster-kafka-1");
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-1", "UID-1"), is(nullValue()));
+        assertThat(sessions.get(NAMESPACE, "my-cluster-kafka-0", "UID-0").getUid(), is("UID-0"));
+    }
+
+    @Test
+    public void testExpiredSessionIsClosedByTimer() throws InterruptedException, ExecutionException, TimeoutException {
+        server.expect().get().withPath(LIST_PATH).andReturn(200, new PodListBuilder().withItems(pod("my-cluster-kafka-0", "UID-0")).build()).once();
+
+        DrainSessions sessions = new DrainSessions(client, registry, true, List.of(), 100, clock::get);
+        sessions.start();
+
+        try {
+            sessions.open(NAMESPACE, "my-cluster-kafka-0", "node-1", true);
+            sessions.awaitOpened();
+
+            // The session is closed without any other eviction
+            clock.set(TimeUnit.MILLISECONDS.toNanos(200));
+            for (int i = 0; i < 100 && registry.get("strimzi.drain.cleaner.drain.session.evictions").summary().count() == 0; i++) {
+                Thread.sleep(50);
+            }
+
+            assertThat(registry.get("strimzi.drain.cleaner.drain.session.evictions").summary().count(), is(1L));
+            assertThat(registry.get("strimzi.drain.cleaner.drain.session.duration").timer().totalTime(TimeUnit.MILLISECONDS), is(200.0));
+        } finally {
+            sessions.stop();
+        }
+    }
+
+    @Test
+    public void testDisabledSessions() {
+        DrainSessions sessions = new DrainSessions(client, registry, false, List.of(), 30_000, clock::get);
+        sessions.start();
+        sessions.open(NAMESPACE, "my-cluster-kafka-0", null, true);
+        sessions.stop();
+
+        assertThat(sessions.isEnabled(), is(false));
+        assertThat(server.getRequestCount(), is(0));
+    }
+
+    private static String table(String name, String node) {
+        return "{\"kind\":\"Table\",\"apiVersion\":\"meta.k8s.io/v1\",\"metadata\":{},"
+                + "\"columnDefinitions\":[{\"name\":\"Name\",\"type\":\"string\"},{\"name\":\"Status\",\"type\":\"string\"},{\"name\":\"Node\",\"type\":\"string\"}],"
+                + "\"rows\":[{\"cells\":[\"" + name + "\",\"Running\",\"" + node + "\"],\"object\":null}]}";
+    }
+
+    private static Pod pod(String name, String uid) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                    .withUid(uid)
+                    .withLabels(Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", name.substring(0, name.lastIndexOf('-'))))
+                .endMetadata()
+                .withNewSpec()
+                    .withNodeName("node-1")
+                .endSpec()
+                .build();
+    }
+}
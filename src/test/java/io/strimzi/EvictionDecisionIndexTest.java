@@ -0,0 +1,114 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EvictionDecisionIndexTest {
+    private final static String NAMESPACE = "my-namespace";
+
+    @Test
+    public void testDrainablePods() {
+        EvictionDecisionIndex index = new EvictionDecisionIndex(true, true);
+
+        index.onAdd(pod("my-cluster-kafka-0", "UID-1", "my-cluster-kafka", false));
+        index.onAdd(pod("my-cluster-zookeeper-0", "UID-2", "my-cluster-zookeeper", false));
+        index.onAdd(pod("my-cluster-entity-operator", "UID-3", "my-cluster-entity-operator", false));
+
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0"), is(new EvictionDecisionIndex.PodDecision("UID-1", true, false)));
+        assertThat(index.get(NAMESPACE, "my-cluster-zookeeper-0"), is(new EvictionDecisionIndex.PodDecision("UID-2", true, false)));
+        assertThat(index.get(NAMESPACE, "my-cluster-entity-operator"), is(new EvictionDecisionIndex.PodDecision("UID-3", false, false)));
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-1"), is(nullValue()));
+        assertThat(index.get("other-namespace", "my-cluster-kafka-0"), is(nullValue()));
+    }
+
+    @Test
+    public void testDrainingDisabled() {
+        EvictionDecisionIndex index = new EvictionDecisionIndex(false, false);
+
+        index.onAdd(pod("my-cluster-kafka-0", "UID-1", "my-cluster-kafka", false));
+        index.onAdd(pod("my-cluster-zookeeper-0", "UID-2", "my-cluster-zookeeper", false));
+
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0").drainable(), is(false));
+        assertThat(index.get(NAMESPACE, "my-cluster-zookeeper-0").drainable(), is(false));
+    }
+
+    @Test
+    public void testUpdates() {
+        EvictionDecisionIndex index = new EvictionDecisionIndex(true, true);
+        Pod pod = pod("my-cluster-kafka-0", "UID-1", "my-cluster-kafka", false);
+        Pod annotatedPod = pod("my-cluster-kafka-0", "UID-1", "my-cluster-kafka", true);
+
+        index.onAdd(pod);
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0").annotated(), is(false));
+
+        index.onUpdate(pod, annotatedPod);
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0").annotated(), is(true));
+
+        index.onUpdate(annotatedPod, pod);
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0").annotated(), is(false));
+    }
+
+    @Test
+    public void testDeletes() {
+        EvictionDecisionIndex index = new EvictionDecisionIndex(true, true);
+        Pod oldPod = pod("my-cluster-kafka-0", "UID-1", "my-cluster-kafka", true);
+        Pod newPod = pod("my-cluster-kafka-0", "UID-2", "my-cluster-kafka", false);
+
+        index.onAdd(oldPod);
+        index.onDelete(oldPod, false);
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0"), is(nullValue()));
+
+        // Delete of the old pod arriving after the new pod with the same name was added should be ignored
+        index.onAdd(newPod);
+        index.onDelete(oldPod, true);
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0"), is(new EvictionDecisionIndex.PodDecision("UID-2", true, false)));
+
+        index.clear();
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0"), is(nullValue()));
+    }
+
+    @Test
+    public void testPodFilter() {
+        EvictionDecisionIndex index = new EvictionDecisionIndex(true, true, 2, 0.01);
+
+        index.onAdd(pod("my-cluster-entity-operator", "UID-0", "my-cluster-entity-operator", false));
+        assertThat(index.mightBeDrainable(NAMESPACE, "my-cluster-entity-operator"), is(false));
+
+        // Adding more pods than expected rebuilds the filter with a bigger capacity
+        for (int i = 0; i < 10; i++) {
+            index.onAdd(pod("my-cluster-kafka-" + i, "UID-" + i, "my-cluster-kafka", false));
+        }
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(index.mightBeDrainable(NAMESPACE, "my-cluster-kafka-" + i), is(true));
+        }
+        assertThat(index.mightBeDrainable(NAMESPACE, "my-cluster-kafka-10"), is(false));
+        assertThat(index.filterFalsePositiveProbability() < 0.02, is(true));
+
+        index.clear();
+        assertThat(index.mightBeDrainable(NAMESPACE, "my-cluster-kafka-0"), is(false));
+    }
+
+    private Pod pod(String name, String uid, String strimziName, boolean annotated) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                    .withUid(uid)
+                    .withLabels(Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", strimziName))
+                    .withAnnotations(annotated ? Map.of("strimzi.io/manual-rolling-update", "true") : Map.of())
+                .endMetadata()
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.mockwebserver.http.Dispatcher;
+import io.fabric8.mockwebserver.http.MockResponse;
+import io.fabric8.mockwebserver.http.RecordedRequest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatcher for the mock Kubernetes API server which delegates to the CRUD dispatcher and injects latency, server
+ * errors, and throttling (429) responses into the API calls. It counts the API calls by their type. The faults are
+ * injected only once they are enabled, so the API server can be seeded without them.
+ */
+public class FaultInjectingDispatcher extends Dispatcher {
+    private final Dispatcher delegate;
+    private final long latencyMs;
+    private final double errorRate;
+    private final double throttleRate;
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = false;
+
+    /**
+     * Creates the dispatcher
+     *
+     * @param delegate      Dispatcher handling the requests
+     * @param latencyMs     Latency added to each API call in milliseconds
+     * @param errorRate     Ratio of the API calls which fail with 500 Internal Server Error
+     * @param throttleRate  Ratio of the API calls which fail with 429 Too Many Requests
+     */
+    public FaultInjectingDispatcher(Dispatcher delegate, long latencyMs, double errorRate, double throttleRate) {
+        this.delegate = delegate;
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+    }
+
+    /**
+     * Enables the fault injection and resets the counted API calls
+     */
+    public void enable() {
+        calls.clear();
+        enabled = true;
+    }
+
+    /**
+     * @return  Number of API calls by their type (method and whether it is a watch)
+     */
+    public Map<String, Long> calls() {
+        Map<String, Long> result = new TreeMap<>();
+        calls.forEach((type, count) -> result.put(type, count.sum()));
+        return result;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        if (!enabled) {
+            return delegate.dispatch(request);
+        }
+
+        String type = request.getMethod() + (request.getPath().contains("watch=true") ? " (watch)" : "");
+        calls.computeIfAbsent(type, t -> new LongAdder()).increment();
+
+        double random = ThreadLocalRandom.current().nextDouble();
+        MockResponse response;
+
+        if (random < errorRate) {
+            response = status(500, "InternalError", "Injected server error");
+        } else if (random < errorRate + throttleRate) {
+            response = status(429, "TooManyRequests", "Injected throttling").setHeader("Retry-After", 1);
+        } else {
+            response = delegate.dispatch(request);
+        }
+
+        return latencyMs > 0 ? response.setBodyDelay(Duration.ofMillis(latencyMs)) : response;
+    }
+
+    private static MockResponse status(int code, String reason, String message) {
+        return new MockResponse()
+                .setResponseCode(code)
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"apiVersion\":\"v1\",\"kind\":\"Status\",\"status\":\"Failure\",\"reason\":\"" + reason
+                        + "\",\"message\":\"" + message + "\",\"code\":" + code + "}");
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+}
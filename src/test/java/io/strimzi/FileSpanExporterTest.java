@@ -0,0 +1,133 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileSpanExporterTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testExport() throws IOException {
+        Path file = tempDir.resolve("spans.jsonl");
+        SdkTracerProvider tracerProvider = tracerProvider(file);
+        WebhookTracing tracing = new WebhookTracing(tracerProvider.get("test"));
+
+        Span review = tracing.start("review-eviction", "my-namespace", "my-cluster-kafka-0");
+        try (var ignored = review.makeCurrent()) {
+            tracing.inSpan("match-labels", "my-namespace", "my-cluster-kafka-0", () -> true);
+            tracing.endCall(tracing.start("get-pod", "my-namespace", "my-cluster-kafka-0"), "found", null);
+        }
+        tracing.endReview(review, "denied", null);
+
+        assertThrows(IllegalStateException.class, () -> tracing.inSpan("patch-pod", "my-namespace", "my-cluster-kafka-0", () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        tracerProvider.close();
+
+        List<JsonNode> spans = readSpans(file);
+        assertThat(spans.size(), is(4));
+
+        JsonNode matchLabels = spans.get(0);
+        JsonNode getPod = spans.get(1);
+        JsonNode reviewSpan = spans.get(2);
+        JsonNode patchPod = spans.get(3);
+
+        assertThat(reviewSpan.get("name").asText(), is("review-eviction"));
+        assertThat(reviewSpan.get("parentSpanId"), is(nullValue()));
+        assertThat(reviewSpan.get("attributes").get("k8s.namespace.name").asText(), is("my-namespace"));
+        assertThat(reviewSpan.get("attributes").get("k8s.pod.name").asText(), is("my-cluster-kafka-0"));
+        assertThat(reviewSpan.get("attributes").get("strimzi.drain.cleaner.decision").asText(), is("denied"));
+
+        assertThat(matchLabels.get("name").asText(), is("match-labels"));
+        assertThat(matchLabels.get("parentSpanId").asText(), is(reviewSpan.get("spanId").asText()));
+        assertThat(matchLabels.get("traceId").asText(), is(reviewSpan.get("traceId").asText()));
+
+        assertThat(getPod.get("name").asText(), is("get-pod"));
+        assertThat(getPod.get("parentSpanId").asText(), is(reviewSpan.get("spanId").asText()));
+        assertThat(getPod.get("attributes").get("strimzi.drain.cleaner.result").asText(), is("found"));
+
+        assertThat(patchPod.get("name").asText(), is("patch-pod"));
+        assertThat(patchPod.get("status").asText(), is("ERROR"));
+    }
+
+    @Test
+    public void testDisabled() {
+        FileSpanExporter exporter = new FileSpanExporter(Optional.empty());
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+
+        new WebhookTracing(tracerProvider.get("test")).inSpan("match-labels", "my-namespace", "my-pod", () -> true);
+
+        assertThat(exporter.shutdown().isSuccess(), is(true));
+        tracerProvider.close();
+    }
+
+    @Test
+    public void testNoop() {
+        WebhookTracing tracing = WebhookTracing.noop();
+
+        Span span = tracing.start("review-eviction", "my-namespace", "my-pod");
+        assertThat(span.getSpanContext().isValid(), is(false));
+        tracing.endReview(span, "allowed", null);
+
+        assertThat(tracing.inSpan("match-labels", "my-namespace", "my-pod", () -> true), is(true));
+    }
+
+    /**
+     * Creates a tracer provider which samples all spans and exports them to a file
+     *
+     * @param file  File where the spans should be exported
+     *
+     * @return  Tracer provider
+     */
+    static SdkTracerProvider tracerProvider(Path file) {
+        return SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new FileSpanExporter(Optional.of(file.toString()))))
+                .build();
+    }
+
+    /**
+     * Reads the spans exported to a file
+     *
+     * @param file  File with the exported spans
+     *
+     * @return  List with the exported spans
+     *
+     * @throws IOException  When the file cannot be read
+     */
+    static List<JsonNode> readSpans(Path file) throws IOException {
+        List<JsonNode> spans = new ArrayList<>();
+
+        for (String line : Files.readAllLines(file)) {
+            spans.add(MAPPER.readTree(line));
+        }
+
+        return spans;
+    }
+}
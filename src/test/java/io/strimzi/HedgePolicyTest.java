@@ -0,0 +1,201 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HedgePolicyTest {
+    SimpleMeterRegistry registry;
+    List<Runnable> scheduled;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        scheduled = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    public void testHedgeWins() throws ExecutionException, InterruptedException, TimeoutException {
+        HedgePolicy policy = policy(1.0);
+        List<CompletableFuture<Integer>> attempts = new CopyOnWriteArrayList<>();
+
+        // The first request never returns while the hedged request returns right away
+        CompletableFuture<Integer> result = policy.send(() -> {
+            CompletableFuture<Integer> attempt = attempts.isEmpty() ? new CompletableFuture<>() : CompletableFuture.completedFuture(200);
+            attempts.add(attempt);
+            return attempt;
+        }, code -> code < 500, 1_000, () -> true);
+
+        assertThat(result.isDone(), is(false));
+        runScheduled();
+
+        assertThat(result.get(1, TimeUnit.SECONDS), is(200));
+        assertThat(attempts.size(), is(2));
+        assertThat(attempts.get(0).isCancelled(), is(true));
+        assertThat(counter("fired"), is(1.0));
+        assertThat(counter("won"), is(1.0));
+    }
+
+    @Test
+    public void testNoHedgeForFastRequest() throws ExecutionException, InterruptedException, TimeoutException {
+        HedgePolicy policy = policy(1.0);
+        List<CompletableFuture<Integer>> attempts = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Integer> result = policy.send(() -> {
+            CompletableFuture<Integer> attempt = CompletableFuture.completedFuture(200);
+            attempts.add(attempt);
+            return attempt;
+        }, code -> code < 500, 1_000, () -> true);
+
+        assertThat(result.get(1, TimeUnit.SECONDS), is(200));
+        runScheduled();
+        assertThat(attempts.size(), is(1));
+        assertThat(counter("fired"), is(0.0));
+    }
+
+    @Test
+    public void testFirstAcceptableResponseWins() throws ExecutionException, InterruptedException, TimeoutException {
+        HedgePolicy policy = policy(1.0);
+        CompletableFuture<Integer> first = new CompletableFuture<>();
+        CompletableFuture<Integer> second = new CompletableFuture<>();
+        List<CompletableFuture<Integer>> attempts = new CopyOnWriteArrayList<>(List.of(first, second));
+
+        CompletableFuture<Integer> result = policy.send(() -> attempts.remove(0), code -> code < 500, 1_000, () -> true);
+
+        runScheduled();
+        assertThat(counter("fired"), is(1.0));
+
+        // The server error is not accepted while the other request is still running
+        first.complete(503);
+        assertThat(result.isDone(), is(false));
+
+        second.complete(200);
+        assertThat(result.get(1, TimeUnit.SECONDS), is(200));
+        assertThat(counter("won"), is(1.0));
+    }
+
+    @Test
+    public void testLastResponseWhenNoneIsAcceptable() throws ExecutionException, InterruptedException, TimeoutException {
+        HedgePolicy policy = policy(1.0);
+
+        // The first request fails before the hedge delay, so it is returned without hedging
+        CompletableFuture<Integer> result = policy.send(() -> CompletableFuture.completedFuture(503), code -> code < 500, 1_000, () -> true);
+
+        assertThat(result.get(1, TimeUnit.SECONDS), is(503));
+        assertThat(counter("fired"), is(0.0));
+    }
+
+    @Test
+    public void testHedgeBudget() {
+        HedgePolicy policy = policy(0.5);
+
+        // The first request adds only half of a hedge to the budget
+        CompletableFuture<Integer> result = policy.send(CompletableFuture::new, code -> code < 500, 1_000, () -> true);
+
+        runScheduled();
+        assertThat(counter("budget.exhausted"), is(1.0));
+
+        assertThat(result.isDone(), is(false));
+        assertThat(counter("fired"), is(0.0));
+
+        // The next request adds the other half of the hedge to the budget
+        policy.send(() -> CompletableFuture.completedFuture(200), code -> code < 500, 1_000, () -> true);
+        assertThat(policy.tryTakeBudget(), is(true));
+        assertThat(policy.tryTakeBudget(), is(false));
+    }
+
+    @Test
+    public void testHedgeRateLimited() {
+        HedgePolicy policy = policy(1.0);
+        List<CompletableFuture<Integer>> attempts = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Integer> result = policy.send(() -> {
+            CompletableFuture<Integer> attempt = new CompletableFuture<>();
+            attempts.add(attempt);
+            return attempt;
+        }, code -> code < 500, 1_000, () -> false);
+
+        runScheduled();
+
+        // The rate limiter does not allow the hedge, so it is not sent and its budget is returned
+        assertThat(result.isDone(), is(false));
+        assertThat(attempts.size(), is(1));
+        assertThat(counter("fired"), is(0.0));
+        assertThat(counter("rate.limited"), is(1.0));
+        assertThat(policy.tryTakeBudget(), is(true));
+    }
+
+    @Test
+    public void testLatencyOfCancelledRequestIsRecorded() throws InterruptedException {
+        HedgePolicy policy = new HedgePolicy(registry, 100, 0, 1.0, (delay, unit) -> scheduled::add);
+
+        for (int i = 0; i < 16; i++) {
+            CompletableFuture<Integer> first = new CompletableFuture<>();
+            CompletableFuture<Integer> second = new CompletableFuture<>();
+            List<CompletableFuture<Integer>> attempts = new CopyOnWriteArrayList<>(List.of(first, second));
+
+            policy.send(() -> attempts.remove(0), code -> code < 500, 1_000, () -> true);
+            runScheduled();
+            Thread.sleep(2);
+            second.complete(200);
+
+            assertThat(first.isCancelled(), is(true));
+        }
+
+        // The latencies of the hedges and of the cancelled first requests were recorded, so the delay was recalculated
+        assertThat(policy.delayNanos() >= TimeUnit.MILLISECONDS.toNanos(2), is(true));
+    }
+
+    @Test
+    public void testHedgeDelay() {
+        HedgePolicy policy = new HedgePolicy(registry, 90, 5, 0.1);
+
+        // The minimal delay is used until enough latencies are recorded
+        assertThat(policy.delayNanos(), is(TimeUnit.MILLISECONDS.toNanos(5)));
+
+        for (int i = 1; i <= 100; i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        // The delay is recalculated from the first 96 latencies
+        assertThat(policy.delayNanos(), is(TimeUnit.MILLISECONDS.toNanos(87)));
+
+        // The delay is never shorter than the minimal delay
+        for (int i = 0; i < 512; i++) {
+            policy.record(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        assertThat(policy.delayNanos(), is(TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+
+    /**
+     * Creates the hedge policy which sends the hedges only when the test runs the scheduled tasks
+     */
+    private HedgePolicy policy(double budgetRatio) {
+        return new HedgePolicy(registry, 95, 10, budgetRatio, (delay, unit) -> scheduled::add);
+    }
+
+    private void runScheduled() {
+        List<Runnable> tasks = List.copyOf(scheduled);
+        scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private double counter(String name) {
+        return registry.get("strimzi.drain.cleaner.pod.get.hedge." + name).counter().count();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.GenericKubernetesResource;
+import io.fabric8.kubernetes.api.model.GenericKubernetesResourceBuilder;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.ResourceDefinitionContext;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@SuppressWarnings({"deprecation", "checkstyle:ClassDataAbstractionCoupling"})
+public class KafkaResourceCacheTest {
+    private static final String NAMESPACE = "my-namespace";
+    private static final ResourceDefinitionContext KAFKA = new ResourceDefinitionContext.Builder()
+            .withGroup("kafka.strimzi.io").withVersion("v1beta2").withKind("Kafka").withPlural("kafkas").withNamespaced(true).build();
+    private static final ResourceDefinitionContext NODE_POOL = new ResourceDefinitionContext.Builder()
+            .withGroup("kafka.strimzi.io").withVersion("v1beta2").withKind("KafkaNodePool").withPlural("kafkanodepools").withNamespaced(true).build();
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+    MeterRegistry registry;
+    KafkaResourceCache cache;
+
+    @BeforeEach
+    public void setup() {
+        server = new KubernetesMockServer(new io.fabric8.mockwebserver.Context(Serialization.jsonMapper()), new MockWebServer(), new HashMap<>(), new KubernetesCrudDispatcher(), false);
+        server.init();
+        client = server.createClient();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() {
+        if (cache != null) {
+            cache.stop();
+        }
+
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    public void testToState() {
+        assertThat(KafkaResourceCache.toState(resource("Kafka", "my-cluster", false, 1L, 1L)), is(new KafkaResourceCache.ResourceState(false, false)));
+        assertThat(KafkaResourceCache.toState(resource("Kafka", "my-cluster", true, 1L, 1L)), is(new KafkaResourceCache.ResourceState(true, false)));
+        assertThat(KafkaResourceCache.toState(resource("Kafka", "my-cluster", false, 2L, 1L)), is(new KafkaResourceCache.ResourceState(false, true)));
+        assertThat(KafkaResourceCache.toState(resource("Kafka", "my-cluster", false, 1L, null)), is(new KafkaResourceCache.ResourceState(false, false)));
+    }
+
+    @Test
+    public void testSkipReasons() throws InterruptedException {
+        client.genericKubernetesResources(KAFKA).inNamespace(NAMESPACE).resource(resource("Kafka", "paused-cluster", true, 1L, null)).create();
+        client.genericKubernetesResources(KAFKA).inNamespace(NAMESPACE).resource(resource("Kafka", "my-cluster", false, 1L, 1L)).create();
+        client.genericKubernetesResources(NODE_POOL).inNamespace(NAMESPACE).resource(resource("KafkaNodePool", "brokers", false, 1L, 0L)).create();
+        client.genericKubernetesResources(NODE_POOL).inNamespace(NAMESPACE).resource(resource("KafkaNodePool", "controllers", false, 1L, 1L)).create();
+
+        cache = new KafkaResourceCache(client, registry, true, List.of(), "v1beta2");
+        cache.start();
+
+        for (int i = 0; i < 100 && (cache.skipReason(pod("paused-cluster", null)) == null || cache.skipReason(pod("my-cluster", "brokers")) == null); i++) {
+            Thread.sleep(20);
+        }
+
+        double skipped = registry.get("strimzi.drain.cleaner.kafka.cache.skipped.annotations").tag("reason", "reconciliation-pending").counter().count();
+        assertThat(cache.skipReason(pod("paused-cluster", null)), is(KafkaResourceCache.SkipReason.RECONCILIATION_PAUSED));
+        assertThat(cache.skipReason(pod("my-cluster", "brokers")), is(KafkaResourceCache.SkipReason.RECONCILIATION_PENDING));
+        assertThat(cache.skipReason(pod("my-cluster", "controllers")), is(nullValue()));
+        assertThat(cache.skipReason(pod("unknown-cluster", null)), is(nullValue()));
+        assertThat(registry.get("strimzi.drain.cleaner.kafka.cache.skipped.annotations").tag("reason", "reconciliation-pending").counter().count(), is(skipped + 1));
+
+        // Resumed reconciliation is picked up from the informer
+        client.genericKubernetesResources(KAFKA).inNamespace(NAMESPACE).resource(resource("Kafka", "paused-cluster", false, 1L, null)).update();
+
+        for (int i = 0; i < 100 && cache.skipReason(pod("paused-cluster", null)) != null; i++) {
+            Thread.sleep(20);
+        }
+
+        assertThat(cache.skipReason(pod("paused-cluster", null)), is(nullValue()));
+    }
+
+    @Test
+    public void testDisabledCache() {
+        KafkaResourceCache cache = new KafkaResourceCache(client, registry, false, List.of(), "v1beta2");
+        cache.start();
+
+        assertThat(cache.skipReason(pod("my-cluster", null)), is(nullValue()));
+        assertThat(server.getRequestCount(), is(0));
+        cache.stop();
+    }
+
+    private static ObjectMeta pod(String cluster, String pool) {
+        ObjectMetaBuilder builder = new ObjectMetaBuilder()
+                .withName(cluster + "-kafka-0")
+                .withNamespace(NAMESPACE)
+                .addToLabels("strimzi.io/cluster", cluster);
+
+        if (pool != null) {
+            builder.addToLabels("strimzi.io/pool-name", pool);
+        }
+
+        return builder.build();
+    }
+
+    private static GenericKubernetesResource resource(String kind, String name, boolean paused, Long generation, Long observedGeneration) {
+        GenericKubernetesResource resource = new GenericKubernetesResourceBuilder()
+                .withApiVersion("kafka.strimzi.io/v1beta2")
+                .withKind(kind)
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                    .withGeneration(generation)
+                    .withAnnotations(paused ? Map.of("strimzi.io/pause-reconciliation", "true") : Map.of())
+                .endMetadata()
+                .build();
+
+        if (observedGeneration != null) {
+            resource.setAdditionalProperty("status", Map.of("observedGeneration", observedGeneration));
+        }
+
+        return resource;
+    }
+}
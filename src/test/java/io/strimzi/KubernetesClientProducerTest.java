@@ -12,6 +12,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 
 /**
  * Test for the custom KubernetesClient producer to ensure it creates a client
@@ -62,4 +63,46 @@ public class KubernetesClientProducerTest {
         assertEquals(30000, connectionTimeout, "Connection timeout should be set to 30000ms as configured by user");
         assertEquals(60000, requestTimeout, "Request timeout should be set to 60000ms as configured by user");
     }
+
+    /**
+     * Test that custom retry backoff is properly applied to the KubernetesClient
+     * when configured by the user.
+     */
+    @Test
+    public void testKubernetesClientCreationWithCustomRetryBackoff() {
+        // Simulate user configuration by setting the retry backoff values directly
+        producer.requestRetryBackoffLimit = Optional.of(5);
+        producer.requestRetryBackoffInterval = Optional.of(200);
+
+        // Create client with custom configuration
+        KubernetesClient client = producer.kubernetesClient();
+
+        // Verify the client was created and configured correctly
+        assertNotNull(client, "KubernetesClient should be created");
+        assertEquals(5, client.getConfiguration().getRequestRetryBackoffLimit(), "Retry backoff limit should be set to 5 as configured by user");
+        assertEquals(200, client.getConfiguration().getRequestRetryBackoffInterval(), "Retry backoff interval should be set to 200ms as configured by user");
+    }
+
+    /**
+     * Test that the informer KubernetesClient is a separate client with its own
+     * timeouts.
+     */
+    @Test
+    public void testInformerKubernetesClientCreationWithCustomTimeouts() {
+        // Simulate user configuration by setting the timeout values directly
+        producer.requestTimeout = Optional.of(5000);
+        producer.informerConnectionTimeout = Optional.of(15000);
+        producer.informerRequestTimeout = Optional.of(120000);
+
+        // Create both clients with custom configuration
+        KubernetesClient client = producer.kubernetesClient();
+        KubernetesClient informerClient = producer.informerKubernetesClient();
+
+        // Verify the clients were created and configured correctly
+        assertNotNull(informerClient, "Informer KubernetesClient should be created");
+        assertNotSame(client, informerClient, "Informer KubernetesClient should be a separate client");
+        assertEquals(5000, client.getConfiguration().getRequestTimeout(), "Request timeout should be set to 5000ms as configured by user");
+        assertEquals(15000, informerClient.getConfiguration().getConnectionTimeout(), "Informer connection timeout should be set to 15000ms as configured by user");
+        assertEquals(120000, informerClient.getConfiguration().getRequestTimeout(), "Informer request timeout should be set to 120000ms as configured by user");
+    }
 }
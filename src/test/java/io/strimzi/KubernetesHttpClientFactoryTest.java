@@ -0,0 +1,98 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class KubernetesHttpClientFactoryTest {
+    private static final String PATH = "/api/v1/namespaces/my-namespace/pods/my-cluster-kafka-0";
+
+    KubernetesMockServer server;
+    Vertx vertx;
+
+    @BeforeEach
+    public void setup() {
+        server = new KubernetesMockServer(false);
+        server.init();
+        vertx = Vertx.vertx();
+    }
+
+    @AfterEach
+    public void teardown() {
+        vertx.close().toCompletionStage().toCompletableFuture().join();
+        server.destroy();
+    }
+
+    @Test
+    public void testHttp2() {
+        HttpClientOptions options = new HttpClientOptions();
+        KubernetesHttpClientFactory.configure(options, true, 10, 30, true, 45);
+
+        assertThat(options.getProtocolVersion(), is(HttpVersion.HTTP_2));
+        assertThat(options.isUseAlpn(), is(true));
+        assertThat(options.getHttp2MaxPoolSize(), is(10));
+        assertThat(options.getMaxPoolSize(), is(10));
+        assertThat(options.getIdleTimeout(), is(30));
+        assertThat(options.isKeepAlive(), is(true));
+        assertThat(options.getKeepAliveTimeout(), is(45));
+        assertThat(options.getHttp2KeepAliveTimeout(), is(45));
+    }
+
+    @Test
+    public void testHttp11() {
+        HttpClientOptions options = new HttpClientOptions();
+        KubernetesHttpClientFactory.configure(options, false, 100, 0, false, 60);
+
+        assertThat(options.getProtocolVersion(), is(HttpVersion.HTTP_1_1));
+        assertThat(options.isUseAlpn(), is(false));
+        assertThat(options.getMaxPoolSize(), is(100));
+        assertThat(options.getIdleTimeout(), is(0));
+        assertThat(options.isKeepAlive(), is(false));
+    }
+
+    @Test
+    public void testAdditionalConfig() {
+        WebClientOptions options = new WebClientOptions();
+        new KubernetesHttpClientFactory(vertx, true, 10, 30, true, 45).additionalConfig(options);
+
+        assertThat(options.getProtocolVersion(), is(HttpVersion.HTTP_2));
+        assertThat(options.getMaxPoolSize(), is(10));
+        assertThat(options.getIdleTimeout(), is(30));
+        assertThat(options.getKeepAliveTimeout(), is(45));
+    }
+
+    @Test
+    public void testClientsShareVertx() {
+        server.expect().get().withPath(PATH).andReturn(200, new PodBuilder().withNewMetadata().withName("my-cluster-kafka-0").endMetadata().build()).times(2);
+
+        KubernetesHttpClientFactory factory = new KubernetesHttpClientFactory(vertx, false, 10, 30, true, 60);
+        Config config = new ConfigBuilder(Config.empty()).withMasterUrl(server.url("/")).build();
+
+        try (KubernetesClient client = new KubernetesClientBuilder().withConfig(config).withHttpClientFactory(factory).build()) {
+            assertThat(client.pods().inNamespace("my-namespace").withName("my-cluster-kafka-0").get(), is(notNullValue()));
+        }
+
+        // Closing the Kubernetes client does not close the Vert.x instance of the application
+        try (KubernetesClient client = new KubernetesClientBuilder().withConfig(config).withHttpClientFactory(factory).build()) {
+            assertThat(client.pods().inNamespace("my-namespace").withName("my-cluster-kafka-0").get(), is(notNullValue()));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts a local mock Kubernetes API server in the CRUD mode for the load tests. The server is seeded with Strimzi and
+ * non-Strimzi pods before the Drain Cleaner starts. Afterwards, latency, server errors, and throttling are injected
+ * into the API calls according to the load profile. The Drain Cleaner is configured to use this API server, so no
+ * network or Kubernetes cluster is needed.
+ */
+@SuppressWarnings("deprecation")
+public class MockKubernetesApiResource implements QuarkusTestResourceLifecycleManager {
+    private static final Logger LOG = LoggerFactory.getLogger(MockKubernetesApiResource.class);
+
+    private KubernetesMockServer server;
+    private FaultInjectingDispatcher dispatcher;
+
+    @Override
+    public Map<String, String> start() {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+
+        dispatcher = new FaultInjectingDispatcher(new KubernetesCrudDispatcher(), profile.apiLatencyMs(), profile.apiErrorRate(), profile.apiThrottleRate());
+        server = new KubernetesMockServer(new io.fabric8.mockwebserver.Context(Serialization.jsonMapper()), new MockWebServer(), new HashMap<>(), dispatcher, false);
+        server.init();
+
+        try (KubernetesClient client = server.createClient()) {
+            seed(client, profile);
+        }
+
+        dispatcher.enable();
+
+        String url = server.url("/");
+        System.setProperty("kubernetes.master", url);
+        System.setProperty("kubernetes.auth.tryKubeConfig", "false");
+        System.setProperty("kubernetes.auth.tryServiceAccount", "false");
+        System.setProperty("kubernetes.namespace", profile.namespace());
+
+        return Map.of("quarkus.kubernetes-client.api-server-url", url,
+                "quarkus.kubernetes-client.devservices.enabled", "false");
+    }
+
+    /**
+     * Creates the pods in the mock Kubernetes API server
+     *
+     * @param client    Kubernetes client
+     * @param profile   Load profile
+     */
+    private static void seed(KubernetesClient client, LoadProfile profile) {
+        LOG.info("Seeding the mock Kubernetes API with {} pods ({} Strimzi pods)", profile.pods(), profile.strimziPods());
+
+        for (int i = 0; i < profile.pods(); i++) {
+            client.pods().inNamespace(profile.namespace()).resource(pod(profile, i)).create();
+        }
+    }
+
+    /**
+     * Creates the definition of a seeded pod. The first pods are Strimzi Kafka pods and the other pods are non-Strimzi
+     * pods.
+     *
+     * @param profile   Load profile
+     * @param index     Index of the pod
+     *
+     * @return  Pod definition
+     */
+    /* test */ static Pod pod(LoadProfile profile, int index) {
+        boolean strimziPod = index < profile.strimziPods();
+
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(podName(profile, index))
+                    .withNamespace(profile.namespace())
+                    .withLabels(strimziPod
+                            ? Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", "my-cluster-kafka", "strimzi.io/cluster", "my-cluster")
+                            : Map.of("app", "my-app"))
+                .endMetadata()
+                .withNewSpec()
+                    .addNewContainer()
+                        .withName("main")
+                        .withImage("quay.io/strimzi/kafka:latest")
+                    .endContainer()
+                .endSpec()
+                .build();
+    }
+
+    /**
+     * @param profile   Load profile
+     * @param index     Index of the pod
+     *
+     * @return  Name of the seeded pod
+     */
+    /* test */ static String podName(LoadProfile profile, int index) {
+        return index < profile.strimziPods() ? "my-cluster-kafka-" + index : "my-app-" + index;
+    }
+
+    @Override
+    public void inject(TestInjector testInjector) {
+        testInjector.injectIntoFields(dispatcher, new TestInjector.MatchesType(FaultInjectingDispatcher.class));
+    }
+
+    @Override
+    public void stop() {
+        System.clearProperty("kubernetes.master");
+        System.clearProperty("kubernetes.auth.tryKubeConfig");
+        System.clearProperty("kubernetes.auth.tryServiceAccount");
+        System.clearProperty("kubernetes.namespace");
+
+        if (server != null) {
+            server.destroy();
+        }
+    }
+
+    /**
+     * Load profile of the load test configured using system properties
+     *
+     * @param namespace         Namespace of the pods
+     * @param pods              Number of the seeded pods
+     * @param strimziPods       Number of the seeded Strimzi pods
+     * @param evictions         Number of the eviction requests sent to the webhook
+     * @param rate              Number of the eviction requests sent per second
+     * @param apiLatencyMs      Latency added to each Kubernetes API call in milliseconds
+     * @param apiErrorRate      Ratio of the Kubernetes API calls which fail with 500 Internal Server Error
+     * @param apiThrottleRate   Ratio of the Kubernetes API calls which fail with 429 Too Many Requests
+     */
+    record LoadProfile(String namespace, int pods, int strimziPods, int evictions, int rate, long apiLatencyMs, double apiErrorRate, double apiThrottleRate) {
+        static LoadProfile fromSystemProperties() {
+            return new LoadProfile(System.getProperty("loadtest.namespace", "load-test"),
+                    Integer.getInteger("loadtest.pods", 5_000),
+                    Integer.getInteger("loadtest.strimzi.pods", 500),
+                    Integer.getInteger("loadtest.evictions", 5_000),
+                    Integer.getInteger("loadtest.rate", 250),
+                    Long.getLong("loadtest.api.latency.ms", 5),
+                    Double.parseDouble(System.getProperty("loadtest.api.error.rate", "0")),
+                    Double.parseDouble(System.getProperty("loadtest.api.throttle.rate", "0")));
+        }
+    }
+}
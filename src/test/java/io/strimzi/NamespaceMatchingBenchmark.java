@@ -0,0 +1,76 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Benchmarks matching the pod labels and the namespaces from the eviction requests against the list of the watched
+ * namespaces. The last watched namespace is looked up, which is the worst case for large namespace lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j2.level=WARN", "-Djava.util.logging.manager=org.jboss.logmanager.LogManager"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NamespaceMatchingBenchmark {
+    private static final Map<String, String> KAFKA_LABELS = Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", "my-cluster-kafka");
+    private static final Map<String, String> ZOOKEEPER_LABELS = Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", "my-cluster-zookeeper");
+
+    @Param({"10", "1000", "10000"})
+    int namespaces;
+
+    private ValidatingWebhook webhook;
+    private String lastNamespace;
+
+    @Setup
+    public void setup() {
+        String drainNamespaces = IntStream.range(0, namespaces)
+                .mapToObj(i -> "namespace-" + i)
+                .collect(Collectors.joining(","));
+
+        webhook = new ValidatingWebhook(mock(KubernetesClient.class), true, true, true, drainNamespaces);
+        lastNamespace = "namespace-" + (namespaces - 1);
+    }
+
+    @Benchmark
+    public boolean isNamespaceWatched() {
+        return webhook.evictionDecider.isNamespaceWatched(lastNamespace);
+    }
+
+    @Benchmark
+    public boolean isNamespaceNotWatched() {
+        return webhook.evictionDecider.isNamespaceWatched("other-namespace");
+    }
+
+    @Benchmark
+    public boolean matchingKafkaLabel() {
+        return ValidatingWebhook.matchingLabel(KAFKA_LABELS, true, true);
+    }
+
+    @Benchmark
+    public boolean matchingZooKeeperLabel() {
+        return ValidatingWebhook.matchingLabel(ZOOKEEPER_LABELS, true, true);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Node;
+import io.fabric8.kubernetes.api.model.NodeBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.mockwebserver.MockWebServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@SuppressWarnings({"deprecation", "checkstyle:ClassDataAbstractionCoupling"})
+public class NodeWatchTest {
+    private static final String NAMESPACE = "my-namespace";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+    MeterRegistry registry;
+    PodCache podCache;
+    NodeWatch watch;
+
+    @BeforeEach
+    public void setup() {
+        server = new KubernetesMockServer(new io.fabric8.mockwebserver.Context(Serialization.jsonMapper()), new MockWebServer(), new HashMap<>(), new KubernetesCrudDispatcher(), false);
+        server.init();
+        client = server.createClient();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() {
+        if (watch != null) {
+            watch.stop();
+        }
+
+        if (podCache != null) {
+            podCache.stop();
+        }
+
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    public void testIsDisrupted() {
+        NodeWatch watch = new NodeWatch(client, registry, null, null, true, "karpenter.sh/disrupted, ToBeDeletedByClusterAutoscaler", true, true, true);
+
+        assertThat(watch.isDisrupted(node("node-1", false, null)), is(false));
+        assertThat(watch.isDisrupted(node("node-1", true, null)), is(true));
+        assertThat(watch.isDisrupted(node("node-1", false, "karpenter.sh/disrupted")), is(true));
+        assertThat(watch.isDisrupted(node("node-1", false, "ToBeDeletedByClusterAutoscaler")), is(true));
+        assertThat(watch.isDisrupted(node("node-1", false, "node.kubernetes.io/not-ready")), is(false));
+        assertThat(watch.isDisrupted(new NodeBuilder().withNewMetadata().withName("node-1").endMetadata().build()), is(false));
+    }
+
+    @Test
+    public void testIsDisruptedWithDefaults() {
+        NodeWatch watch = new NodeWatch(client, registry, null, null, true, NodeWatch.DEFAULT_DISRUPTION_TAINTS, false, true, true);
+
+        // Cordoned nodes and the soft candidate taints are not drain signals by default
+        assertThat(watch.isDisrupted(node("node-1", true, null)), is(false));
+        assertThat(watch.isDisrupted(node("node-1", true, "node.kubernetes.io/unschedulable")), is(false));
+        assertThat(watch.isDisrupted(node("node-1", false, "DeletionCandidateOfClusterAutoscaler")), is(false));
+        assertThat(watch.isDisrupted(node("node-1", false, "ToBeDeletedByClusterAutoscaler")), is(true));
+        assertThat(watch.isDisrupted(node("node-1", false, "karpenter.sh/disrupted")), is(true));
+    }
+
+    @Test
+    public void testCordonedNode() throws InterruptedException, ExecutionException, TimeoutException {
+        client.nodes().resource(node("node-1", false, null)).create();
+        client.nodes().resource(node("node-2", false, null)).create();
+        client.pods().resource(pod("my-cluster-kafka-0", "my-cluster-kafka", "node-1")).create();
+        client.pods().resource(pod("my-cluster-zookeeper-0", "my-cluster-zookeeper", "node-1")).create();
+        client.pods().resource(pod("my-cluster-kafka-1", "my-cluster-kafka", "node-2")).create();
+        client.pods().resource(pod("my-cluster-entity-operator", "my-cluster-entity-operator", "node-1")).create();
+
+        start(restartAnnotator(), List.of(), true, true, true);
+
+        // Nothing is annotated before the node is cordoned
+        watch.awaitAnnotations();
+        assertThat(annotation("my-cluster-kafka-0"), is(nullValue()));
+
+        client.nodes().withName("node-1").edit(node -> new NodeBuilder(node).editSpec().withUnschedulable(true).endSpec().build());
+
+        waitForAnnotation("my-cluster-kafka-0");
+        waitForAnnotation("my-cluster-zookeeper-0");
+        watch.awaitAnnotations();
+        assertThat(annotation("my-cluster-kafka-1"), is(nullValue()));
+        assertThat(annotation("my-cluster-entity-operator"), is(nullValue()));
+        assertThat(registry.get("strimzi.drain.cleaner.node.watch.disrupted.nodes").counter().count(), is(1.0));
+        assertThat(registry.get("strimzi.drain.cleaner.node.watch.annotated.pods").counter().count(), is(2.0));
+    }
+
+    @Test
+    public void testTaintedNodeAndLatePod() throws InterruptedException, ExecutionException, TimeoutException {
+        client.nodes().resource(node("node-1", false, "karpenter.sh/disrupted")).create();
+
+        start(restartAnnotator(), List.of(NAMESPACE), false, true, false);
+
+        // Pods added to the node after it was tainted are annotated as well. The ZooKeeper pod is added first, so it
+        // would be annotated before the Kafka pod.
+        client.pods().resource(pod("my-cluster-zookeeper-0", "my-cluster-zookeeper", "node-1")).create();
+        client.pods().resource(pod("my-cluster-kafka-0", "my-cluster-kafka", "node-1")).create();
+
+        waitForAnnotation("my-cluster-kafka-0");
+        watch.awaitAnnotations();
+        assertThat(annotation("my-cluster-zookeeper-0"), is(nullValue()));
+    }
+
+    @Test
+    public void testDisabledWatch() {
+        NodeWatch watch = new NodeWatch(client, registry, null, null, false, NodeWatch.DEFAULT_DISRUPTION_TAINTS, false, true, true);
+        watch.start();
+        watch.stop();
+
+        assertThat(server.getRequestCount(), is(0));
+    }
+
+    @Test
+    public void testWatchWithoutPodCache() {
+        PodCache podCache = new PodCache(client, registry, false, List.of(), true, true);
+        NodeWatch watch = new NodeWatch(client, registry, null, podCache, true, NodeWatch.DEFAULT_DISRUPTION_TAINTS, false, true, true);
+        watch.start();
+
+        assertThat(watch.isSynced(), is(false));
+        watch.stop();
+
+        assertThat(server.getRequestCount(), is(0));
+    }
+
+    private RestartAnnotator restartAnnotator() {
+        return new RestartAnnotator(new PodAnnotator(client, new SimpleMeterRegistry(), PodAnnotator.DEFAULT_MAX_RETRIES, PodAnnotator.DEFAULT_RETRY_BACKOFF_MS), new InMemoryDecisions(), true);
+    }
+
+    /**
+     * Starts the pod cache and the node watch sharing its informers and waits until their informers are synced
+     */
+    private void start(RestartAnnotator restartAnnotator, List<String> namespaces, boolean cordoned, boolean drainKafka, boolean drainZooKeeper) throws InterruptedException {
+        podCache = new PodCache(client, registry, true, namespaces, drainKafka, drainZooKeeper);
+        watch = new NodeWatch(client, registry, restartAnnotator, podCache, true, NodeWatch.DEFAULT_DISRUPTION_TAINTS, cordoned, drainKafka, drainZooKeeper);
+        podCache.nodeWatch = watch;
+        podCache.start();
+        watch.start();
+
+        for (int i = 0; i < 100 && !(podCache.isSynced() && watch.isSynced()); i++) {
+            Thread.sleep(50);
+        }
+
+        assertThat(podCache.isSynced(), is(true));
+        assertThat(watch.isSynced(), is(true));
+    }
+
+    private void waitForAnnotation(String name) throws InterruptedException {
+        for (int i = 0; i < 100 && annotation(name) == null; i++) {
+            Thread.sleep(50);
+        }
+
+        assertThat(annotation(name), is("true"));
+    }
+
+    private String annotation(String name) {
+        Map<String, String> annotations = client.pods().inNamespace(NAMESPACE).withName(name).get().getMetadata().getAnnotations();
+        return annotations != null ? annotations.get(ValidatingWebhook.MANUAL_RU_ANNOTATION) : null;
+    }
+
+    private static Node node(String name, boolean unschedulable, String taint) {
+        NodeBuilder builder = new NodeBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                .endMetadata()
+                .withNewSpec()
+                    .withUnschedulable(unschedulable)
+                .endSpec();
+
+        if (taint != null) {
+            builder.editSpec().addNewTaint().withKey(taint).withEffect("NoSchedule").endTaint().endSpec();
+        }
+
+        return builder.build();
+    }
+
+    private static Pod pod(String name, String strimziName, String nodeName) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                    .withLabels(Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", strimziName))
+                .endMetadata()
+                .withNewSpec()
+                    .withNodeName(nodeName)
+                .endSpec()
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.http.RecordedRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PodAnnotatorTest {
+    private static final String PATH = "/api/v1/namespaces/my-namespace/pods/my-cluster-kafka-0";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+    MeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        server = new KubernetesMockServer(false);
+        server.init();
+        // The retries of the Kubernetes client are disabled to test only the retries of the annotator
+        client = new KubernetesClientBuilder()
+                .withConfig(new ConfigBuilder(Config.empty())
+                        .withMasterUrl(server.url("/"))
+                        .withRequestRetryBackoffLimit(0)
+                        .build())
+                .build();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() {
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    public void testAnnotate() throws InterruptedException {
+        server.expect().patch().withPath(PATH).andReturn(200, pod()).once();
+
+        PodAnnotator annotator = new PodAnnotator(client, registry, 3, 10);
+        assertThat(annotator.annotate("my-namespace", "my-cluster-kafka-0"), is(true));
+
+        RecordedRequest request = server.takeRequest();
+        assertThat(request.getMethod(), is("PATCH"));
+        assertThat(request.getHeader("Content-Type"), is("application/merge-patch+json"));
+        assertThat(request.getBody().readUtf8(), is(PodAnnotator.ANNOTATION_PATCH));
+
+        assertThat(registry.get("strimzi.drain.cleaner.pod.patch.latency").tag("result", "success").timer().count(), is(1L));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.patch.size").summary().count(), is(1L));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.patch.size").summary().totalAmount(), is((double) PodAnnotator.ANNOTATION_PATCH.length()));
+        assertThat(registry.find("strimzi.drain.cleaner.pod.patch.retries").counter(), is(nullValue()));
+    }
+
+    @Test
+    public void testRetryOnTooManyRequests() {
+        server.expect().patch().withPath(PATH).andReturn(429, null).times(2);
+        server.expect().patch().withPath(PATH).andReturn(200, pod()).once();
+
+        PodAnnotator annotator = new PodAnnotator(client, registry, 3, 10);
+        assertThat(annotator.annotate("my-namespace", "my-cluster-kafka-0"), is(true));
+
+        assertThat(server.getRequestCount(), is(3));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.patch.retries").tag("code", "429").counter().count(), is(2.0));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.patch.latency").tag("result", "success").timer().count(), is(1L));
+    }
+
+    @Test
+    public void testRetriesExhausted() {
+        server.expect().patch().withPath(PATH).andReturn(429, null).times(3);
+
+        PodAnnotator annotator = new PodAnnotator(client, registry, 2, 10);
+        KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> annotator.annotate("my-namespace", "my-cluster-kafka-0"));
+
+        assertThat(e.getCode(), is(429));
+        assertThat(server.getRequestCount(), is(3));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.patch.latency").tag("result", "error").timer().count(), is(1L));
+    }
+
+    @Test
+    public void testNoRetryOnOtherErrors() {
+        server.expect().patch().withPath(PATH).andReturn(403, null).once();
+
+        PodAnnotator annotator = new PodAnnotator(client, registry, 3, 10);
+        KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> annotator.annotate("my-namespace", "my-cluster-kafka-0"));
+
+        assertThat(e.getCode(), is(403));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void testNoRetryOnConflict() {
+        server.expect().patch().withPath(PATH).andReturn(409, null).once();
+
+        PodAnnotator annotator = new PodAnnotator(client, registry, 3, 10);
+        KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> annotator.annotate("my-namespace", "my-cluster-kafka-0"));
+
+        assertThat(e.getCode(), is(409));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void testPodDoesNotExist() {
+        server.expect().patch().withPath(PATH).andReturn(404, null).once();
+
+        PodAnnotator annotator = new PodAnnotator(client, registry, 3, 10);
+        assertThat(annotator.annotate("my-namespace", "my-cluster-kafka-0"), is(false));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    private static Pod pod() {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName("my-cluster-kafka-0")
+                    .withNamespace("my-namespace")
+                .endMetadata()
+                .build();
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.EnvVarBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.AnyNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.ReducedStateItemStore;
+import io.fabric8.kubernetes.client.informers.cache.Store;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PodCacheTest {
+    private static final Logger LOG = LoggerFactory.getLogger(PodCacheTest.class);
+
+    private final static String NAMESPACE = "my-namespace";
+    private final static Pod POD = new PodBuilder()
+            .withNewMetadata()
+                .withName("my-cluster-kafka-0")
+                .withNamespace(NAMESPACE)
+                .withUid("POD-UID")
+            .endMetadata()
+            .build();
+
+    KubernetesClient client;
+    MixedOperation<Pod, PodList, PodResource> pods;
+    AnyNamespaceOperation<Pod, PodList, PodResource> podsInAnyNamespace;
+    NonNamespaceOperation<Pod, PodList, PodResource> podsInNamespace;
+    FilterWatchListDeletable<Pod, PodList, PodResource> podsWithLabel;
+    SharedIndexInformer<Pod> informer;
+
+    @SuppressWarnings("unchecked")
+    @BeforeEach
+    public void setup() {
+        client = mock(KubernetesClient.class);
+        pods = mock(MixedOperation.class);
+        podsInAnyNamespace = mock(AnyNamespaceOperation.class);
+        podsInNamespace = mock(NonNamespaceOperation.class);
+        podsWithLabel = mock(FilterWatchListDeletable.class);
+        informer = mock(SharedIndexInformer.class);
+
+        when(client.pods()).thenReturn(pods);
+        when(pods.inAnyNamespace()).thenReturn(podsInAnyNamespace);
+        when(pods.inNamespace(anyString())).thenReturn(podsInNamespace);
+        when(podsInAnyNamespace.withLabel(eq("strimzi.io/kind"), eq("Kafka"))).thenReturn(podsWithLabel);
+        when(podsInNamespace.withLabel(eq("strimzi.io/kind"), eq("Kafka"))).thenReturn(podsWithLabel);
+        when(podsWithLabel.runnableInformer(anyLong())).thenReturn(informer);
+        when(client.getKubernetesSerialization()).thenReturn(new KubernetesSerialization());
+    }
+
+    @Test
+    public void testDisabledCache() {
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), false, List.of(), true, true);
+        cache.start();
+
+        assertThat(cache.isEnabled(), is(false));
+        verify(client, never()).pods();
+
+        cache.stop();
+        verify(informer, never()).stop();
+    }
+
+    @Test
+    public void testCacheInAllNamespaces() {
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(), true, true);
+        cache.start();
+
+        assertThat(cache.isEnabled(), is(true));
+        verify(pods, times(1)).inAnyNamespace();
+        verify(pods, never()).inNamespace(anyString());
+        verify(informer, times(1)).itemStore(any(ReducedStateItemStore.class));
+        verify(informer, times(1)).addEventHandler(any(EvictionDecisionIndex.class));
+        verify(informer, times(1)).start();
+
+        cache.stop();
+        verify(informer, times(1)).stop();
+    }
+
+    @Test
+    public void testCacheInSelectedNamespaces() {
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(NAMESPACE, "other-namespace"), true, true);
+        cache.start();
+
+        verify(pods, never()).inAnyNamespace();
+        verify(pods, times(1)).inNamespace(eq(NAMESPACE));
+        verify(pods, times(1)).inNamespace(eq("other-namespace"));
+        verify(informer, times(2)).itemStore(any(ReducedStateItemStore.class));
+        verify(informer, times(2)).start();
+
+        cache.stop();
+        verify(informer, times(2)).stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testDecisionIndexIsUpdatedFromInformer() {
+        ArgumentCaptor<ResourceEventHandler<Pod>> handlerCaptor = ArgumentCaptor.forClass(ResourceEventHandler.class);
+        when(informer.addEventHandler(handlerCaptor.capture())).thenReturn(informer);
+
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(), true, true);
+        cache.start();
+
+        assertThat(cache.getDecision(NAMESPACE, "my-cluster-kafka-0"), is(nullValue()));
+
+        handlerCaptor.getValue().onAdd(new PodBuilder(POD)
+                .editMetadata()
+                    .withLabels(Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", "my-cluster-kafka"))
+                .endMetadata()
+                .build());
+
+        assertThat(cache.getDecision(NAMESPACE, "my-cluster-kafka-0"), is(new EvictionDecisionIndex.PodDecision("POD-UID", true, false)));
+
+        cache.stop();
+        assertThat(cache.getDecision(NAMESPACE, "my-cluster-kafka-0"), is(nullValue()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testPodFilter() {
+        ArgumentCaptor<ResourceEventHandler<Pod>> handlerCaptor = ArgumentCaptor.forClass(ResourceEventHandler.class);
+        when(informer.addEventHandler(handlerCaptor.capture())).thenReturn(informer);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        PodCache cache = new PodCache(client, registry, true, List.of(), true, true);
+        cache.start();
+
+        handlerCaptor.getValue().onAdd(kafkaPod(0));
+
+        // The filter is not used until the informers are synced
+        when(informer.hasSynced()).thenReturn(false);
+        assertThat(cache.isSynced(), is(false));
+        assertThat(cache.isKnownNotDrainable(NAMESPACE, "my-deployment"), is(false));
+
+        when(informer.hasSynced()).thenReturn(true);
+        assertThat(cache.isSynced(), is(true));
+        assertThat(cache.isKnownNotDrainable(NAMESPACE, "my-deployment"), is(true));
+        assertThat(cache.isKnownNotDrainable(NAMESPACE, "my-cluster-kafka-0"), is(false));
+
+        assertThat(registry.get("strimzi.drain.cleaner.pod.filter.checks").tag("result", "rejected").counter().count(), is(1.0));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.filter.checks").tag("result", "passed").counter().count(), is(1.0));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.filter.false.positives").counter().count(), is(0.0));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.filter.memory").gauge().value() > 0, is(true));
+
+        cache.stop();
+    }
+
+    @Test
+    public void testCompactItemStore() {
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(), true, true);
+        ReducedStateItemStore<Pod> store = cache.compactItemStore();
+        Pod pod = new PodBuilder(kafkaPod(0)).editSpec().withNodeName("node-1").endSpec().build();
+
+        store.put(store.getKey(pod), pod);
+        Pod cachedPod = store.get(NAMESPACE + "/my-cluster-kafka-0");
+
+        // Only the fields needed by the informer and the node name are kept
+        assertThat(cachedPod.getMetadata().getName(), is("my-cluster-kafka-0"));
+        assertThat(cachedPod.getMetadata().getNamespace(), is(NAMESPACE));
+        assertThat(cachedPod.getMetadata().getUid(), is("POD-UID-0"));
+        assertThat(cachedPod.getMetadata().getResourceVersion(), is("1000"));
+        assertThat(cachedPod.getMetadata().getLabels(), is(Map.of()));
+        assertThat(cachedPod.getMetadata().getAnnotations(), is(Map.of()));
+        assertThat(cachedPod.getSpec().getNodeName(), is("node-1"));
+        assertThat(cachedPod.getSpec().getContainers(), is(List.of()));
+        assertThat(cachedPod.getStatus(), is(nullValue()));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testNodeName() {
+        Store<Pod> store = mock(Store.class);
+        when(store.getByKey(NAMESPACE + "/my-cluster-kafka-0")).thenReturn(new PodBuilder(POD).withNewSpec().withNodeName("node-1").endSpec().build());
+        when(informer.getStore()).thenReturn(store);
+
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(), true, true);
+        cache.start();
+
+        assertThat(cache.nodeName(NAMESPACE, "my-cluster-kafka-0"), is("node-1"));
+        assertThat(cache.nodeName(NAMESPACE, "my-cluster-kafka-1"), is(nullValue()));
+
+        cache.stop();
+    }
+
+    @Test
+    public void testCompactItemStoreWithNodeWatch() {
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(), true, true);
+        cache.nodeWatch = new NodeWatch(client, new SimpleMeterRegistry(), null, cache, true, NodeWatch.DEFAULT_DISRUPTION_TAINTS, false, true, true);
+        ReducedStateItemStore<Pod> store = cache.compactItemStore();
+        Pod pod = new PodBuilder(kafkaPod(0)).editSpec().withNodeName("node-1").endSpec().build();
+
+        store.put(store.getKey(pod), pod);
+        Pod cachedPod = store.get(NAMESPACE + "/my-cluster-kafka-0");
+
+        // The node watch needs also the labels, annotations and node name
+        assertThat(cachedPod.getMetadata().getUid(), is("POD-UID-0"));
+        assertThat(cachedPod.getMetadata().getLabels(), is(pod.getMetadata().getLabels()));
+        assertThat(cachedPod.getMetadata().getAnnotations(), is(pod.getMetadata().getAnnotations()));
+        assertThat(cachedPod.getSpec().getNodeName(), is("node-1"));
+        assertThat(cachedPod.getSpec().getContainers(), is(List.of()));
+        assertThat(cachedPod.getStatus(), is(nullValue()));
+    }
+
+    @Test
+    public void testCompactItemStoreWithClusterRollGate() {
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(), true, true);
+        cache.rollGate = new ClusterRollGate(new SimpleMeterRegistry(), cache, true, 1, 60_000, System::nanoTime);
+        ReducedStateItemStore<Pod> store = cache.compactItemStore();
+        Pod pod = kafkaPod(0);
+
+        store.put(store.getKey(pod), pod);
+        Pod cachedPod = store.get(NAMESPACE + "/my-cluster-kafka-0");
+
+        // The cluster roll gate needs the labels to release the pods deleted while the informer was disconnected
+        assertThat(cachedPod.getMetadata().getUid(), is("POD-UID-0"));
+        assertThat(cachedPod.getMetadata().getLabels(), is(pod.getMetadata().getLabels()));
+        assertThat(cachedPod.getMetadata().getAnnotations(), is(pod.getMetadata().getAnnotations()));
+        assertThat(cachedPod.getStatus(), is(nullValue()));
+    }
+
+    /**
+     * Measures the heap used per cached pod by the compact informer store and the eviction decision index and compares
+     * it with the heap which would be used by an informer store with the full pods. The measured values are logged and
+     * can be used to size the memory limit of the Drain Cleaner container.
+     */
+    @Test
+    public void testHeapUsagePerCachedPod() {
+        int podCount = 2_000;
+        PodCache cache = new PodCache(client, new SimpleMeterRegistry(), true, List.of(), true, true);
+
+        // Compact store and decision index as used by the pod cache
+        ReducedStateItemStore<Pod> compactStore = cache.compactItemStore();
+        EvictionDecisionIndex index = new EvictionDecisionIndex(true, true);
+        long before = usedHeap();
+        for (int i = 0; i < podCount; i++) {
+            Pod pod = kafkaPod(i);
+            compactStore.put(compactStore.getKey(pod), pod);
+            index.onAdd(pod);
+        }
+        long compactBytesPerPod = (usedHeap() - before) / podCount;
+
+        // Store with the full pods
+        Map<String, Pod> fullStore = new HashMap<>();
+        before = usedHeap();
+        for (int i = 0; i < podCount; i++) {
+            Pod pod = kafkaPod(i);
+            fullStore.put(NAMESPACE + "/" + pod.getMetadata().getName(), pod);
+        }
+        long fullBytesPerPod = (usedHeap() - before) / podCount;
+
+        LOG.info("Heap used per cached pod: {} bytes with compact cache, {} bytes with full pods", compactBytesPerPod, fullBytesPerPod);
+
+        assertThat(compactStore.size(), is(podCount));
+        assertThat(index.get(NAMESPACE, "my-cluster-kafka-0").drainable(), is(true));
+        assertThat(fullStore.size(), is(podCount));
+        assertThat(compactBytesPerPod < fullBytesPerPod / 5, is(true));
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Creates a Kafka broker pod similar to the pods created by Strimzi
+     *
+     * @param index     Index of the pod
+     *
+     * @return  Kafka broker pod
+     */
+    private static Pod kafkaPod(int index) {
+        String name = "my-cluster-kafka-" + index;
+        List<EnvVar> env = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            env.add(new EnvVarBuilder().withName("KAFKA_ENV_VARIABLE_" + i).withValue("some-value-of-the-variable-" + i).build());
+        }
+
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                    .withUid("POD-UID-" + index)
+                    .withResourceVersion("1000")
+                    .withLabels(Map.of("strimzi.io/kind", "Kafka",
+                            "strimzi.io/name", "my-cluster-kafka",
+                            "strimzi.io/cluster", "my-cluster",
+                            "strimzi.io/component-type", "kafka",
+                            "strimzi.io/pod-name", name,
+                            "strimzi.io/broker-role", "true"))
+                    .withAnnotations(Map.of("strimzi.io/revision", "1a2b3c4d",
+                            "strimzi.io/logging-appenders-hash", "e893ac9f",
+                            "strimzi.io/broker-configuration-hash", "f1e2d3c4",
+                            "strimzi.io/kafka-version", "4.0.0"))
+                .endMetadata()
+                .withNewSpec()
+                    .withHostname(name)
+                    .withSubdomain("my-cluster-kafka-brokers")
+                    .addNewContainer()
+                        .withName("kafka")
+                        .withImage("quay.io/strimzi/kafka:latest-kafka-4.0.0")
+                        .withEnv(env)
+                        .withCommand("/opt/kafka/kafka_run.sh")
+                        .addNewVolumeMount().withName("data").withMountPath("/var/lib/kafka/data").endVolumeMount()
+                        .addNewVolumeMount().withName("kafka-metrics-and-logging").withMountPath("/opt/kafka/custom-config/").endVolumeMount()
+                        .addNewVolumeMount().withName("cluster-ca").withMountPath("/opt/kafka/cluster-ca-certs").endVolumeMount()
+                        .addNewVolumeMount().withName("broker-certs").withMountPath("/opt/kafka/broker-certs").endVolumeMount()
+                        .addNewPort().withName("tcp-replication").withContainerPort(9091).endPort()
+                        .addNewPort().withName("tcp-clients").withContainerPort(9092).endPort()
+                        .addNewPort().withName("tcp-clientstls").withContainerPort(9093).endPort()
+                    .endContainer()
+                    .addNewVolume().withName("data").withNewPersistentVolumeClaim().withClaimName("data-" + name).endPersistentVolumeClaim().endVolume()
+                    .addNewVolume().withName("kafka-metrics-and-logging").withNewConfigMap().withName(name).endConfigMap().endVolume()
+                    .addNewVolume().withName("cluster-ca").withNewSecret().withSecretName("my-cluster-cluster-ca-cert").endSecret().endVolume()
+                    .addNewVolume().withName("broker-certs").withNewSecret().withSecretName(name).endSecret().endVolume()
+                .endSpec()
+                .withNewStatus()
+                    .withPhase("Running")
+                    .withPodIP("10.0.0." + index % 255)
+                    .addNewCondition().withType("Ready").withStatus("True").endCondition()
+                    .addNewCondition().withType("ContainersReady").withStatus("True").endCondition()
+                    .addNewContainerStatus().withName("kafka").withReady(true).withRestartCount(0).endContainerStatus()
+                .endStatus()
+                .build();
+    }
+}
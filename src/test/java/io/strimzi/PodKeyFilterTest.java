@@ -0,0 +1,57 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class PodKeyFilterTest {
+    private final static String NAMESPACE = "my-namespace";
+
+    @Test
+    public void testNoFalseNegatives() {
+        PodKeyFilter filter = new PodKeyFilter(1_000, 0.01);
+
+        for (int i = 0; i < 1_000; i++) {
+            filter.put(NAMESPACE, "my-cluster-kafka-" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain(NAMESPACE, "my-cluster-kafka-" + i), is(true));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        PodKeyFilter filter = new PodKeyFilter(1_000, 0.01);
+
+        for (int i = 0; i < 1_000; i++) {
+            filter.put(NAMESPACE, "my-cluster-kafka-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-namespace", "my-deployment-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives / 100_000.0, is(lessThan(0.02)));
+        assertThat(filter.expectedFalsePositiveProbability(1_000), is(lessThan(0.011)));
+    }
+
+    @Test
+    public void testEmptyFilter() {
+        PodKeyFilter filter = new PodKeyFilter(10_000, 0.01);
+
+        assertThat(filter.mightContain(NAMESPACE, "my-cluster-kafka-0"), is(false));
+        assertThat(filter.expectedFalsePositiveProbability(0), is(0.0));
+        // ~9.6 bits per pod for 1% false positive probability
+        assertThat(filter.sizeInBytes(), is(11_984L));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PodMetadataClientTest {
+    private static final String PATH = "/api/v1/namespaces/my-namespace/pods/my-cluster-kafka-0";
+
+    KubernetesMockServer server;
+    KubernetesClient client;
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setup() {
+        server = new KubernetesMockServer(false);
+        server.init();
+        client = server.createClient();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void teardown() {
+        client.close();
+        server.destroy();
+    }
+
+    @Test
+    public void testGetMetadata() throws InterruptedException {
+        ObjectMeta metadata = new ObjectMetaBuilder()
+                .withName("my-cluster-kafka-0")
+                .withNamespace("my-namespace")
+                .withUid("POD-UID")
+                .withLabels(Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", "my-cluster-kafka"))
+                .withAnnotations(Map.of("strimzi.io/manual-rolling-update", "true"))
+                .build();
+
+        server.expect().get().withPath(PATH)
+                .andReturn(200, Map.of("apiVersion", "meta.k8s.io/v1", "kind", "PartialObjectMetadata", "metadata", metadata))
+                .once();
+
+        ObjectMeta result = new PodMetadataClient(client, registry).get("my-namespace", "my-cluster-kafka-0");
+
+        assertThat(result.getName(), is("my-cluster-kafka-0"));
+        assertThat(result.getUid(), is("POD-UID"));
+        assertThat(result.getLabels(), is(metadata.getLabels()));
+        assertThat(result.getAnnotations(), is(metadata.getAnnotations()));
+        assertThat(server.takeRequest().getHeader("Accept"), is(PodMetadataClient.PARTIAL_OBJECT_METADATA));
+        assertThat(latencyCount("success"), is(1L));
+    }
+
+    @Test
+    public void testPodDoesNotExist() {
+        server.expect().get().withPath(PATH).andReturn(404, null).once();
+
+        assertThat(new PodMetadataClient(client, registry).get("my-namespace", "my-cluster-kafka-0"), is(nullValue()));
+        assertThat(latencyCount("not-found"), is(1L));
+    }
+
+    @Test
+    public void testFailure() {
+        server.expect().get().withPath(PATH).andReturn(403, null).once();
+
+        KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> new PodMetadataClient(client, registry).get("my-namespace", "my-cluster-kafka-0"));
+        assertThat(e.getCode(), is(403));
+        assertThat(latencyCount("error"), is(1L));
+    }
+
+    @Test
+    public void testDeadlineExceeded() {
+        server.expect().get().delay(2_000).withPath(PATH).andReturn(404, null).once();
+
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> new PodMetadataClient(client, registry).get("my-namespace", "my-cluster-kafka-0", Deadline.after(200)));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_500, is(true));
+        assertThat(latencyCount("deadline-exceeded"), is(1L));
+    }
+
+    @Test
+    public void testExpiredDeadline() {
+        assertThrows(DeadlineExceededException.class, () -> new PodMetadataClient(client, registry).get("my-namespace", "my-cluster-kafka-0", Deadline.after(0)));
+        assertThat(server.getRequestCount(), is(0));
+    }
+
+    @Test
+    public void testRetryTransientFailure() {
+        server.expect().get().withPath(PATH).andReturn(503, null).once();
+        server.expect().get().withPath(PATH)
+                .andReturn(200, Map.of("apiVersion", "meta.k8s.io/v1", "kind", "PartialObjectMetadata", "metadata", new ObjectMetaBuilder().withName("my-cluster-kafka-0").build()))
+                .once();
+
+        // The Kubernetes client does not retry on its own, so that only the retries of the pod metadata client are used
+        try (KubernetesClient client = new KubernetesClientBuilder().withConfig(new ConfigBuilder(Config.empty()).withMasterUrl(server.url("/")).withRequestRetryBackoffLimit(0).build()).build()) {
+            ObjectMeta result = new PodMetadataClient(client, registry, false, 95, 20, 0.1, 2, 10).get("my-namespace", "my-cluster-kafka-0", Deadline.after(2_000));
+
+            assertThat(result.getName(), is("my-cluster-kafka-0"));
+        }
+
+        assertThat(server.getRequestCount(), is(2));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.get.retries").counter().count(), is(1.0));
+        assertThat(latencyCount("success"), is(1L));
+    }
+
+    @Test
+    public void testNoRetryForPermanentFailure() {
+        server.expect().get().withPath(PATH).andReturn(403, null).once();
+
+        KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> new PodMetadataClient(client, registry, false, 95, 20, 0.1, 2, 10).get("my-namespace", "my-cluster-kafka-0"));
+        assertThat(e.getCode(), is(403));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void testRetryAfter() {
+        server.expect().get().withPath(PATH).andReturn(429, null).withHeader("Retry-After", "5").once();
+
+        try (KubernetesClient client = new KubernetesClientBuilder().withConfig(new ConfigBuilder(Config.empty()).withMasterUrl(server.url("/")).withRequestRetryBackoffLimit(0).build()).build()) {
+            // The Retry-After time is longer than the deadline => the request is not retried
+            KubernetesClientException e = assertThrows(KubernetesClientException.class, () -> new PodMetadataClient(client, registry, false, 95, 20, 0.1, 2, 10).get("my-namespace", "my-cluster-kafka-0", Deadline.after(2_000)));
+
+            assertThat(e.getCode(), is(429));
+            assertThat(RetryBackoff.retryAfterMs(e), is(5_000L));
+        }
+
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void testHedgedRequest() {
+        server.expect().get().delay(2_000).withPath(PATH).andReturn(404, null).once();
+        server.expect().get().withPath(PATH)
+                .andReturn(200, Map.of("apiVersion", "meta.k8s.io/v1", "kind", "PartialObjectMetadata", "metadata", new ObjectMetaBuilder().withName("my-cluster-kafka-0").build()))
+                .once();
+
+        long start = System.nanoTime();
+        ObjectMeta result = new PodMetadataClient(client, registry, true, 95, 100, 1.0, 0, 10).get("my-namespace", "my-cluster-kafka-0", Deadline.after(5_000));
+
+        // The hedged request returned before the first one
+        assertThat(result.getName(), is("my-cluster-kafka-0"));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_500, is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.pod.get.hedge.fired").counter().count(), is(1.0));
+
+        assertThat(registry.get("strimzi.drain.cleaner.pod.get.hedge.won").counter().count(), is(1.0));
+    }
+
+    private long latencyCount(String result) {
+        return registry.get("strimzi.drain.cleaner.pod.get.latency").tag("result", result).timer().count();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RetryAfterPolicyTest {
+    private static final String NAMESPACE = "my-namespace";
+    private static final String NAME = "my-cluster-kafka-0";
+
+    MeterRegistry registry;
+    AtomicLong clock;
+    RetryAfterPolicy policy;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        clock = new AtomicLong(0);
+        policy = new RetryAfterPolicy(registry, true, 120, 5, 300, clock::get);
+    }
+
+    @Test
+    public void testHintShrinksWhileThePodIsRolled() {
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DENIED), is(120));
+
+        clock.set(TimeUnit.SECONDS.toNanos(100));
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DENIED), is(20));
+
+        // The roll takes longer than expected
+        clock.set(TimeUnit.SECONDS.toNanos(200));
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DENIED), is(5));
+
+        // The pod is forgotten once its eviction is allowed
+        policy.forget(NAMESPACE, NAME);
+        assertThat(policy.deniedPods(), is(0));
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DENIED), is(120));
+
+        assertThat(registry.get("strimzi.drain.cleaner.retry.after.hints").summary().count(), is(4L));
+    }
+
+    @Test
+    public void testHintForDeferredAndPausedPods() {
+        policy.deferred(NAMESPACE, NAME, 2);
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DEFERRED), is(240));
+
+        policy.deferred(NAMESPACE, NAME, 5);
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DEFERRED), is(300));
+
+        // The roll starts when the deferred pod is annotated
+        clock.set(TimeUnit.SECONDS.toNanos(60));
+        policy.deferred(NAMESPACE, NAME, 1);
+        clock.set(TimeUnit.SECONDS.toNanos(90));
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DENIED), is(90));
+
+        assertThat(policy.retryAfterSeconds(NAMESPACE, "paused-cluster-kafka-0", ValidatingWebhook.Decision.RECONCILIATION_PAUSED), is(300));
+    }
+
+    @Test
+    public void testExpiredPodsAreForgotten() {
+        policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DENIED);
+        assertThat(policy.deniedPods(), is(1));
+
+        clock.set(TimeUnit.SECONDS.toNanos(601));
+        assertThat(policy.retryAfterSeconds(NAMESPACE, "my-cluster-kafka-1", ValidatingWebhook.Decision.DENIED), is(120));
+        assertThat(policy.deniedPods(), is(1));
+    }
+
+    @Test
+    public void testDisabledPolicy() {
+        RetryAfterPolicy policy = new RetryAfterPolicy(registry, false, 120, 5, 300, clock::get);
+        policy.deferred(NAMESPACE, NAME, 2);
+
+        assertThat(policy.retryAfterSeconds(NAMESPACE, NAME, ValidatingWebhook.Decision.DEFERRED), is(nullValue()));
+        assertThat(policy.deniedPods(), is(0));
+    }
+}
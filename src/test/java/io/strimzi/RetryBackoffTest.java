@@ -0,0 +1,54 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.StatusBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class RetryBackoffTest {
+    @Test
+    public void testExponentialBackoffWithJitter() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(RetryBackoff.delayMs(100, 0, null), allOf(greaterThanOrEqualTo(50L), lessThanOrEqualTo(100L)));
+            assertThat(RetryBackoff.delayMs(100, 1, null), allOf(greaterThanOrEqualTo(100L), lessThanOrEqualTo(200L)));
+            assertThat(RetryBackoff.delayMs(100, 3, null), allOf(greaterThanOrEqualTo(400L), lessThanOrEqualTo(800L)));
+        }
+
+        // The exponent is capped
+        assertThat(RetryBackoff.delayMs(1, 1_000, null), lessThanOrEqualTo(1L << 16));
+    }
+
+    @Test
+    public void testRetryAfter() {
+        KubernetesClientException throttled = new KubernetesClientException(new StatusBuilder()
+                .withCode(429)
+                .withReason("TooManyRequests")
+                .withNewDetails()
+                    .withRetryAfterSeconds(2)
+                .endDetails()
+                .build());
+
+        assertThat(RetryBackoff.retryAfterMs(throttled), is(2_000L));
+        assertThat(RetryBackoff.delayMs(100, 0, throttled), is(2_000L));
+
+        // Backoff longer than Retry-After is kept
+        assertThat(RetryBackoff.delayMs(1_000, 2, throttled), greaterThanOrEqualTo(2_000L));
+    }
+
+    @Test
+    public void testNoRetryAfter() {
+        assertThat(RetryBackoff.retryAfterMs(new KubernetesClientException("Conflict", 409, null)), is(0L));
+        assertThat(RetryBackoff.retryAfterMs(new KubernetesClientException(new StatusBuilder().withCode(429).build())), is(0L));
+        assertThat(RetryBackoff.retryAfterMs(new RuntimeException("Failed")), is(0L));
+        assertThat(RetryBackoff.retryAfterMs(null), is(0L));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTest {
+    @Test
+    public void testSequentialExecutions() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger counter = new AtomicInteger(0);
+
+        assertThat(singleFlight.execute("key", counter::incrementAndGet), is(1));
+        assertThat(singleFlight.execute("key", counter::incrementAndGet), is(2));
+        assertThat(singleFlight.coalescedCount(), is(0L));
+    }
+
+    @Test
+    public void testConcurrentExecutionsAreCoalesced() throws InterruptedException {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger counter = new AtomicInteger(0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            return counter.incrementAndGet();
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(singleFlight.isInFlight("key"), is(true));
+        assertThat(singleFlight.isInFlight("other-key"), is(false));
+
+        CompletableFuture<Integer> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", counter::incrementAndGet));
+        // Different key is not coalesced
+        assertThat(singleFlight.execute("other-key", () -> 100), is(100));
+
+        waitForCoalesced(singleFlight, 1);
+        release.countDown();
+
+        assertThat(leader.join(), is(1));
+        assertThat(follower.join(), is(1));
+        assertThat(counter.get(), is(1));
+        assertThat(singleFlight.isInFlight("key"), is(false));
+    }
+
+    @Test
+    public void testExceptionsArePropagatedToAllCallers() throws InterruptedException {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Integer> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("Failed");
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(singleFlight.isInFlight("key"), is(true));
+        assertThat(singleFlight.isInFlight("other-key"), is(false));
+
+        CompletableFuture<Integer> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute("key", () -> 1));
+
+        waitForCoalesced(singleFlight, 1);
+        release.countDown();
+
+        assertThat(assertThrows(Exception.class, leader::join).getCause() instanceof IllegalStateException, is(true));
+        assertThat(assertThrows(Exception.class, follower::join).getCause() instanceof IllegalStateException, is(true));
+
+        // Failed operation is not cached
+        assertThat(singleFlight.execute("key", () -> 2), is(2));
+    }
+
+    /* test */ static void waitForCoalesced(SingleFlight<?, ?> singleFlight, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+
+        while (singleFlight.coalescedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(singleFlight.coalescedCount(), is(expected));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodList;
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReview;
+import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReviewBuilder;
+import io.fabric8.kubernetes.api.model.policy.v1.EvictionBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Benchmarks the decision path of the webhook against a stub Kubernetes client. The stub returns the pod metadata right
+ * away, so the benchmark measures the webhook itself and not the Kubernetes API. The Strimzi pod is already annotated
+ * for restart, so it is not patched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Dlog4j2.level=WARN", "-Djava.util.logging.manager=org.jboss.logmanager.LogManager"})
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@SuppressWarnings({"checkstyle:ClassDataAbstractionCoupling", "checkstyle:ClassFanOutComplexity"})
+public class ValidatingWebhookBenchmark {
+    @Param({"strimzi-pod", "other-pod"})
+    String pod;
+
+    private ValidatingWebhook webhook;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        Map<String, String> labels = "strimzi-pod".equals(pod)
+                ? Map.of("strimzi.io/kind", "Kafka", "strimzi.io/name", "my-cluster-kafka")
+                : Map.of("app", "my-app");
+
+        webhook = new ValidatingWebhook(stubClient(labels), true, true, true);
+        AdmissionReview review = new AdmissionReviewBuilder()
+                .withNewRequest()
+                    .withUid("SOME-UUID")
+                    .withNamespace("my-namespace")
+                    .withDryRun(false)
+                    .withObject(new EvictionBuilder()
+                            .withNewMetadata()
+                                .withName("my-cluster-kafka-1")
+                                .withNamespace("my-namespace")
+                            .endMetadata()
+                            .build())
+                .endRequest()
+                .build();
+        body = new KubernetesSerialization().asJson(review).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a stub Kubernetes client which returns the metadata of an annotated pod with given labels
+     *
+     * @param labels    Labels of the pod
+     *
+     * @return  Stub Kubernetes client
+     */
+    @SuppressWarnings("unchecked")
+    private static KubernetesClient stubClient(Map<String, String> labels) {
+        String metadata = new KubernetesSerialization().asJson(Map.of("apiVersion", "meta.k8s.io/v1", "kind", "PartialObjectMetadata",
+                "metadata", new ObjectMetaBuilder()
+                        .withName("my-cluster-kafka-1")
+                        .withNamespace("my-namespace")
+                        .withUid("SOME-UID")
+                        .withLabels(labels)
+                        .withAnnotations(Map.of(ValidatingWebhook.MANUAL_RU_ANNOTATION, "true"))
+                        .build()));
+
+        HttpResponse<byte[]> response = mock(HttpResponse.class, withSettings().stubOnly());
+        when(response.code()).thenReturn(200);
+        when(response.isSuccessful()).thenReturn(true);
+        when(response.body()).thenReturn(metadata.getBytes(StandardCharsets.UTF_8));
+
+        HttpClient httpClient = mock(HttpClient.class, withSettings().stubOnly());
+        when(httpClient.newHttpRequestBuilder()).thenReturn(mock(HttpRequest.Builder.class, withSettings().stubOnly().defaultAnswer(RETURNS_SELF)));
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(CompletableFuture.completedFuture(response));
+
+        MixedOperation<Pod, PodList, PodResource> pods = mock(MixedOperation.class, withSettings().stubOnly());
+        when(pods.inNamespace(any())).thenReturn(mock(NonNamespaceOperation.class, withSettings().stubOnly()));
+
+        KubernetesClient client = mock(KubernetesClient.class, withSettings().stubOnly());
+        when(client.pods()).thenReturn(pods);
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.getConfiguration()).thenReturn(new ConfigBuilder(Config.empty()).withMasterUrl("https://kubernetes.default.svc/").build());
+        when(client.getKubernetesSerialization()).thenReturn(new KubernetesSerialization());
+
+        return client;
+    }
+
+    @Benchmark
+    public byte[] webhook() {
+        return webhook.webhook(body).await().indefinitely();
+    }
+}
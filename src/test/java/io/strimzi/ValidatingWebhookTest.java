@@ -4,6 +4,7 @@
  */
 package io.strimzi;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.fabric8.kubernetes.api.model.DeleteOptionsBuilder;
 import io.fabric8.kubernetes.api.model.Pod;
 import io.fabric8.kubernetes.api.model.PodBuilder;
@@ -14,34 +15,64 @@ import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReview;
 import io.fabric8.kubernetes.api.model.admission.v1.AdmissionReviewBuilder;
 import io.fabric8.kubernetes.api.model.policy.v1.Eviction;
 import io.fabric8.kubernetes.api.model.policy.v1.EvictionBuilder;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.MixedOperation;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.utils.KubernetesSerialization;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 
+import jakarta.ws.rs.BadRequestException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import static org.mockito.Mockito.when;
 
-@SuppressWarnings({"checkstyle:ClassDataAbstractionCoupling"})
+@SuppressWarnings({"checkstyle:ClassDataAbstractionCoupling", "checkstyle:ClassFanOutComplexity"})
 public class ValidatingWebhookTest {
+    private static final String ANNOTATION_PATCH = "{\"metadata\":{\"annotations\":{\"strimzi.io/manual-rolling-update\":\"true\"}}}";
+
     KubernetesClient client;
     MixedOperation<Pod, PodList, PodResource> pods;
     NonNamespaceOperation<Pod, PodList, PodResource> inNamespace;
     PodResource podResource;
+    HttpClient httpClient;
 
     @SuppressWarnings("unchecked")
     @BeforeEach
@@ -52,8 +83,42 @@ public class ValidatingWebhookTest {
         podResource = mock(PodResource.class);
 
         when(inNamespace.withName(any())).thenReturn(podResource);
+        when(inNamespace.resource(any())).thenReturn(podResource);
         when(pods.inNamespace(eq("my-namespace"))).thenReturn(inNamespace);
         when(client.pods()).thenReturn(pods);
+
+        httpClient = mock(HttpClient.class);
+        when(httpClient.newHttpRequestBuilder()).thenReturn(mock(HttpRequest.Builder.class, RETURNS_SELF));
+        when(client.getHttpClient()).thenReturn(httpClient);
+        when(client.getConfiguration()).thenReturn(new ConfigBuilder(Config.empty()).withMasterUrl("https://kubernetes.default.svc/").build());
+        when(client.getKubernetesSerialization()).thenReturn(new KubernetesSerialization());
+        mockPod(null);
+    }
+
+    /**
+     * Mocks the metadata of the pod returned by the Kubernetes API.
+     *
+     * @param pod   Pod which should be returned or null if the pod should not exist
+     *
+     * @return  Future with the mocked response
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<HttpResponse<byte[]>> mockPod(Pod pod) {
+        HttpResponse<byte[]> response = mock(HttpResponse.class);
+
+        if (pod != null) {
+            String metadata = new KubernetesSerialization().asJson(Map.of("apiVersion", "meta.k8s.io/v1", "kind", "PartialObjectMetadata", "metadata", pod.getMetadata()));
+            when(response.code()).thenReturn(200);
+            when(response.isSuccessful()).thenReturn(true);
+            when(response.body()).thenReturn(metadata.getBytes(StandardCharsets.UTF_8));
+        } else {
+            when(response.code()).thenReturn(404);
+        }
+
+        CompletableFuture<HttpResponse<byte[]>> future = CompletableFuture.completedFuture(response);
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(future);
+
+        return future;
     }
 
     @Test
@@ -62,18 +127,19 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-kafka"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, false);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -82,20 +148,21 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-kafka"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -104,20 +171,21 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-kafka"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels, "POD-UID"));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels, "POD-UID"));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -131,17 +199,18 @@ public class ValidatingWebhookTest {
                     .withUid("ANOTHER-POD-UUID")
                 .endMetadata()
                 .build();
-        when(podResource.get()).thenReturn(pod);
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(pod);
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels, "WRONG-UID"));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels, "WRONG-UID"));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -165,20 +234,21 @@ public class ValidatingWebhookTest {
                 .withRequest(admissionRequest)
                 .build();
 
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(admissionReview);
+        AdmissionReview reviewResponse = review(webhook, admissionReview);
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -190,21 +260,21 @@ public class ValidatingWebhookTest {
         Pod mockedPod = mockedPod(false, labels);
         mockedPod.getMetadata().setAnnotations(null);
 
-        when(podResource.get()).thenReturn(mockedPod);
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod);
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().size(), is(1));
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -216,55 +286,55 @@ public class ValidatingWebhookTest {
         Pod mockedPod = mockedPod(false, labels);
         mockedPod.getMetadata().setAnnotations(Map.of("someAnno1", "someValue1", "someAnno2", "someValue2"));
 
-        when(podResource.get()).thenReturn(mockedPod);
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod);
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().size(), is(3));
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("someAnno1"), is("someValue1"));
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("someAnno2"), is("someValue2"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
     public void testEmptyLabel() {
         final Map<String, String> labels = Collections.emptyMap();
 
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
     public void testNullLabel() {
-        when(podResource.get()).thenReturn(mockedPod(false, null));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, null));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, null));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, null));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -274,17 +344,18 @@ public class ValidatingWebhookTest {
                 "strimzi.io/name", "my-cluster-foo"
         );
 
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -294,20 +365,21 @@ public class ValidatingWebhookTest {
                 "strimzi.io/name", "my-cluster-kafka"
         );
 
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -317,20 +389,21 @@ public class ValidatingWebhookTest {
                 "strimzi.io/name", "my-cluster-zookeeper"
         );
 
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -340,17 +413,18 @@ public class ValidatingWebhookTest {
                 "strimzi.io/name", "my-cluster-kafka"
         );
 
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, false, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -359,17 +433,18 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-zookeeper"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, false, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -379,12 +454,13 @@ public class ValidatingWebhookTest {
                 "strimzi.io/name", "my-cluster-zookeeper"
         );
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(true, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(true, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -395,20 +471,22 @@ public class ValidatingWebhookTest {
                 "strimzi.io/name", "my-cluster-zookeeper"
         );
         // Test it for Kafka
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(true, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(true, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
 
         // Test it for ZooKeeper
-        reviewResponse = webhook.webhook(reviewRequest(true, labels));
+        reviewResponse = review(webhook, reviewRequest(true, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(2)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(2)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -416,33 +494,35 @@ public class ValidatingWebhookTest {
         final Map<String, String> labels = Map.of(
                 "strimzi.io/name", "my-cluster-zookeeper"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
     public void testPodDoesNotExist() {
-        when(podResource.get()).thenReturn(null);
+        mockPod(null);
         final Map<String, String> labels = Map.of(
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-zookeeper"
         );
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -451,19 +531,20 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-zookeeper"
         );
-        when(podResource.get()).thenReturn(mockedPod(true, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(true, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -487,20 +568,21 @@ public class ValidatingWebhookTest {
                 .withRequest(admissionRequest)
                 .build();
 
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(request);
+        AdmissionReview reviewResponse = review(webhook, request);
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -523,17 +605,18 @@ public class ValidatingWebhookTest {
                 .withRequest(admissionRequest)
                 .build();
 
-        when(podResource.get()).thenReturn(mockedPod(true, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(true, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
-        AdmissionReview reviewResponse = webhook.webhook(request);
+        AdmissionReview reviewResponse = review(webhook, request);
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(httpClient, never()).sendAsync(any(), eq(byte[].class));
         verify(podResource, never()).get();
-        verify(podResource, never()).patch((Pod) any());
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     private Pod mockedPod(boolean ruAnno, Map<String, String> labels) {
@@ -557,6 +640,58 @@ public class ValidatingWebhookTest {
         return pod;
     }
 
+    @Test
+    public void testEncodedReviewRequest() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        mockPod(mockedPod(false, labels));
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
+        assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
+        verify(podResource, times(1)).patch(any(PatchContext.class), eq(ANNOTATION_PATCH));
+    }
+
+    @Test
+    public void testDenyWithRetryAfterHint() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        mockPod(mockedPod(true, labels));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        webhook.retryAfter = new RetryAfterPolicy(new SimpleMeterRegistry(), true, 120, 5, 300, () -> 0L);
+        annotator(webhook).retryAfter = webhook.retryAfter;
+
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(reviewResponse.getResponse().getStatus().getDetails().getRetryAfterSeconds(), is(120));
+
+        // Allowed evictions do not get any hint
+        ValidatingWebhook legacyWebhook = new ValidatingWebhook(client, true, true, false);
+        legacyWebhook.retryAfter = webhook.retryAfter;
+        annotator(legacyWebhook).retryAfter = webhook.retryAfter;
+        assertThat(review(legacyWebhook, reviewRequest(false, labels)).getResponse().getStatus(), is(nullValue()));
+        assertThat(webhook.retryAfter.deniedPods(), is(0));
+    }
+
+    @Test
+    public void testInvalidEncodedReviewRequest() {
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+
+        assertThrows(BadRequestException.class, () -> webhook.webhook("{}".getBytes(StandardCharsets.UTF_8)).await().indefinitely());
+        verify(httpClient, never()).sendAsync(any(), eq(byte[].class));
+    }
+
     private AdmissionReview reviewRequest(boolean dryRun, Map<String, String> labels, String preconditionsUid)   {
         Eviction eviction = new EvictionBuilder()
                 .withNewMetadata()
@@ -584,27 +719,55 @@ public class ValidatingWebhookTest {
         return reviewRequest(dryRun, labels, null);
     }
 
+    /**
+     * Sends the AdmissionReview request to the webhook endpoint and decodes the response
+     *
+     * @param webhook   Webhook which should handle the request
+     * @param request   AdmissionReview request
+     *
+     * @return  AdmissionReview response
+     */
+    private static EvictionDecider decider(ValidatingWebhook webhook) {
+        return webhook.evictionDecider;
+    }
+
+    private static PodChecker checker(ValidatingWebhook webhook) {
+        return webhook.evictionDecider.podChecker;
+    }
+
+    private static RestartAnnotator annotator(ValidatingWebhook webhook) {
+        return webhook.evictionDecider.podChecker.restartAnnotator;
+    }
+
+    private static AdmissionReview review(ValidatingWebhook webhook, AdmissionReview request) {
+        KubernetesSerialization serialization = new KubernetesSerialization();
+        byte[] response = webhook.webhook(serialization.asJson(request).getBytes(StandardCharsets.UTF_8)).await().indefinitely();
+
+        return serialization.unmarshal(new String(response, StandardCharsets.UTF_8), AdmissionReview.class);
+    }
+
     @Test
     public void testNamespaceFilteringEmptyDrainNamespaces() {
         final Map<String, String> labels = Map.of(
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-kafka"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         // Empty drainNamespaces should watch all namespaces
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true, "");
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -613,21 +776,22 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-kafka"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         // my-namespace is in the drain namespaces list
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true, "my-namespace,other-namespace");
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -663,14 +827,14 @@ public class ValidatingWebhookTest {
 
         // unwatched-namespace is not in the drain namespaces list
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true, "my-namespace,other-namespace");
-        AdmissionReview reviewResponse = webhook.webhook(request);
+        AdmissionReview reviewResponse = review(webhook, request);
 
         // Should allow the eviction since namespace is not watched
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(true));
         // Should not even try to get the pod since namespace is filtered out
         verify(unwatchedPodResource, never()).get();
-        verify(unwatchedPodResource, never()).patch((Pod) any());
+        verify(unwatchedPodResource, never()).patch(any(PatchContext.class), anyString());
     }
 
     @Test
@@ -679,21 +843,22 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-kafka"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         // Test with spaces around namespace names
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true, " my-namespace , other-namespace ");
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
     }
 
     @Test
@@ -702,20 +867,840 @@ public class ValidatingWebhookTest {
                 "strimzi.io/kind", "Kafka",
                 "strimzi.io/name", "my-cluster-kafka"
         );
-        when(podResource.get()).thenReturn(mockedPod(false, labels));
-        ArgumentCaptor<Pod> podCaptor = ArgumentCaptor.forClass(Pod.class);
-        when(podResource.patch(podCaptor.capture())).thenReturn(new Pod());
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
 
         // "*" should watch all namespaces (same as empty string)
         ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true, "*");
-        AdmissionReview reviewResponse = webhook.webhook(reviewRequest(false, labels));
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
 
         assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
         assertThat(reviewResponse.getResponse().getAllowed(), is(false));
         assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
         assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
-        verify(podResource, times(1)).get();
-        verify(podResource, times(1)).patch((Pod) any());
-        assertThat(podCaptor.getValue().getMetadata().getAnnotations().get("strimzi.io/manual-rolling-update"), is("true"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
+    }
+
+    @Test
+    public void testEvictionWithPodCacheMiss() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.getDecision(any(), any())).thenReturn(null);
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(podCache, times(1)).getDecision(eq("my-namespace"), eq("my-cluster-kafka-1"));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
+    }
+
+    @Test
+    public void testEvictionFromDrainSession() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        DrainSessions drainSessions = mock(DrainSessions.class);
+        when(drainSessions.isEnabled()).thenReturn(true);
+        when(drainSessions.get(eq("my-namespace"), eq("my-cluster-kafka-1"), any())).thenReturn(mockedPod(false, labels).getMetadata());
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        checker(webhook).drainSessions = drainSessions;
+        annotator(webhook).drainSessions = drainSessions;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(httpClient, never()).sendAsync(any(), eq(byte[].class));
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        verify(drainSessions, times(1)).annotated(eq("my-namespace"), eq("my-cluster-kafka-1"));
+        verify(drainSessions, never()).open(any(), any(), any(), any(Boolean.class));
+    }
+
+    @Test
+    public void testEvictionOpensDrainSession() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        DrainSessions drainSessions = mock(DrainSessions.class);
+        when(drainSessions.isEnabled()).thenReturn(true);
+        mockPod(mockedPod(false, labels));
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        checker(webhook).drainSessions = drainSessions;
+        annotator(webhook).drainSessions = drainSessions;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        verify(drainSessions, times(1)).open(eq("my-namespace"), eq("my-cluster-kafka-1"), isNull(), eq(true));
+        verify(drainSessions, never()).annotated(any(), any());
+    }
+
+    @Test
+    public void testEvictionDeferredByClusterRollGate() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka",
+                "strimzi.io/cluster", "my-cluster"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        ClusterRollGate rollGate = new ClusterRollGate(new SimpleMeterRegistry(), podCache, true, 1, 60_000, System::nanoTime);
+        rollGate.record(new PodBuilder(mockedPod(true, labels)).editMetadata().withName("my-cluster-kafka-0").withUid("OTHER-UID").endMetadata().build().getMetadata());
+        mockPod(mockedPod(false, labels));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).rollGate = rollGate;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator once the other pending rolling updates of its Kafka cluster are finished"));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+        assertThat(annotator(webhook).annotatePodForRestart(mockedPod(false, labels).getMetadata(), false), is(ValidatingWebhook.PodCheck.DEFERRED));
+    }
+
+    @Test
+    public void testClusterRollGateReleasedWhenPatchFails() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka",
+                "strimzi.io/cluster", "my-cluster"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        ClusterRollGate rollGate = new ClusterRollGate(new SimpleMeterRegistry(), podCache, true, 1, 60_000, System::nanoTime);
+        mockPod(mockedPod(false, labels));
+        when(podResource.patch(any(PatchContext.class), anyString()))
+                .thenThrow(new KubernetesClientException("Forbidden", 403, null))
+                .thenThrow(new KubernetesClientException("Not found", 404, null));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).rollGate = rollGate;
+
+        // The failed patch releases the pod from the gate
+        assertThrows(KubernetesClientException.class, () -> review(webhook, reviewRequest(false, labels)));
+        assertThat(rollGate.pendingPods(), is(0));
+
+        // The pod which does not exist anymore is released as well
+        review(webhook, reviewRequest(false, labels));
+        assertThat(rollGate.pendingPods(), is(0));
+        verify(podResource, times(2)).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testClusterRollGateReleasedWhenQueuedPatchFails() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka",
+                "strimzi.io/cluster", "my-cluster"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        ClusterRollGate rollGate = new ClusterRollGate(new SimpleMeterRegistry(), podCache, true, 1, 60_000, System::nanoTime);
+        mockPod(mockedPod(false, labels));
+        AnnotationQueue annotationQueue = mock(AnnotationQueue.class);
+        when(annotationQueue.isEnabled()).thenReturn(true);
+        ArgumentCaptor<Runnable> onFailure = ArgumentCaptor.forClass(Runnable.class);
+        when(annotationQueue.submit(eq("my-namespace"), eq("my-cluster-kafka-1"), onFailure.capture())).thenReturn(true);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).rollGate = rollGate;
+        annotator(webhook).annotationQueue = annotationQueue;
+
+        assertThat(review(webhook, reviewRequest(false, labels)).getResponse().getAllowed(), is(false));
+        assertThat(rollGate.pendingPods(), is(1));
+
+        // The queue failed to annotate the pod => the pod does not block its cluster anymore
+        onFailure.getValue().run();
+        assertThat(rollGate.pendingPods(), is(0));
+    }
+
+    @Test
+    public void testClusterRollGateWithAllowedEvictions() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka",
+                "strimzi.io/cluster", "my-cluster"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        ClusterRollGate rollGate = new ClusterRollGate(new SimpleMeterRegistry(), podCache, true, 1, 60_000, System::nanoTime);
+        rollGate.record(new PodBuilder(mockedPod(true, labels)).editMetadata().withName("my-cluster-kafka-0").withUid("OTHER-UID").endMetadata().build().getMetadata());
+        mockPod(mockedPod(false, labels));
+
+        // The legacy mode allowing the evictions annotates and evicts the pod regardless of the gate
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, false);
+        annotator(webhook).rollGate = rollGate;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionWithPausedReconciliation() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka",
+                "strimzi.io/cluster", "my-cluster"
+        );
+        KafkaResourceCache kafkaCache = mock(KafkaResourceCache.class);
+        when(kafkaCache.isEnabled()).thenReturn(true);
+        when(kafkaCache.skipReason(any())).thenReturn(KafkaResourceCache.SkipReason.RECONCILIATION_PAUSED);
+        mockPod(mockedPod(false, labels));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).kafkaCache = kafkaCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod cannot be rolled because the reconciliation of its Kafka cluster is paused"));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionWithPendingReconciliation() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka",
+                "strimzi.io/cluster", "my-cluster"
+        );
+        KafkaResourceCache kafkaCache = mock(KafkaResourceCache.class);
+        when(kafkaCache.isEnabled()).thenReturn(true);
+        when(kafkaCache.skipReason(any())).thenReturn(KafkaResourceCache.SkipReason.RECONCILIATION_PENDING);
+        mockPod(mockedPod(false, labels));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).kafkaCache = kafkaCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be annotated for restart once the Strimzi Cluster Operator reconciles the latest changes of the Kafka or KafkaNodePool resource of its cluster"));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionWithPausedReconciliationAllowed() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka",
+                "strimzi.io/cluster", "my-cluster"
+        );
+        KafkaResourceCache kafkaCache = mock(KafkaResourceCache.class);
+        when(kafkaCache.isEnabled()).thenReturn(true);
+        when(kafkaCache.skipReason(any())).thenReturn(KafkaResourceCache.SkipReason.RECONCILIATION_PAUSED);
+        mockPod(mockedPod(false, labels));
+
+        // The legacy mode allowing the evictions allows them without annotating the pod
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, false);
+        annotator(webhook).kafkaCache = kafkaCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionRejectedByPodFilter() {
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.isKnownNotDrainable(eq("my-namespace"), eq("my-cluster-kafka-1"))).thenReturn(true);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, null));
+
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(podCache, never()).getDecision(any(), any());
+        verify(httpClient, never()).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionWithDecisionForNonDrainablePod() {
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.getDecision(eq("my-namespace"), eq("my-cluster-kafka-1"))).thenReturn(new EvictionDecisionIndex.PodDecision("POD-UID", false, false));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, null));
+
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(httpClient, never()).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionWithDecisionForAnnotatedPod() {
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.getDecision(eq("my-namespace"), eq("my-cluster-kafka-1"))).thenReturn(new EvictionDecisionIndex.PodDecision("POD-UID", true, true));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, null, "POD-UID"));
+
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(reviewResponse.getResponse().getStatus().getCode(), is(500));
+        assertThat(reviewResponse.getResponse().getStatus().getMessage(), is("The pod will be rolled by the Strimzi Cluster Operator"));
+        verify(httpClient, never()).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionWithDecisionForNotAnnotatedPod() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.getDecision(eq("my-namespace"), eq("my-cluster-kafka-1"))).thenReturn(new EvictionDecisionIndex.PodDecision("POD-UID", true, false));
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels, "POD-UID"));
+
+        // The pod needs to be annotated => it is retrieved from the Kubernetes API and patched
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
+    }
+
+    @Test
+    public void testEvictionWithDecisionForPodWithDifferentUid() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.getDecision(eq("my-namespace"), eq("my-cluster-kafka-1"))).thenReturn(new EvictionDecisionIndex.PodDecision("OLD-POD-UID", false, false));
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels, "POD-UID"));
+
+        // The decision is for an old pod => it should be ignored
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).get();
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
+    }
+
+    @Test
+    public void testEvictionWithAnnotationQueue() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        AnnotationQueue annotationQueue = mock(AnnotationQueue.class);
+        when(annotationQueue.isEnabled()).thenReturn(true);
+        when(annotationQueue.submit(eq("my-namespace"), eq("my-cluster-kafka-1"), any())).thenReturn(true);
+        mockPod(mockedPod(false, labels));
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).annotationQueue = annotationQueue;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        // The pod is queued for annotation => the webhook does not patch it
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(annotationQueue, times(1)).submit(eq("my-namespace"), eq("my-cluster-kafka-1"), any());
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testEvictionWithFullAnnotationQueue() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        AnnotationQueue annotationQueue = mock(AnnotationQueue.class);
+        when(annotationQueue.isEnabled()).thenReturn(true);
+        when(annotationQueue.submit(any(), any(), any())).thenReturn(false);
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).annotationQueue = annotationQueue;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        // The queue is full => the webhook patches the pod itself
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(annotationQueue, times(1)).submit(eq("my-namespace"), eq("my-cluster-kafka-1"), any());
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
+    }
+
+    @Test
+    public void testAnnotationQueueNotUsedWhenEvictionAllowed() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        AnnotationQueue annotationQueue = mock(AnnotationQueue.class);
+        when(annotationQueue.isEnabled()).thenReturn(true);
+        mockPod(mockedPod(false, labels));
+        ArgumentCaptor<String> patchCaptor = ArgumentCaptor.forClass(String.class);
+        when(podResource.patch(any(PatchContext.class), patchCaptor.capture())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, false);
+        annotator(webhook).annotationQueue = annotationQueue;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        // The eviction is allowed => the pod has to be annotated before the response is sent
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(annotationQueue, never()).submit(any(), any(), any());
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+        assertThat(patchCaptor.getValue(), is(ANNOTATION_PATCH));
+    }
+
+    @Test
+    public void testConcurrentEvictionsAreCoalesced() throws InterruptedException {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        CompletableFuture<HttpResponse<byte[]>> response = mockPod(mockedPod(false, labels));
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch releaseLookup = new CountDownLatch(1);
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenAnswer(i -> {
+            lookupStarted.countDown();
+            releaseLookup.await(10, TimeUnit.SECONDS);
+            return response;
+        });
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        CompletableFuture<AdmissionReview> first = CompletableFuture.supplyAsync(() -> review(webhook, reviewRequest(false, labels)));
+        assertThat(lookupStarted.await(10, TimeUnit.SECONDS), is(true));
+        CompletableFuture<AdmissionReview> second = CompletableFuture.supplyAsync(() -> review(webhook, reviewRequest(false, labels)));
+
+        SingleFlightTest.waitForCoalesced(decider(webhook).inFlightEvictions, 1);
+        releaseLookup.countDown();
+
+        // Both requests get the same decision, but the pod is looked up and patched only once
+        assertThat(first.join().getResponse().getAllowed(), is(false));
+        assertThat(second.join().getResponse().getAllowed(), is(false));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testRepeatedEvictionsWithDecisionMemo() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        mockPod(mockedPod(false, labels));
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.decisionMemo = new DecisionMemo(new SimpleMeterRegistry(), true, 60_000, 100, System::nanoTime);
+
+        // The first request gets and patches the pod and the retries are answered from the memo
+        for (int i = 0; i < 3; i++) {
+            AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels, "POD-UID"));
+            assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        }
+
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+
+        // The pod was recreated => the decision is invalidated and the new pod is checked
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels, "NEW-POD-UID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(httpClient, times(2)).sendAsync(any(), eq(byte[].class));
+    }
+
+    @Test
+    public void testFailedQueuedAnnotationIsNotRemembered() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        mockPod(mockedPod(false, labels));
+        AnnotationQueue annotationQueue = mock(AnnotationQueue.class);
+        when(annotationQueue.isEnabled()).thenReturn(true);
+        ArgumentCaptor<Runnable> onFailure = ArgumentCaptor.forClass(Runnable.class);
+        when(annotationQueue.submit(eq("my-namespace"), eq("my-cluster-kafka-1"), onFailure.capture())).thenReturn(true);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        annotator(webhook).annotationQueue = annotationQueue;
+        decider(webhook).inMemoryDecisions.decisionMemo = new DecisionMemo(new SimpleMeterRegistry(), true, 60_000, 100, System::nanoTime);
+
+        assertThat(review(webhook, reviewRequest(false, labels)).getResponse().getAllowed(), is(false));
+        assertThat(review(webhook, reviewRequest(false, labels)).getResponse().getAllowed(), is(false));
+        verify(annotationQueue, times(1)).submit(eq("my-namespace"), eq("my-cluster-kafka-1"), any());
+
+        // The queue failed to annotate the pod => the next eviction checks the pod and queues it again
+        onFailure.getValue().run();
+        assertThat(review(webhook, reviewRequest(false, labels)).getResponse().getAllowed(), is(false));
+        verify(annotationQueue, times(2)).submit(eq("my-namespace"), eq("my-cluster-kafka-1"), any());
+        verify(httpClient, times(2)).sendAsync(any(), eq(byte[].class));
+    }
+
+    @Test
+    public void testMissingPodIsNotStoredInDecisionMemo() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.decisionMemo = new DecisionMemo(new SimpleMeterRegistry(), true, 60_000, 100, System::nanoTime);
+
+        // The pod does not exist
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+
+        // The Strimzi pod recreated under the same name is annotated even when the eviction has no UID
+        mockPod(mockedPod(false, labels));
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+        reviewResponse = review(webhook, reviewRequest(false, labels));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+
+        verify(httpClient, times(2)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testDryRunIsNotStoredInDecisionMemo() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        mockPod(mockedPod(false, labels));
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.decisionMemo = new DecisionMemo(new SimpleMeterRegistry(), true, 60_000, 100, System::nanoTime);
+
+        review(webhook, reviewRequest(true, labels));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+
+        // The pod was not annotated by the dry-run request => it has to be checked and annotated again
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        verify(httpClient, times(2)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, times(1)).patch(any(PatchContext.class), anyString());
+    }
+
+    @Test
+    public void testDeadlineFallbackWithCachedDecision() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.getDecision(eq("my-namespace"), eq("my-cluster-kafka-1"))).thenReturn(new EvictionDecisionIndex.PodDecision("POD-UID", true, false));
+        // The first request for the pod metadata never completes, the second one from the background completes
+        CompletableFuture<HttpResponse<byte[]>> response = mockPod(mockedPod(false, labels));
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(new CompletableFuture<>(), response);
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeadlinePolicy deadlinePolicy = new DeadlinePolicy(registry, true, 1, 800, DeadlinePolicy.Fallback.CACHED, 10);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        decider(webhook).deadlinePolicy = deadlinePolicy;
+        annotator(webhook).deadlinePolicy = deadlinePolicy;
+        long start = System.nanoTime();
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000, is(true));
+        assertThat(reviewResponse.getResponse().getUid(), is("SOME-UUID"));
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(registry.get("strimzi.drain.cleaner.webhook.fallbacks").tag("reason", "deadline").tag("fallback", "cached").counter().count(), is(1.0));
+        // The pod is annotated in the background
+        verify(podResource, timeout(5_000).times(1)).patch(any(PatchContext.class), eq(ANNOTATION_PATCH));
+        deadlinePolicy.stop();
+    }
+
+    @Test
+    public void testDeadlineFallbackWithoutCachedDecision() {
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        // The first request for the pod metadata never completes, the second one from the background completes
+        CompletableFuture<HttpResponse<byte[]>> response = mockPod(mockedPod(false, Map.of("app", "my-app")));
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(new CompletableFuture<>(), response);
+        DeadlinePolicy deadlinePolicy = new DeadlinePolicy(new SimpleMeterRegistry(), true, 1, 800, DeadlinePolicy.Fallback.CACHED, 10);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        decider(webhook).deadlinePolicy = deadlinePolicy;
+        annotator(webhook).deadlinePolicy = deadlinePolicy;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, null));
+
+        // The pod is unknown to the pod cache => the eviction is allowed, but the pod is still checked in the background
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(httpClient, timeout(5_000).times(2)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+        deadlinePolicy.stop();
+    }
+
+    @Test
+    public void testDeadlineFallbackCachedWithoutPodCache() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        CompletableFuture<HttpResponse<byte[]>> response = mockPod(mockedPod(false, labels));
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(new CompletableFuture<>(), response);
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+        DeadlinePolicy deadlinePolicy = new DeadlinePolicy(new SimpleMeterRegistry(), true, 1, 800, DeadlinePolicy.Fallback.CACHED, 10);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).deadlinePolicy = deadlinePolicy;
+        annotator(webhook).deadlinePolicy = deadlinePolicy;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        // Without the pod cache, the cached fallback does not know any Strimzi pods => it allows the eviction, but the
+        // pod is still annotated in the background
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(podResource, timeout(5_000).times(1)).patch(any(PatchContext.class), eq(ANNOTATION_PATCH));
+        deadlinePolicy.stop();
+    }
+
+    @Test
+    public void testDeadlineFallbackWithCachedDecisionAndAllowedEvictions() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.isEnabled()).thenReturn(true);
+        when(podCache.getDecision(eq("my-namespace"), eq("my-cluster-kafka-1"))).thenReturn(new EvictionDecisionIndex.PodDecision("POD-UID", true, false));
+        CompletableFuture<HttpResponse<byte[]>> response = mockPod(mockedPod(false, labels));
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(new CompletableFuture<>(), response);
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+        DeadlinePolicy deadlinePolicy = new DeadlinePolicy(new SimpleMeterRegistry(), true, 1, 800, DeadlinePolicy.Fallback.CACHED, 10);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, false);
+        decider(webhook).inMemoryDecisions.podCache = podCache;
+        checker(webhook).podCache = podCache;
+        decider(webhook).deadlinePolicy = deadlinePolicy;
+        annotator(webhook).deadlinePolicy = deadlinePolicy;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        // The fallback respects the eviction mode => the Strimzi pod is allowed and annotated in the background
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        verify(podResource, timeout(5_000).times(1)).patch(any(PatchContext.class), eq(ANNOTATION_PATCH));
+        deadlinePolicy.stop();
+    }
+
+    @Test
+    public void testDeadlineFallbackWithoutBackgroundPermits() {
+        CompletableFuture<HttpResponse<byte[]>> response = mockPod(mockedPod(false, Map.of("app", "my-app")));
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(new CompletableFuture<>(), response);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeadlinePolicy deadlinePolicy = new DeadlinePolicy(registry, true, 1, 800, DeadlinePolicy.Fallback.ALLOW, 0);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).deadlinePolicy = deadlinePolicy;
+        annotator(webhook).deadlinePolicy = deadlinePolicy;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, null));
+
+        // No background operations are allowed => the pod is not checked again in the background
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.webhook.background.operations.rejected").counter().count(), is(1.0));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        deadlinePolicy.stop();
+    }
+
+    @Test
+    public void testDeadlineExceededWhilePatching() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        mockPod(mockedPod(false, labels));
+        CountDownLatch patched = new CountDownLatch(1);
+        when(podResource.patch(any(PatchContext.class), anyString())).thenAnswer(i -> {
+            Thread.sleep(500);
+            patched.countDown();
+            return new Pod();
+        });
+        DeadlinePolicy deadlinePolicy = new DeadlinePolicy(new SimpleMeterRegistry(), true, 1, 800, DeadlinePolicy.Fallback.ALLOW, 10);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).deadlinePolicy = deadlinePolicy;
+        annotator(webhook).deadlinePolicy = deadlinePolicy;
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, labels));
+
+        // The pod is a Strimzi pod, so the eviction is denied and the patch finishes in the background
+        assertThat(reviewResponse.getResponse().getAllowed(), is(false));
+        assertThat(patched.getCount(), is(1L));
+        await(patched);
+        deadlinePolicy.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCircuitBreakerFallback() {
+        HttpResponse<byte[]> unavailable = mock(HttpResponse.class);
+        when(unavailable.code()).thenReturn(503);
+        when(unavailable.body()).thenReturn(new byte[0]);
+        when(httpClient.sendAsync(any(), eq(byte[].class))).thenReturn(CompletableFuture.completedFuture(unavailable));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeadlinePolicy deadlinePolicy = new DeadlinePolicy(registry, true, 5, 1_000, DeadlinePolicy.Fallback.CACHED, 10);
+        ApiCircuitBreaker circuitBreaker = new ApiCircuitBreaker(registry, true, 1, 60_000, System::nanoTime);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        decider(webhook).deadlinePolicy = deadlinePolicy;
+        annotator(webhook).deadlinePolicy = deadlinePolicy;
+        decider(webhook).circuitBreaker = circuitBreaker;
+        checker(webhook).circuitBreaker = circuitBreaker;
+
+        // The first request fails and opens the circuit
+        assertThrows(KubernetesClientException.class, () -> review(webhook, reviewRequest(false, null)));
+        assertThat(circuitBreaker.state(), is(ApiCircuitBreaker.State.OPEN));
+
+        // The next request does not call the Kubernetes API and uses the fallback which does not know the pod
+        AdmissionReview reviewResponse = review(webhook, reviewRequest(false, null));
+
+        assertThat(reviewResponse.getResponse().getAllowed(), is(true));
+        assertThat(registry.get("strimzi.drain.cleaner.webhook.fallbacks").tag("reason", "circuit-open").counter().count(), is(1.0));
+        verify(httpClient, times(1)).sendAsync(any(), eq(byte[].class));
+        verify(podResource, never()).patch(any(PatchContext.class), anyString());
+        deadlinePolicy.stop();
+    }
+
+    @Test
+    public void testMetrics() {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true, "my-namespace");
+        webhook.webhookMetrics = new WebhookMetrics(registry);
+
+        // Pod does not exist
+        review(webhook, reviewRequest(false, labels));
+
+        // Strimzi pod
+        mockPod(mockedPod(false, labels));
+        review(webhook, reviewRequest(false, labels));
+        review(webhook, reviewRequest(false, labels, "WRONG-UID"));
+        review(webhook, reviewRequest(true, labels));
+
+        // Not a Strimzi pod
+        mockPod(mockedPod(false, Map.of("app", "my-app")));
+        review(webhook, reviewRequest(false, labels));
+
+        // Unwatched namespace
+        AdmissionReview unwatched = reviewRequest(false, labels);
+        ((Eviction) unwatched.getRequest().getObject()).getMetadata().setNamespace("other-namespace");
+        review(webhook, unwatched);
+
+        // Not an eviction
+        review(webhook, new AdmissionReviewBuilder().withNewRequest().withUid("SOME-UUID").withObject(new Pod()).endRequest().build());
+
+        for (String outcome : List.of("not-found", "denied", "uid-mismatch", "dry-run", "allowed", "ignored-namespace", "invalid")) {
+            assertThat(outcome, registry.get("strimzi.drain.cleaner.webhook.requests").tag("outcome", outcome).timer().count(), is(1L));
+        }
+
+        assertThat(registry.get("strimzi.drain.cleaner.webhook.evictions").tag("version", "v1").counter().count(), is(6.0));
+    }
+
+    @Test
+    public void testTracing(@TempDir Path tempDir) throws IOException {
+        final Map<String, String> labels = Map.of(
+                "strimzi.io/kind", "Kafka",
+                "strimzi.io/name", "my-cluster-kafka"
+        );
+        mockPod(mockedPod(false, labels));
+        when(podResource.patch(any(PatchContext.class), anyString())).thenReturn(new Pod());
+
+        Path file = tempDir.resolve("spans.jsonl");
+        SdkTracerProvider tracerProvider = FileSpanExporterTest.tracerProvider(file);
+
+        ValidatingWebhook webhook = new ValidatingWebhook(client, true, true, true);
+        webhook.tracing = new WebhookTracing(tracerProvider.get("test"));
+        decider(webhook).tracing = webhook.tracing;
+        checker(webhook).tracing = webhook.tracing;
+        annotator(webhook).tracing = webhook.tracing;
+        review(webhook, reviewRequest(false, labels));
+        tracerProvider.close();
+
+        Map<String, JsonNode> spans = FileSpanExporterTest.readSpans(file).stream()
+                .collect(Collectors.toMap(span -> span.get("name").asText(), span -> span));
+        assertThat(spans.keySet(), is(Set.of("decode-admission-review", "review-eviction", "get-pod", "match-labels", "patch-pod")));
+
+        JsonNode review = spans.get("review-eviction");
+        assertThat(review.get("attributes").get("k8s.namespace.name").asText(), is("my-namespace"));
+        assertThat(review.get("attributes").get("k8s.pod.name").asText(), is("my-cluster-kafka-1"));
+        assertThat(review.get("attributes").get("strimzi.drain.cleaner.decision").asText(), is("denied"));
+
+        // Kubernetes API calls are traced as children of the review
+        for (String name : List.of("get-pod", "match-labels", "patch-pod")) {
+            assertThat(name, spans.get(name).get("parentSpanId").asText(), is(review.get("spanId").asText()));
+            assertThat(name, spans.get(name).get("attributes").get("k8s.pod.name").asText(), is("my-cluster-kafka-1"));
+        }
+
+        assertThat(spans.get("get-pod").get("attributes").get("strimzi.drain.cleaner.result").asText(), is("found"));
+        assertThat(spans.get("patch-pod").get("attributes").get("strimzi.drain.cleaner.result").asText(), is("patched"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
     }
 }
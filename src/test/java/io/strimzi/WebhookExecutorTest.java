@@ -0,0 +1,66 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class WebhookExecutorTest {
+    @Test
+    public void testExecutionModes() {
+        assertThat(WebhookExecutor.ExecutionMode.fromValue("worker-pool"), is(WebhookExecutor.ExecutionMode.WORKER_POOL));
+        assertThat(WebhookExecutor.ExecutionMode.fromValue(" Virtual-Threads "), is(WebhookExecutor.ExecutionMode.VIRTUAL_THREADS));
+        assertThat(WebhookExecutor.ExecutionMode.fromValue("event-loop"), is(WebhookExecutor.ExecutionMode.EVENT_LOOP));
+        assertThrows(IllegalArgumentException.class, () -> WebhookExecutor.ExecutionMode.fromValue("reactive"));
+    }
+
+    @Test
+    public void testWorkerPool() {
+        ExecutorService workerPool = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "worker"));
+        WebhookExecutor executor = new WebhookExecutor(WebhookExecutor.ExecutionMode.WORKER_POOL, workerPool);
+
+        String threads = executor.execute(() -> {
+            String requestThread = Thread.currentThread().getName();
+            return executor.offload(() -> requestThread + "/" + Thread.currentThread().getName());
+        }).await().atMost(Duration.ofSeconds(10));
+
+        assertThat(threads, is("worker/worker"));
+        workerPool.shutdown();
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        WebhookExecutor executor = new WebhookExecutor(WebhookExecutor.ExecutionMode.VIRTUAL_THREADS, null);
+
+        boolean virtual = executor.execute(() -> executor.offload(() -> Thread.currentThread().isVirtual()))
+                .await().atMost(Duration.ofSeconds(10));
+
+        assertThat(virtual, is(true));
+        executor.stop();
+    }
+
+    @Test
+    public void testEventLoop() {
+        ExecutorService workerPool = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "worker"));
+        WebhookExecutor executor = new WebhookExecutor(WebhookExecutor.ExecutionMode.EVENT_LOOP, workerPool);
+        String callerThread = Thread.currentThread().getName();
+
+        String threads = executor.execute(() -> {
+            String requestThread = Thread.currentThread().getName();
+            return executor.offload(() -> requestThread + "/" + Thread.currentThread().getName());
+        }).await().atMost(Duration.ofSeconds(10));
+
+        // The request runs on the calling thread and only the blocking operation is offloaded
+        assertThat(threads, is(callerThread + "/worker"));
+        workerPool.shutdown();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright Strimzi authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.strimzi;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.quarkus.test.common.WithTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Load test of the webhook. It starts the Drain Cleaner in the Quarkus test mode against a local mock Kubernetes API
+ * server and replays a storm of eviction requests for randomly selected pods at a constant rate. The latency of each
+ * request is measured from the time when it was supposed to be sent, so a stalled webhook is not hidden by fewer
+ * requests being sent. The latency distribution is written in the HdrHistogram format to target/load-test and the
+ * number of Kubernetes API calls per eviction and the peak number of additional platform threads are logged. Running
+ * the load test with different values of the strimzi.webhook.execution.mode option compares the execution models.
+ *
+ * The load test is not run as part of the regular build. It can be run using the loadtest Maven profile and configured
+ * using the system properties from MockKubernetesApiResource.LoadProfile.
+ */
+@QuarkusTest
+@WithTestResource(MockKubernetesApiResource.class)
+@SuppressWarnings({"checkstyle:ClassDataAbstractionCoupling", "checkstyle:ClassFanOutComplexity"})
+public class WebhookLoadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(WebhookLoadTest.class);
+
+    // Injected by the MockKubernetesApiResource
+    FaultInjectingDispatcher dispatcher;
+
+    @Inject
+    KubernetesClient client;
+
+    @TestHTTPResource("/drainer")
+    URI drainer;
+
+    @ConfigProperty(name = "strimzi.webhook.execution.mode", defaultValue = "worker-pool")
+    String executionMode;
+
+    @Test
+    public void testEvictionStorm() throws InterruptedException, IOException {
+        MockKubernetesApiResource.LoadProfile profile = MockKubernetesApiResource.LoadProfile.fromSystemProperties();
+        LOG.info("Starting load test with {}", profile);
+
+        Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+        LongAdder allowed = new LongAdder();
+        LongAdder denied = new LongAdder();
+        LongAdder failed = new LongAdder();
+        CountDownLatch done = new CountDownLatch(profile.evictions());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / profile.rate();
+        Random random = new Random(0);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             // HTTP/1.1 is used as the Kubernetes API server does when calling the webhooks
+             HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build()) {
+            long start = System.nanoTime();
+
+            for (int i = 0; i < profile.evictions(); i++) {
+                long intended = start + i * intervalNanos;
+                LockSupport.parkNanos(intended - System.nanoTime());
+
+                HttpRequest request = HttpRequest.newBuilder(drainer)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(admissionReview(profile, random.nextInt(profile.pods()), i)))
+                        .build();
+
+                http.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                        .whenComplete((response, error) -> {
+                            latency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+
+                            if (error != null || response.statusCode() != 200) {
+                                failed.increment();
+                            } else if (response.body().contains("\"allowed\":false")) {
+                                denied.increment();
+                            } else {
+                                allowed.increment();
+                            }
+
+                            done.countDown();
+                        });
+            }
+
+            assertThat(done.await(5, TimeUnit.MINUTES), is(true));
+            long durationNanos = System.nanoTime() - start;
+
+            report(profile, latency, durationNanos, threads.getPeakThreadCount() - threadsBefore);
+            LOG.info("Evictions allowed: {}, denied: {}, failed: {}", allowed.sum(), denied.sum(), failed.sum());
+        }
+
+        if (profile.apiErrorRate() == 0 && profile.apiThrottleRate() == 0) {
+            assertThat(failed.sum(), is(0L));
+        }
+
+        long annotated = client.pods().inNamespace(profile.namespace()).list().getItems().stream()
+                .filter(pod -> pod.getMetadata().getAnnotations() != null && "true".equals(pod.getMetadata().getAnnotations().get(ValidatingWebhook.MANUAL_RU_ANNOTATION)))
+                .count();
+        LOG.info("Strimzi pods annotated for restart: {}", annotated);
+    }
+
+    /**
+     * Logs the results of the load test and writes the latency distribution to a file
+     *
+     * @param profile           Load profile
+     * @param latency           Latency histogram in microseconds
+     * @param durationNanos     Duration of the load test
+     * @param extraThreads      Peak number of platform threads started during the load test
+     */
+    private void report(MockKubernetesApiResource.LoadProfile profile, Histogram latency, long durationNanos, int extraThreads) throws IOException {
+        LOG.info("Webhook execution model {} used up to {} additional platform threads", executionMode, extraThreads);
+        LOG.info("Sent {} evictions in {} ms ({} evictions/s)", profile.evictions(), TimeUnit.NANOSECONDS.toMillis(durationNanos),
+                profile.evictions() * TimeUnit.SECONDS.toNanos(1) / durationNanos);
+        LOG.info("Latency in ms: p50 {}, p90 {}, p99 {}, p99.9 {}, max {}",
+                latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0, latency.getValueAtPercentile(99) / 1000.0,
+                latency.getValueAtPercentile(99.9) / 1000.0, latency.getMaxValue() / 1000.0);
+
+        // The API calls used to seed the pods are not counted
+        for (Map.Entry<String, Long> calls : dispatcher.calls().entrySet()) {
+            LOG.info("Kubernetes API calls {}: {} ({} per eviction)", calls.getKey(), calls.getValue(), (double) calls.getValue() / profile.evictions());
+        }
+
+        Path file = Path.of("target", "load-test", "webhook-latency.hgrm");
+        Files.createDirectories(file.getParent());
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            latency.outputPercentileDistribution(out, 1000.0);
+        }
+
+        LOG.info("Latency distribution in ms was written to {}", file.toAbsolutePath());
+    }
+
+    /**
+     * Creates the AdmissionReview with the eviction of a seeded pod
+     *
+     * @param profile   Load profile
+     * @param pod       Index of the evicted pod
+     * @param request   Index of the request used in the request UID
+     *
+     * @return  JSON with the AdmissionReview
+     */
+    private static String admissionReview(MockKubernetesApiResource.LoadProfile profile, int pod, int request) {
+        return "{\"apiVersion\":\"admission.k8s.io/v1\",\"kind\":\"AdmissionReview\",\"request\":{"
+                + "\"uid\":\"request-" + request + "\",\"namespace\":\"" + profile.namespace() + "\",\"dryRun\":false,"
+                + "\"object\":{\"apiVersion\":\"policy/v1\",\"kind\":\"Eviction\",\"metadata\":{"
+                + "\"name\":\"" + MockKubernetesApiResource.podName(profile, pod) + "\",\"namespace\":\"" + profile.namespace() + "\"}}}}";
+    }
+}